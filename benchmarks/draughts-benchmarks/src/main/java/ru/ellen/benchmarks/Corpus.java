@@ -0,0 +1,111 @@
+package ru.ellen.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Фиксированный набор позиций из ресурса positions.txt,
+ * набор позиций для поиска из suite.txt и тактические позиции
+ * с известным лучшим ходом из tactics.txt.
+ */
+final class Corpus {
+    private static final Map<String, Entry> ENTRIES = load();
+    private static final List<Entry> SUITE = loadList("/suite.txt");
+    private static final List<Entry> TACTICS = loadList("/tactics.txt");
+
+    private Corpus() {
+    }
+
+    static Entry get(String name) {
+        Entry entry = ENTRIES.get(name);
+        if (entry == null) {
+            throw new IllegalArgumentException("unknown position " + name);
+        }
+        return entry;
+    }
+
+    /**
+     * @return позиции для бенчмарков поиска (ход в них не задан)
+     */
+    static List<Entry> suite() {
+        return SUITE;
+    }
+
+    /**
+     * @return тактические позиции; ход - единственный лучший
+     */
+    static List<Entry> tactics() {
+        return TACTICS;
+    }
+
+    private static List<Entry> loadList(String resource) {
+        List<Entry> entries = new ArrayList<>();
+        for (String[] fields : read(resource)) {
+            entries.add(new Entry(fields[1], fields[2],
+                    fields[3].equals("white"),
+                    fields.length > 4 ? fields[4] : ""));
+        }
+        return entries;
+    }
+
+    private static Map<String, Entry> load() {
+        Map<String, Entry> entries = new HashMap<>();
+        for (String[] fields : read("/positions.txt")) {
+            entries.put(fields[0], new Entry(fields[1], fields[2],
+                    fields[3].equals("white"), fields[4]));
+        }
+        return entries;
+    }
+
+    private static List<String[]> read(String resource) {
+        List<String[]> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Corpus.class.getResourceAsStream(resource),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                lines.add(line.split(";"));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return lines;
+    }
+
+    static final class Entry {
+        final String whitePositions;
+        final String blackPositions;
+        final boolean white;
+        final String move;
+
+        Entry(String whitePositions, String blackPositions,
+              boolean white, String move) {
+            this.whitePositions = whitePositions;
+            this.blackPositions = blackPositions;
+            this.white = white;
+            this.move = move;
+        }
+
+        /**
+         * Первый шаг хода в том виде, в каком его проверяет
+         * MoveValidation: "c3-d4" или "c3:e5".
+         *
+         * @return первый шаг
+         */
+        String firstStep() {
+            int separator = Math.max(move.indexOf('-'), move.indexOf(':'));
+            return move.substring(0, 2) + move.charAt(separator)
+                    + move.substring(separator + 1, separator + 3);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ru.ellen.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.ellen.Board;
+import ru.ellen.engine.MonteCarloSearch;
+import ru.ellen.engine.Search;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Масштабирование параллельного MCTS: случайные партии в секунду
+ * (счётчик playouts в режиме thrpt) для 1, 2, 4, 8 и 16 потоков.
+ * Одна операция - поиск с фиксированным числом партий из очередной
+ * позиции набора suite.txt; дерево каждый раз строится заново.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class MctsBenchmark {
+    @Param({"1", "2", "4", "8", "16"})
+    public int threads;
+
+    @Param({"20000"})
+    public int playoutsPerSearch;
+
+    private Board[] boards;
+    private boolean[] sides;
+    private MonteCarloSearch search;
+    private int next;
+
+    /**
+     * Сыгранные партии всеми потоками.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Playouts {
+        public long playouts;
+    }
+
+    @Setup
+    public void setUp() {
+        List<Corpus.Entry> suite = Corpus.suite();
+        boards = new Board[suite.size()];
+        sides = new boolean[suite.size()];
+        for (int i = 0; i < boards.length; i++) {
+            Corpus.Entry entry = suite.get(i);
+            boards[i] = Board.fromText(entry.whitePositions,
+                    entry.blackPositions);
+            sides[i] = entry.white;
+        }
+        search = new MonteCarloSearch(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        search.close();
+    }
+
+    @Benchmark
+    public long search(Playouts counter) {
+        int i = next;
+        next = (next + 1) % boards.length;
+        long move = search.search(boards[i], sides[i], playoutsPerSearch,
+                Search.NO_DEADLINE).getMove();
+        counter.playouts += playoutsPerSearch;
+        return move;
+    }
+}
@@ -0,0 +1,78 @@
+package ru.ellen.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.ellen.Board;
+import ru.ellen.engine.Search;
+import ru.ellen.engine.TranspositionTable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сколько узлов нужно, чтобы просчитать набор suite.txt до фиксированной
+ * глубины, с ходами-убийцами, таблицей истории, обоими или без них.
+ * Счётчик nodes - узлы за одну операцию (весь набор); уменьшение
+ * относительно none и есть выигрыш от сортировки.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OrderingBenchmark {
+    @Param({"none", "killers", "history", "both"})
+    public String ordering;
+
+    @Param({"12"})
+    public int depth;
+
+    private Board[] boards;
+    private boolean[] sides;
+    private Search search;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long nodes;
+    }
+
+    @Setup
+    public void setUp() {
+        List<Corpus.Entry> suite = Corpus.suite();
+        boards = new Board[suite.size()];
+        sides = new boolean[suite.size()];
+        for (int i = 0; i < boards.length; i++) {
+            Corpus.Entry entry = suite.get(i);
+            boards[i] = Board.fromText(entry.whitePositions,
+                    entry.blackPositions);
+            sides[i] = entry.white;
+        }
+        search = new Search(new TranspositionTable(16));
+        search.setKillers(ordering.equals("killers")
+                || ordering.equals("both"));
+        search.setHistory(ordering.equals("history")
+                || ordering.equals("both"));
+    }
+
+    @Benchmark
+    public Counters timeToDepth(Counters counters) {
+        for (int i = 0; i < boards.length; i++) {
+            search.table().clear();
+            counters.nodes += search.search(boards[i], sides[i], depth)
+                    .getNodes();
+        }
+        return counters;
+    }
+}
@@ -0,0 +1,71 @@
+package ru.ellen.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.ellen.Board;
+import ru.ellen.Configuration;
+import ru.ellen.Play;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор входных позиций и печать результата.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+    @Param({"quiet", "capture", "queenChain"})
+    public String position;
+
+    private String[] whiteTokens;
+    private String whitePositions;
+    private String blackPositions;
+    private Board board;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final PrintStream out = new PrintStream(buffer);
+
+    @Setup
+    public void setUp() {
+        Corpus.Entry entry = Corpus.get(position);
+        whitePositions = entry.whitePositions;
+        blackPositions = entry.blackPositions;
+        whiteTokens = whitePositions.split(" ");
+        board = Board.fromText(whitePositions, blackPositions);
+    }
+
+    @Benchmark
+    public void configuration(Blackhole blackhole) {
+        for (String token : whiteTokens) {
+            blackhole.consume(new Configuration(token, true));
+        }
+    }
+
+    @Benchmark
+    public Board board() {
+        return Board.fromText(whitePositions, blackPositions);
+    }
+
+    @Benchmark
+    public int printResult() {
+        buffer.reset();
+        Play.printResult(board, true, out);
+        Play.printResult(board, false, out);
+        return buffer.size();
+    }
+}
@@ -0,0 +1,68 @@
+package ru.ellen.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.ellen.Board;
+import ru.ellen.MoveValidation;
+import ru.ellen.Play;
+import ru.ellen.exceptions.BusyCellException;
+import ru.ellen.exceptions.InvalidMoveException;
+import ru.ellen.exceptions.LogicException;
+import ru.ellen.exceptions.WhiteCellException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обработка одного хода: тихий ход, одно взятие и цепочка взятий дамкой.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayBenchmark {
+    @Param({"quiet", "capture", "queenChain"})
+    public String position;
+
+    private Board start;
+    private final Board board = new Board();
+    private boolean white;
+    private String move;
+    private String firstStep;
+
+    @Setup
+    public void setUp() {
+        Corpus.Entry entry = Corpus.get(position);
+        start = Board.fromText(entry.whitePositions, entry.blackPositions);
+        white = entry.white;
+        move = entry.move;
+        firstStep = entry.firstStep();
+    }
+
+    @Benchmark
+    public Board processLineOfMoves() throws WhiteCellException,
+            BusyCellException, InvalidMoveException, LogicException {
+        board.copyFrom(start);
+        Play.processLineOfMoves(board, white, move);
+        return board;
+    }
+
+    @Benchmark
+    public MoveValidation checkMove() throws WhiteCellException,
+            BusyCellException, InvalidMoveException, LogicException {
+        MoveValidation validation = new MoveValidation(start, white,
+                firstStep);
+        validation.checkMove();
+        return validation;
+    }
+}
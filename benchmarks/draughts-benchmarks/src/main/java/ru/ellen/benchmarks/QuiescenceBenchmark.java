@@ -0,0 +1,91 @@
+package ru.ellen.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.ellen.Board;
+import ru.ellen.engine.Search;
+import ru.ellen.engine.TranspositionTable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сколько узлов нужно, чтобы решить тактические позиции tactics.txt
+ * с перебором взятий на горизонте и без него. Глубина увеличивается,
+ * пока поиск не найдёт лучший ход (но не больше maxDepth).
+ * Счётчики за одну операцию (весь набор): nodes - узлы,
+ * solved - решённые позиции, depth - сумма глубин решения.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QuiescenceBenchmark {
+    @Param({"true", "false"})
+    public boolean quiescence;
+
+    @Param({"16"})
+    public int maxDepth;
+
+    private Board[] boards;
+    private boolean[] sides;
+    private String[] answers;
+    private Search search;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long nodes;
+        public long solved;
+        public long depth;
+    }
+
+    @Setup
+    public void setUp() {
+        List<Corpus.Entry> tactics = Corpus.tactics();
+        boards = new Board[tactics.size()];
+        sides = new boolean[tactics.size()];
+        answers = new String[tactics.size()];
+        for (int i = 0; i < boards.length; i++) {
+            Corpus.Entry entry = tactics.get(i);
+            boards[i] = Board.fromText(entry.whitePositions,
+                    entry.blackPositions);
+            sides[i] = entry.white;
+            answers[i] = entry.move;
+        }
+        search = new Search(new TranspositionTable(16));
+        search.setQuiescence(quiescence);
+    }
+
+    @Benchmark
+    public Counters solve(Counters counters) {
+        for (int i = 0; i < boards.length; i++) {
+            search.table().clear();
+            // таблица не очищается между глубинами, как при
+            // итеративном углублении
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                String move = search.search(boards[i], sides[i], depth)
+                        .getNotation();
+                counters.nodes += search.nodes();
+                if (move.equals(answers[i])) {
+                    counters.solved++;
+                    counters.depth += depth;
+                    break;
+                }
+            }
+        }
+        return counters;
+    }
+}
@@ -0,0 +1,95 @@
+package ru.ellen.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.ellen.Board;
+import ru.ellen.engine.SearchResult;
+import ru.ellen.engine.SmpSearch;
+import ru.ellen.engine.TranspositionTable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Масштабирование Lazy SMP: время поиска всего набора suite.txt
+ * до фиксированной глубины (avgt - время до глубины) и скорость
+ * в узлах в секунду (счётчик nodes в режиме thrpt).
+ * Таблица транспозиций очищается перед каждым прогоном.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class SmpBenchmark {
+    @Param({"1", "2", "4", "8", "16"})
+    public int threads;
+
+    @Param({"12"})
+    public int depth;
+
+    @Param({"64"})
+    public int tableMb;
+
+    private Board[] boards;
+    private boolean[] sides;
+    private SmpSearch search;
+
+    /**
+     * Узлы, просмотренные всеми потоками.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+    }
+
+    @Setup
+    public void setUp() {
+        List<Corpus.Entry> suite = Corpus.suite();
+        boards = new Board[suite.size()];
+        sides = new boolean[suite.size()];
+        for (int i = 0; i < boards.length; i++) {
+            Corpus.Entry entry = suite.get(i);
+            boards[i] = Board.fromText(entry.whitePositions,
+                    entry.blackPositions);
+            sides[i] = entry.white;
+        }
+        search = new SmpSearch(threads, new TranspositionTable(tableMb));
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        search.table().clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        search.close();
+    }
+
+    @Benchmark
+    public int timeToDepth(Nodes counter) {
+        int score = 0;
+        for (int i = 0; i < boards.length; i++) {
+            SearchResult result =
+                    search.search(boards[i], sides[i], depth);
+            counter.nodes += result.getNodes();
+            score += result.getScore();
+        }
+        return score;
+    }
+}
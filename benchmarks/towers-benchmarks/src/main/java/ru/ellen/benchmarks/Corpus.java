@@ -0,0 +1,74 @@
+package ru.ellen.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Фиксированный набор позиций из ресурса positions.txt.
+ */
+final class Corpus {
+    private static final Map<String, Entry> ENTRIES = load();
+
+    private Corpus() {
+    }
+
+    static Entry get(String name) {
+        Entry entry = ENTRIES.get(name);
+        if (entry == null) {
+            throw new IllegalArgumentException("unknown position " + name);
+        }
+        return entry;
+    }
+
+    private static Map<String, Entry> load() {
+        Map<String, Entry> entries = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Corpus.class.getResourceAsStream("/positions.txt"),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(";");
+                entries.put(fields[0], new Entry(fields[1], fields[2],
+                        fields[3].equals("white"), fields[4]));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return entries;
+    }
+
+    static final class Entry {
+        final String whitePositions;
+        final String blackPositions;
+        final boolean white;
+        final String move;
+
+        Entry(String whitePositions, String blackPositions,
+              boolean white, String move) {
+            this.whitePositions = whitePositions;
+            this.blackPositions = blackPositions;
+            this.white = white;
+            this.move = move;
+        }
+
+        /**
+         * Первый шаг хода в том виде, в каком его проверяет
+         * MoveValidation: "c3-d4" или "c3:e5".
+         *
+         * @return первый шаг
+         */
+        String firstStep() {
+            int separator = Math.max(move.indexOf('-'), move.indexOf(':'));
+            return move.substring(0, 2) + move.charAt(separator)
+                    + move.substring(separator + 1, separator + 3);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ru.ellen.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.ellen.Configuration;
+import ru.ellen.MoveValidation;
+import ru.ellen.Play;
+import ru.ellen.exceptions.BusyCellException;
+import ru.ellen.exceptions.InvalidMoveException;
+import ru.ellen.exceptions.LogicException;
+import ru.ellen.exceptions.WhiteCellException;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обработка одного хода: тихий ход, одно взятие и цепочка взятий дамкой.
+ * Ход меняет списки, поэтому они пересоздаются перед каждым вызовом
+ * (Level.Invocation); время пересоздания в замер не входит.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayBenchmark {
+    @Param({"quiet", "capture", "queenChain"})
+    public String position;
+
+    private Corpus.Entry entry;
+    private String firstStep;
+    private ArrayList<Configuration> mine;
+    private ArrayList<Configuration> others;
+    private ArrayList<Configuration> fixedMine;
+    private ArrayList<Configuration> fixedOthers;
+
+    @Setup
+    public void setUp() {
+        entry = Corpus.get(position);
+        firstStep = entry.firstStep();
+        fixedMine = configurations(entry.white
+                ? entry.whitePositions : entry.blackPositions);
+        fixedOthers = configurations(entry.white
+                ? entry.blackPositions : entry.whitePositions);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetPosition() {
+        mine = configurations(entry.white
+                ? entry.whitePositions : entry.blackPositions);
+        others = configurations(entry.white
+                ? entry.blackPositions : entry.whitePositions);
+    }
+
+    @Benchmark
+    public ArrayList<Configuration> processLineOfMoves()
+            throws WhiteCellException, BusyCellException,
+            InvalidMoveException, LogicException {
+        Play.processLineOfMoves(mine, others, entry.move);
+        return mine;
+    }
+
+    @Benchmark
+    public MoveValidation checkMove() throws WhiteCellException,
+            BusyCellException, InvalidMoveException, LogicException {
+        MoveValidation validation = new MoveValidation(fixedMine,
+                fixedOthers, firstStep);
+        validation.checkMove();
+        return validation;
+    }
+
+    static ArrayList<Configuration> configurations(String line) {
+        ArrayList<Configuration> configurations = new ArrayList<>();
+        for (String token : line.split(" ")) {
+            configurations.add(new Configuration(token));
+        }
+        return configurations;
+    }
+}
@@ -0,0 +1,505 @@
+package ru.ellen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.StringTokenizer;
+
+/**
+ * Битовое представление доски.
+ * Каждое из 32 тёмных полей соответствует одному биту маски:
+ * индекс поля равен (номер - 1) * 4 + (буква - 'a') / 2,
+ * то есть a1 - 0, c1 - 1, ..., h8 - 31.
+ */
+public final class Board {
+    public static final int SQUARES = 32;
+    /**
+     * Глубина стека отмены ходов {@link #makeMove(long)}.
+     */
+    public static final int MAX_PLY = 128;
+    private static final int BOARD_SIZE = 8;
+
+    private int whiteMen;
+    private int whiteQueens;
+    private int blackMen;
+    private int blackQueens;
+    private int eaten;
+    // ключ Зобриста расстановки (без учёта очереди хода)
+    private long key;
+    // оценка PieceSquare с точки зрения белых
+    private int score;
+
+    // стек отмены: ход, побитые дамки (остальные побитые - простые),
+    // ключ и оценка до хода
+    private final long[] undoMoves = new long[MAX_PLY];
+    private final int[] undoQueens = new int[MAX_PLY];
+    private final long[] undoKeys = new long[MAX_PLY];
+    private final int[] undoScores = new int[MAX_PLY];
+    private int ply;
+
+    public Board() {
+    }
+
+    public Board(int whiteMen, int whiteQueens, int blackMen, int blackQueens) {
+        set(whiteMen, whiteQueens, blackMen, blackQueens);
+    }
+
+    /**
+     * Заменяет расстановку на заданную масками; стек отмены очищается.
+     *
+     * @param whiteMen    белые простые
+     * @param whiteQueens белые дамки
+     * @param blackMen    чёрные простые
+     * @param blackQueens чёрные дамки
+     */
+    public void set(int whiteMen, int whiteQueens,
+                    int blackMen, int blackQueens) {
+        this.whiteMen = whiteMen;
+        this.whiteQueens = whiteQueens;
+        this.blackMen = blackMen;
+        this.blackQueens = blackQueens;
+        this.eaten = 0;
+        this.key = Zobrist.compute(this, true);
+        this.score = PieceSquare.compute(this);
+        this.ply = 0;
+    }
+
+    /**
+     * Копирует расстановку другой доски в эту.
+     * Стек отмены не копируется, а очищается.
+     *
+     * @param other исходная доска
+     */
+    public void copyFrom(Board other) {
+        whiteMen = other.whiteMen;
+        whiteQueens = other.whiteQueens;
+        blackMen = other.blackMen;
+        blackQueens = other.blackQueens;
+        eaten = other.eaten;
+        key = other.key;
+        score = other.score;
+        ply = 0;
+    }
+
+    /**
+     * Делает ход, полученный от {@link MoveGenerator}:
+     * снимает побитые фигуры, переставляет шашку и превращает её в дамку.
+     *
+     * @param move ход
+     */
+    public void apply(long move) {
+        remove(Move.captures(move));
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (from != to) {
+            move(from, to);
+        }
+        if (Move.isPromotion(move)) {
+            promote(to);
+        }
+    }
+
+    /**
+     * Делает ход с возможностью отмены через {@link #unmakeMove()}.
+     * В стек записываются сам ход и то, какие из побитых фигур были
+     * дамками; память не выделяется.
+     *
+     * @param move ход от {@link MoveGenerator}
+     * @throws IllegalStateException если стек отмены переполнен
+     */
+    public void makeMove(long move) {
+        if (ply == MAX_PLY) {
+            throw new IllegalStateException("undo stack overflow");
+        }
+        undoMoves[ply] = move;
+        undoQueens[ply] = Move.captures(move) & (whiteQueens | blackQueens);
+        undoKeys[ply] = key;
+        undoScores[ply] = score;
+        ply++;
+        apply(move);
+    }
+
+    /**
+     * Отменяет последний ход, сделанный {@link #makeMove(long)}:
+     * разжалует дамку, возвращает шашку и побитые фигуры.
+     *
+     * @throws IllegalStateException если отменять нечего
+     */
+    public void unmakeMove() {
+        if (ply == 0) {
+            throw new IllegalStateException("undo stack is empty");
+        }
+        ply--;
+        long move = undoMoves[ply];
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int toMask = bit(to);
+        boolean white = ((whiteMen | whiteQueens) & toMask) != 0;
+        if (Move.isPromotion(move)) {
+            if (white) {
+                whiteQueens ^= toMask;
+                whiteMen |= toMask;
+            } else {
+                blackQueens ^= toMask;
+                blackMen |= toMask;
+            }
+        }
+        if (from != to) {
+            move(to, from);
+        }
+        int captures = Move.captures(move);
+        int queens = undoQueens[ply];
+        if (white) {
+            blackMen |= captures & ~queens;
+            blackQueens |= queens;
+        } else {
+            whiteMen |= captures & ~queens;
+            whiteQueens |= queens;
+        }
+        key = undoKeys[ply];
+        score = undoScores[ply];
+    }
+
+    /**
+     * Ключ Зобриста позиции, поддерживаемый при каждом изменении доски.
+     *
+     * @param white ходят ли белые
+     * @return ключ, совпадающий с {@link Zobrist#compute(Board, boolean)}
+     */
+    public long key(boolean white) {
+        return key ^ Zobrist.side(white);
+    }
+
+    /**
+     * Оценка материала и положения фигур по {@link PieceSquare},
+     * поддерживаемая при каждом изменении доски.
+     *
+     * @return оценка с точки зрения белых, совпадающая с
+     * {@link PieceSquare#compute(Board)}
+     */
+    public int score() {
+        return score;
+    }
+
+    /**
+     * @return число ходов в стеке отмены
+     */
+    public int ply() {
+        return ply;
+    }
+
+    /**
+     * Начальная расстановка: белые на горизонталях 1-3, чёрные на 6-8.
+     *
+     * @return новая доска
+     */
+    public static Board initial() {
+        return new Board(0x00000FFF, 0, 0xFFF00000, 0);
+    }
+
+    /**
+     * Построение доски по двум строкам в формате входа {@link Play}:
+     * "a1 c3 D4" - через пробел, дамки заглавными буквами.
+     *
+     * @param whitePositions белые фигуры
+     * @param blackPositions чёрные фигуры
+     * @return новая доска
+     */
+    public static Board fromText(String whitePositions,
+                                 String blackPositions) {
+        Board board = new Board();
+        StringTokenizer wToken = new StringTokenizer(whitePositions, " ");
+        while (wToken.hasMoreTokens()) {
+            Configuration conf = new Configuration(wToken.nextToken(), true);
+            board.put(square(conf.getLetter(), conf.getNumber()),
+                    true, conf.isQueen());
+        }
+        StringTokenizer bToken = new StringTokenizer(blackPositions, " ");
+        while (bToken.hasMoreTokens()) {
+            Configuration conf = new Configuration(bToken.nextToken(), false);
+            board.put(square(conf.getLetter(), conf.getNumber()),
+                    false, conf.isQueen());
+        }
+        return board;
+    }
+
+    /**
+     * Фигуры одного цвета в формате вывода {@link Play}:
+     * отсортированы, дамки заглавными буквами.
+     *
+     * @param white цвет фигур
+     * @return строка через пробел (пустая, если фигур нет)
+     */
+    public String toText(boolean white) {
+        int all = pieces(white);
+        int queens = queens(white);
+        String[] res = new String[Integer.bitCount(all)];
+        for (int j = 0; all != 0; j++) {
+            int square = Integer.numberOfTrailingZeros(all);
+            all &= all - 1;
+            char letter = letter(square);
+            if ((queens & bit(square)) != 0) {
+                letter = Character.toUpperCase(letter);
+            }
+            res[j] = String.valueOf(letter) + number(square);
+        }
+        Arrays.sort(res);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < res.length; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(res[i]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Построение доски по спискам конфигураций.
+     * Цвет шашек определяется списком, а не флагом конфигурации.
+     *
+     * @param myConfigs    конфигурации играющего
+     * @param otherConfigs конфигурации противника
+     * @param white        играет ли владелец myConfigs белыми
+     * @return новая доска
+     */
+    public static Board fromConfigurations(ArrayList<Configuration> myConfigs,
+                                           ArrayList<Configuration> otherConfigs,
+                                           boolean white) {
+        Board board = new Board();
+        for (Configuration conf : myConfigs) {
+            board.put(square(conf.getLetter(), conf.getNumber()),
+                    white, conf.isQueen());
+        }
+        for (Configuration conf : otherConfigs) {
+            board.put(square(conf.getLetter(), conf.getNumber()),
+                    !white, conf.isQueen());
+        }
+        return board;
+    }
+
+    /**
+     * Перезаписывает список конфигураций фигурами одного цвета.
+     *
+     * @param white   цвет фигур
+     * @param configs список, который будет заполнен заново
+     */
+    public void toConfigurations(boolean white,
+                                 ArrayList<Configuration> configs) {
+        configs.clear();
+        int all = pieces(white);
+        int queens = queens(white);
+        while (all != 0) {
+            int square = Integer.numberOfTrailingZeros(all);
+            all &= all - 1;
+            configs.add(new Configuration(square,
+                    (queens & bit(square)) != 0, white));
+        }
+    }
+
+    /**
+     * Индекс поля по его адресу.
+     *
+     * @param letter буква (в малом регистре)
+     * @param number номер горизонтали
+     * @return индекс поля или -1, если поле белое или вне доски
+     */
+    public static int square(char letter, int number) {
+        int column = letter - 'a';
+        if (column < 0 || column >= BOARD_SIZE
+                || number < 1 || number > BOARD_SIZE
+                || ((column + number) & 1) == 0) {
+            return -1;
+        }
+        return (number - 1) * 4 + (column >> 1);
+    }
+
+    public static char letter(int square) {
+        int row = square >> 2;
+        return (char) ('a' + ((square & 3) << 1) + (row & 1));
+    }
+
+    public static int number(int square) {
+        return (square >> 2) + 1;
+    }
+
+    /**
+     * Соседнее по диагонали поле.
+     *
+     * @param square       исходное поле
+     * @param letterOffset смещение по букве
+     * @param numberOffset смещение по номеру
+     * @return индекс поля или -1, если выходим за пределы доски
+     */
+    public static int shift(int square, int letterOffset, int numberOffset) {
+        return square((char) (letter(square) + letterOffset),
+                number(square) + numberOffset);
+    }
+
+    public static int bit(int square) {
+        return 1 << square;
+    }
+
+    public int men(boolean white) {
+        return white ? whiteMen : blackMen;
+    }
+
+    public int queens(boolean white) {
+        return white ? whiteQueens : blackQueens;
+    }
+
+    public int pieces(boolean white) {
+        return white ? whiteMen | whiteQueens : blackMen | blackQueens;
+    }
+
+    public int occupied() {
+        return whiteMen | whiteQueens | blackMen | blackQueens;
+    }
+
+    /**
+     * Шашки, съеденные за текущий ход, но ещё не снятые с доски.
+     *
+     * @return маска съеденных шашек
+     */
+    public int eaten() {
+        return eaten;
+    }
+
+    public boolean isEmpty(int square) {
+        return square < 0 || (occupied() & bit(square)) == 0;
+    }
+
+    /**
+     * Ставит фигуру на пустое поле.
+     *
+     * @param square индекс поля (-1 игнорируется)
+     * @param white  цвет фигуры
+     * @param queen  является ли дамкой
+     */
+    public void put(int square, boolean white, boolean queen) {
+        if (square < 0 || !isEmpty(square)) {
+            return;
+        }
+        int mask = bit(square);
+        int kind;
+        if (white) {
+            if (queen) {
+                whiteQueens |= mask;
+                kind = Zobrist.WHITE_QUEEN;
+            } else {
+                whiteMen |= mask;
+                kind = Zobrist.WHITE_MAN;
+            }
+        } else {
+            if (queen) {
+                blackQueens |= mask;
+                kind = Zobrist.BLACK_QUEEN;
+            } else {
+                blackMen |= mask;
+                kind = Zobrist.BLACK_MAN;
+            }
+        }
+        key ^= Zobrist.piece(kind, square);
+        score += PieceSquare.value(kind, square);
+    }
+
+    /**
+     * Переставляет фигуру (любого цвета) с одного поля на другое.
+     *
+     * @param from откуда
+     * @param to   куда
+     */
+    public void move(int from, int to) {
+        int fromMask = bit(from);
+        int toMask = bit(to);
+        int kind;
+        if ((whiteMen & fromMask) != 0) {
+            whiteMen ^= fromMask | toMask;
+            kind = Zobrist.WHITE_MAN;
+        } else if ((whiteQueens & fromMask) != 0) {
+            whiteQueens ^= fromMask | toMask;
+            kind = Zobrist.WHITE_QUEEN;
+        } else if ((blackMen & fromMask) != 0) {
+            blackMen ^= fromMask | toMask;
+            kind = Zobrist.BLACK_MAN;
+        } else if ((blackQueens & fromMask) != 0) {
+            blackQueens ^= fromMask | toMask;
+            kind = Zobrist.BLACK_QUEEN;
+        } else {
+            return;
+        }
+        key ^= Zobrist.piece(kind, from) ^ Zobrist.piece(kind, to);
+        score += PieceSquare.value(kind, to) - PieceSquare.value(kind, from);
+    }
+
+    /**
+     * Превращает шашку в дамку, если она дошла до последней горизонтали.
+     *
+     * @param square поле шашки
+     * @return стоит ли на поле дамка после проверки
+     */
+    public boolean becomeQueen(int square) {
+        int mask = bit(square);
+        if ((whiteMen & mask) != 0 && number(square) == BOARD_SIZE) {
+            promote(square);
+        }
+        if ((blackMen & mask) != 0 && number(square) == 1) {
+            promote(square);
+        }
+        return ((whiteQueens | blackQueens) & mask) != 0;
+    }
+
+    /**
+     * Превращает шашку в дамку независимо от горизонтали
+     * (шашка могла пройти последнюю горизонталь во время взятия).
+     *
+     * @param square поле шашки
+     */
+    public void promote(int square) {
+        int mask = bit(square);
+        if ((whiteMen & mask) != 0) {
+            whiteMen ^= mask;
+            whiteQueens |= mask;
+            key ^= Zobrist.piece(Zobrist.WHITE_MAN, square)
+                    ^ Zobrist.piece(Zobrist.WHITE_QUEEN, square);
+            score += PieceSquare.value(Zobrist.WHITE_QUEEN, square)
+                    - PieceSquare.value(Zobrist.WHITE_MAN, square);
+        } else if ((blackMen & mask) != 0) {
+            blackMen ^= mask;
+            blackQueens |= mask;
+            key ^= Zobrist.piece(Zobrist.BLACK_MAN, square)
+                    ^ Zobrist.piece(Zobrist.BLACK_QUEEN, square);
+            score += PieceSquare.value(Zobrist.BLACK_QUEEN, square)
+                    - PieceSquare.value(Zobrist.BLACK_MAN, square);
+        }
+    }
+
+    public void markEaten(int square) {
+        eaten |= bit(square) & occupied();
+    }
+
+    /**
+     * Убирает с доски все шашки, съеденные за ход.
+     */
+    public void removeEaten() {
+        remove(eaten);
+        eaten = 0;
+    }
+
+    /**
+     * Снимает с доски все фигуры из маски.
+     */
+    private void remove(int mask) {
+        key ^= Zobrist.pieces(Zobrist.WHITE_MAN, whiteMen & mask)
+                ^ Zobrist.pieces(Zobrist.WHITE_QUEEN, whiteQueens & mask)
+                ^ Zobrist.pieces(Zobrist.BLACK_MAN, blackMen & mask)
+                ^ Zobrist.pieces(Zobrist.BLACK_QUEEN, blackQueens & mask);
+        score -= PieceSquare.values(Zobrist.WHITE_MAN, whiteMen & mask)
+                + PieceSquare.values(Zobrist.WHITE_QUEEN, whiteQueens & mask)
+                + PieceSquare.values(Zobrist.BLACK_MAN, blackMen & mask)
+                + PieceSquare.values(Zobrist.BLACK_QUEEN, blackQueens & mask);
+        whiteMen &= ~mask;
+        whiteQueens &= ~mask;
+        blackMen &= ~mask;
+        blackQueens &= ~mask;
+    }
+}
@@ -24,6 +24,21 @@ public final class Configuration {
         this.isEaten = false;
     }
 
+    /**
+     * Конфигурация по индексу тёмного поля {@link Board}.
+     *
+     * @param square  индекс поля
+     * @param isQueen является ли дамкой
+     * @param isWhite определение цвета
+     */
+    public Configuration(int square, boolean isQueen, boolean isWhite) {
+        this.number = Board.number(square);
+        this.letter = Board.letter(square);
+        this.isQueen = isQueen;
+        this.isWhite = isWhite;
+        this.isEaten = false;
+    }
+
     public int getNumber() {
         return number;
     }
@@ -0,0 +1,60 @@
+package ru.ellen;
+
+/**
+ * Ход, упакованный в long:
+ * биты 0-4 - исходное поле, 5-9 - конечное поле,
+ * бит 10 - шашка стала дамкой, бит 11 - ходит дамка,
+ * биты 32-63 - маска побитых фигур противника.
+ */
+public final class Move {
+    public static final long NONE = 0L;
+    private static final int SQUARE_MASK = 0x1F;
+    private static final int TO_SHIFT = 5;
+    private static final long PROMOTION = 1L << 10;
+    private static final long QUEEN = 1L << 11;
+    private static final int CAPTURES_SHIFT = 32;
+
+    private Move() {
+    }
+
+    public static long of(int from, int to, int captures,
+                          boolean queen, boolean promotion) {
+        long move = from | (to << TO_SHIFT)
+                | ((long) captures << CAPTURES_SHIFT);
+        if (queen) {
+            move |= QUEEN;
+        }
+        if (promotion) {
+            move |= PROMOTION;
+        }
+        return move;
+    }
+
+    public static int from(long move) {
+        return (int) move & SQUARE_MASK;
+    }
+
+    public static int to(long move) {
+        return (int) (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    /**
+     * @param move ход
+     * @return маска побитых фигур
+     */
+    public static int captures(long move) {
+        return (int) (move >>> CAPTURES_SHIFT);
+    }
+
+    public static boolean isCapture(long move) {
+        return captures(move) != 0;
+    }
+
+    public static boolean isPromotion(long move) {
+        return (move & PROMOTION) != 0;
+    }
+
+    public static boolean isQueen(long move) {
+        return (move & QUEEN) != 0;
+    }
+}
@@ -0,0 +1,221 @@
+package ru.ellen;
+
+/**
+ * Генератор всех допустимых ходов по правилам русских шашек.
+ * <ul>
+ * <li>если можно бить, бить обязательно, а цепочку взятий нужно
+ * довести до конца;</li>
+ * <li>простая шашка бьёт вперёд и назад, дойдя до последней
+ * горизонтали во время взятия, продолжает бить уже как дамка;</li>
+ * <li>дамка после взятия обязана встать на поле, с которого можно
+ * бить дальше, если такое поле есть;</li>
+ * <li>турецкий удар: побитые шашки снимаются только после хода,
+ * до этого их нельзя бить повторно и через них нельзя перепрыгнуть.</li>
+ * </ul>
+ * Генератор не выделяет память при вызове: ходы пишутся в переданный
+ * {@link MoveList}. Экземпляр хранит состояние обхода, поэтому
+ * каждому потоку нужен свой.
+ */
+public final class MoveGenerator {
+    private static final int WHITE_QUEEN_ROW = 0xF0000000;
+    private static final int BLACK_QUEEN_ROW = 0x0000000F;
+
+    private final int[] path = new int[MoveList.MAX_PATH];
+    private MoveList list;
+    private int occupied;
+    private int opponent;
+    private int queenRow;
+    private boolean startQueen;
+
+    /**
+     * Все допустимые ходы стороны.
+     *
+     * @param board доска
+     * @param white ходят ли белые
+     * @param list  буфер для ходов (очищается)
+     * @return число ходов
+     */
+    public int generate(Board board, boolean white, MoveList list) {
+        generateCaptures(board, white, list);
+        if (list.size() == 0) {
+            generateQuiet(board, white, list);
+        }
+        return list.size();
+    }
+
+    /**
+     * Только взятия (полные цепочки).
+     *
+     * @param board доска
+     * @param white ходят ли белые
+     * @param list  буфер для ходов (очищается)
+     * @return число ходов
+     */
+    public int generateCaptures(Board board, boolean white, MoveList list) {
+        list.clear();
+        this.list = list;
+        this.opponent = board.pieces(!white);
+        this.queenRow = white ? WHITE_QUEEN_ROW : BLACK_QUEEN_ROW;
+        int men = board.men(white);
+        int queens = board.queens(white);
+        int pieces = men | queens;
+        while (pieces != 0) {
+            int from = Integer.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            startQueen = (queens & Board.bit(from)) != 0;
+            // шашка, которая бьёт, освобождает своё поле
+            occupied = board.occupied() & ~Board.bit(from);
+            path[0] = from;
+            captureFrom(from, startQueen, 0, 0, false);
+        }
+        this.list = null;
+        return list.size();
+    }
+
+    /**
+     * Есть ли у стороны хотя бы одно взятие.
+     *
+     * @param board доска
+     * @param white ходят ли белые
+     * @return обязана ли сторона бить
+     */
+    public static boolean hasCapture(Board board, boolean white) {
+        int occupied = board.occupied();
+        int opponent = board.pieces(!white);
+        int men = board.men(white);
+        while (men != 0) {
+            int square = Integer.numberOfTrailingZeros(men);
+            men &= men - 1;
+            if (Diagonals.manCanCapture(square, occupied, opponent)) {
+                return true;
+            }
+        }
+        int queens = board.queens(white);
+        while (queens != 0) {
+            int square = Integer.numberOfTrailingZeros(queens);
+            queens &= queens - 1;
+            if (Diagonals.queenCanCapture(square, occupied, opponent)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void generateQuiet(Board board, boolean white, MoveList list) {
+        int free = ~board.occupied();
+        int promotionRow = white ? WHITE_QUEEN_ROW : BLACK_QUEEN_ROW;
+        int firstDir = white ? Diagonals.UP_RIGHT : Diagonals.DOWN_RIGHT;
+        int men = board.men(white);
+        while (men != 0) {
+            int from = Integer.numberOfTrailingZeros(men);
+            men &= men - 1;
+            path[0] = from;
+            for (int dir = firstDir; dir < firstDir + 2; dir++) {
+                int to = Diagonals.step(dir, from);
+                if (to >= 0 && (free & Board.bit(to)) != 0) {
+                    path[1] = to;
+                    list.add(Move.of(from, to, 0, false,
+                            (promotionRow & Board.bit(to)) != 0), path, 2);
+                }
+            }
+        }
+        int occupiedAll = board.occupied();
+        int queens = board.queens(white);
+        while (queens != 0) {
+            int from = Integer.numberOfTrailingZeros(queens);
+            queens &= queens - 1;
+            path[0] = from;
+            for (int dir = 0; dir < Diagonals.DIRECTIONS; dir++) {
+                int targets = Diagonals.freeRay(from, dir, occupiedAll);
+                while (targets != 0) {
+                    int to = Integer.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    path[1] = to;
+                    list.add(Move.of(from, to, 0, true, false), path, 2);
+                }
+            }
+        }
+    }
+
+    /**
+     * Перебор продолжений цепочки взятий с поля square.
+     *
+     * @param square   текущее поле бьющей шашки
+     * @param queen    бьёт ли она как дамка
+     * @param captured уже побитые в этой цепочке фигуры
+     * @param depth    число сделанных взятий
+     * @param promoted стала ли шашка дамкой за этот ход
+     */
+    private void captureFrom(int square, boolean queen, int captured,
+                             int depth, boolean promoted) {
+        int capturable = opponent & ~captured;
+        boolean found = false;
+        for (int dir = 0; dir < Diagonals.DIRECTIONS; dir++) {
+            if (!queen) {
+                int over = Diagonals.step(dir, square);
+                int to = Diagonals.jump(dir, square);
+                if (to < 0 || (capturable & Board.bit(over)) == 0
+                        || (occupied & Board.bit(to)) != 0) {
+                    continue;
+                }
+                found = true;
+                path[depth + 1] = to;
+                boolean promotes = (queenRow & Board.bit(to)) != 0;
+                captureFrom(to, promotes, captured | Board.bit(over),
+                        depth + 1, promoted || promotes);
+            } else {
+                int blocker = Diagonals.firstBlocker(square, dir, occupied);
+                if (blocker < 0 || (capturable & Board.bit(blocker)) == 0) {
+                    continue;
+                }
+                int landings = Diagonals.freeRay(blocker, dir, occupied);
+                if (landings == 0) {
+                    continue;
+                }
+                found = true;
+                int nextCaptured = captured | Board.bit(blocker);
+                int nextCapturable = opponent & ~nextCaptured;
+                // если с какого-то поля можно бить дальше,
+                // встать можно только на такие поля
+                int continuing = 0;
+                int rest = landings;
+                while (rest != 0) {
+                    int landing = Integer.numberOfTrailingZeros(rest);
+                    rest &= rest - 1;
+                    if (Diagonals.queenCanCapture(landing, occupied,
+                            nextCapturable)) {
+                        continuing |= Board.bit(landing);
+                    }
+                }
+                rest = continuing != 0 ? continuing : landings;
+                while (rest != 0) {
+                    int landing = Integer.numberOfTrailingZeros(rest);
+                    rest &= rest - 1;
+                    path[depth + 1] = landing;
+                    if (continuing != 0) {
+                        captureFrom(landing, true, nextCaptured,
+                                depth + 1, promoted);
+                    } else {
+                        addCapture(landing, nextCaptured,
+                                depth + 1, promoted);
+                    }
+                }
+            }
+        }
+        if (!found && depth > 0) {
+            addCapture(square, captured, depth, promoted);
+        }
+    }
+
+    /**
+     * Ходы с одинаковыми началом, концом и набором побитых фигур
+     * ведут в одну позицию и считаются одним ходом.
+     */
+    private void addCapture(int to, int captured, int depth,
+                            boolean promoted) {
+        long move = Move.of(path[0], to, captured, startQueen, promoted);
+        if (list.indexOf(move) < 0) {
+            list.add(move, path, depth + 1);
+        }
+    }
+}
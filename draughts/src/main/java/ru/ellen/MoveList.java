@@ -0,0 +1,113 @@
+package ru.ellen;
+
+/**
+ * Буфер ходов, который заполняет {@link MoveGenerator}.
+ * Все массивы выделяются один раз, список переиспользуется
+ * между вызовами генератора.
+ */
+public final class MoveList {
+    public static final int MAX_MOVES = 256;
+    /**
+     * Наибольшая длина пути хода: исходное поле и по полю на каждое
+     * взятие (за ход можно побить не больше 12 шашек).
+     */
+    public static final int MAX_PATH = 16;
+
+    private final long[] moves = new long[MAX_MOVES];
+    private final byte[] paths = new byte[MAX_MOVES * MAX_PATH];
+    private final byte[] pathLengths = new byte[MAX_MOVES];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public long get(int index) {
+        return moves[index];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Длина пути хода: число полей, включая исходное и конечное.
+     *
+     * @param index номер хода в списке
+     * @return число полей пути
+     */
+    public int pathLength(int index) {
+        return pathLengths[index];
+    }
+
+    public int path(int index, int step) {
+        return paths[index * MAX_PATH + step];
+    }
+
+    /**
+     * Номер хода в списке.
+     *
+     * @param move ход
+     * @return индекс или -1, если такого хода нет
+     */
+    public int indexOf(long move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Меняет местами два хода вместе с их путями.
+     *
+     * @param i первый индекс
+     * @param j второй индекс
+     */
+    public void swap(int i, int j) {
+        long move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+        byte length = pathLengths[i];
+        pathLengths[i] = pathLengths[j];
+        pathLengths[j] = length;
+        for (int step = 0; step < MAX_PATH; step++) {
+            byte square = paths[i * MAX_PATH + step];
+            paths[i * MAX_PATH + step] = paths[j * MAX_PATH + step];
+            paths[j * MAX_PATH + step] = square;
+        }
+    }
+
+    /**
+     * Запись хода в нотации, которую принимает
+     * {@link Play#processLineOfMoves}: "c3-d4" или "c3:e5:g3".
+     *
+     * @param index номер хода в списке
+     * @return строковое представление хода
+     */
+    public String notation(int index) {
+        StringBuilder builder = new StringBuilder();
+        char separator = Move.isCapture(moves[index]) ? ':' : '-';
+        for (int step = 0; step < pathLengths[index]; step++) {
+            if (step > 0) {
+                builder.append(separator);
+            }
+            int square = path(index, step);
+            builder.append(Board.letter(square)).append(Board.number(square));
+        }
+        return builder.toString();
+    }
+
+    void add(long move, int[] path, int length) {
+        if (size == MAX_MOVES) {
+            throw new IllegalStateException("move list overflow");
+        }
+        moves[size] = move;
+        pathLengths[size] = (byte) length;
+        for (int step = 0; step < length; step++) {
+            paths[size * MAX_PATH + step] = (byte) path[step];
+        }
+        size++;
+    }
+}
@@ -0,0 +1,144 @@
+package ru.ellen;
+
+/**
+ * Разбор записи хода без создания строк.
+ * Ход вида "c3-d4" или "a1:d4:f2:h4" (регистр букв не важен, любой
+ * знак между полями считается разделителем, ':' означает взятие)
+ * записывается в массив int:
+ * <pre>
+ * out[LENGTH]  - число полей n;
+ * out[CAPTURE] - 1, если это взятие, иначе 0;
+ * out[FIRST .. FIRST + n - 1] - поля: откуда, промежуточные, куда.
+ * </pre>
+ * Поле - индекс тёмной клетки {@link Board} либо {@link #WHITE_CELL}
+ * для белой клетки и {@link #OFF_BOARD} для клетки вне доски,
+ * чтобы валидатор мог сообщить о такой ошибке.
+ */
+public final class MoveParser {
+    public static final int LENGTH = 0;
+    public static final int CAPTURE = 1;
+    public static final int FIRST = 2;
+    public static final int BUFFER_SIZE = FIRST + MoveList.MAX_PATH;
+
+    public static final int OFF_BOARD = -1;
+    public static final int WHITE_CELL = -2;
+    /**
+     * Возвращается, если запись хода не разобрать.
+     */
+    public static final int ERROR = -1;
+
+    private static final int BOARD_SIZE = 8;
+
+    private MoveParser() {
+    }
+
+    /**
+     * Разбор хода из части последовательности символов.
+     *
+     * @param text  текст
+     * @param start начало хода (включительно)
+     * @param end   конец хода (не включительно)
+     * @param out   буфер размером не меньше {@link #BUFFER_SIZE}
+     * @return число полей или {@link #ERROR}
+     */
+    public static int parse(CharSequence text, int start, int end,
+                            int[] out) {
+        int count = 0;
+        out[LENGTH] = 0;
+        out[CAPTURE] = 0;
+        int i = start;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (isLetter(c)) {
+                if (i + 1 >= end || count == MoveList.MAX_PATH
+                        || !isDigit(text.charAt(i + 1))) {
+                    return ERROR;
+                }
+                out[FIRST + count++] = cell(c, text.charAt(i + 1));
+                i += 2;
+            } else {
+                if (c == ':') {
+                    out[CAPTURE] = 1;
+                }
+                i++;
+            }
+        }
+        out[LENGTH] = count;
+        return isMove(out) ? count : ERROR;
+    }
+
+    /**
+     * Разбор хода из байтов (ASCII).
+     *
+     * @param bytes буфер
+     * @param start начало хода (включительно)
+     * @param end   конец хода (не включительно)
+     * @param out   буфер размером не меньше {@link #BUFFER_SIZE}
+     * @return число полей или {@link #ERROR}
+     */
+    public static int parse(byte[] bytes, int start, int end, int[] out) {
+        int count = 0;
+        out[LENGTH] = 0;
+        out[CAPTURE] = 0;
+        int i = start;
+        while (i < end) {
+            char c = (char) bytes[i];
+            if (isLetter(c)) {
+                if (i + 1 >= end || count == MoveList.MAX_PATH
+                        || !isDigit((char) bytes[i + 1])) {
+                    return ERROR;
+                }
+                out[FIRST + count++] = cell(c, (char) bytes[i + 1]);
+                i += 2;
+            } else {
+                if (c == ':') {
+                    out[CAPTURE] = 1;
+                }
+                i++;
+            }
+        }
+        out[LENGTH] = count;
+        return isMove(out) ? count : ERROR;
+    }
+
+    public static int parse(CharSequence text, int[] out) {
+        return parse(text, 0, text.length(), out);
+    }
+
+    /**
+     * Есть ли в буфере ход: хотя бы два поля, а больше двух - только
+     * у взятия (тихий ход "c3-d4-e5" не цепочка).
+     *
+     * @param parsed буфер разбора хода
+     * @return годится ли запись
+     */
+    public static boolean isMove(int[] parsed) {
+        int length = parsed[LENGTH];
+        return length == 2 || length > 2 && parsed[CAPTURE] != 0;
+    }
+
+    /**
+     * Код клетки по букве и цифре.
+     * Белые клетки определяются как в {@link MoveValidation}:
+     * сумма "код буквы" + "номер клетки" нечётная.
+     */
+    private static int cell(char letter, char digit) {
+        char lower = Character.toLowerCase(letter);
+        int number = digit - '0';
+        if (lower > 'h' || number < 1 || number > BOARD_SIZE) {
+            return OFF_BOARD;
+        }
+        if ((lower + number) % 2 != 0) {
+            return WHITE_CELL;
+        }
+        return Board.square(lower, number);
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,56 @@
+package ru.ellen;
+
+/**
+ * Результат проверки хода без исключений, упакованный в int:
+ * младший байт - код результата, следующий - поле, на котором
+ * нарушено правило (-1, если поле не определено).
+ * Коды соответствуют исключениям из {@link ru.ellen.exceptions}.
+ */
+public final class MoveStatus {
+    public static final int OK = 0;
+    /**
+     * Целевая клетка занята ({@link ru.ellen.exceptions.BusyCellException}).
+     */
+    public static final int BUSY_CELL = 1;
+    /**
+     * Ход на белую клетку ({@link ru.ellen.exceptions.WhiteCellException}).
+     */
+    public static final int WHITE_CELL = 2;
+    /**
+     * Не побили, хотя могли, или не довели цепочку до конца
+     * ({@link ru.ellen.exceptions.InvalidMoveException}).
+     */
+    public static final int INVALID_MOVE = 3;
+    /**
+     * Нарушена основная логика хода
+     * ({@link ru.ellen.exceptions.LogicException}).
+     */
+    public static final int LOGIC = 4;
+
+    private static final int CODE_MASK = 0xFF;
+    private static final int SQUARE_SHIFT = 8;
+
+    private MoveStatus() {
+    }
+
+    public static int of(int status, int square) {
+        return status | ((square & CODE_MASK) << SQUARE_SHIFT);
+    }
+
+    public static int status(int result) {
+        return result & CODE_MASK;
+    }
+
+    /**
+     * @param result результат проверки
+     * @return поле, на котором нарушено правило, или -1
+     */
+    public static int square(int result) {
+        int square = (byte) (result >>> SQUARE_SHIFT);
+        return square < 0 ? -1 : square;
+    }
+
+    public static boolean isOk(int result) {
+        return status(result) == OK;
+    }
+}
@@ -10,21 +10,64 @@ import java.util.ArrayList;
 
 /**
  * Валидатор хода игрока.
+ * Работает на битовых масках {@link Board}: любая проверка клетки -
+ * одна операция над маской.
  */
 public class MoveValidation {
-    private ArrayList<Configuration> myPositions;
-    private ArrayList<Configuration> otherPositions;
-    private String myMove;
-    private static final int BOARD_SIZE = 8;
-    private static final int MAX_BIG_LETTER = 73;
+    private Board board;
+    private boolean white;
+    private int from;
+    private int to;
+    private boolean capture;
 
 
+    /**
+     * @param myPositions    конфигурации ходящего
+     * @param otherPositions конфигурации противника
+     * @param myMove         ход вида "c3-d4" или "c3:e5"
+     */
     public MoveValidation(ArrayList<Configuration> myPositions,
                           ArrayList<Configuration> otherPositions,
                           String myMove) {
-        this.myPositions = myPositions;
-        this.otherPositions = otherPositions;
-        this.myMove = myMove;
+        this(board(myPositions, otherPositions),
+                Play.isWhite(myPositions, otherPositions), myMove);
+    }
+
+    /**
+     * @param board  текущая доска
+     * @param white  играет ли ходящий белыми
+     * @param myMove ход вида "c3-d4" или "c3:e5"
+     */
+    public MoveValidation(Board board, boolean white, String myMove) {
+        this.board = board;
+        this.white = white;
+        int[] parsed = new int[MoveParser.BUFFER_SIZE];
+        if (MoveParser.parse(myMove, parsed) == MoveParser.ERROR) {
+            this.from = MoveParser.OFF_BOARD;
+            this.to = MoveParser.OFF_BOARD;
+        } else {
+            this.from = parsed[MoveParser.FIRST];
+            this.to = parsed[MoveParser.FIRST + 1];
+        }
+        this.capture = parsed[MoveParser.CAPTURE] != 0;
+    }
+
+    /**
+     * Проверка одного шага, заданного кодами клеток {@link MoveParser}.
+     *
+     * @param board   текущая доска
+     * @param white   играет ли ходящий белыми
+     * @param from    откуда
+     * @param to      куда
+     * @param capture является ли шаг взятием
+     */
+    public MoveValidation(Board board, boolean white,
+                          int from, int to, boolean capture) {
+        this.board = board;
+        this.white = white;
+        this.from = from;
+        this.to = to;
+        this.capture = capture;
     }
 
 
@@ -38,10 +81,7 @@ public class MoveValidation {
      */
     public void checkMove() throws WhiteCellException,
             BusyCellException, InvalidMoveException, LogicException {
-        checkBusy();
-        checkInvalid();
-        checkWhite();
-        checkError();
+        throwIfFailed(validate());
     }
 
     /**
@@ -51,300 +91,239 @@ public class MoveValidation {
      * @throws InvalidMoveException в случае непройденной проверки.
      */
     public void checkLastChainMove() throws InvalidMoveException {
-        if (!isQueen()) {
-            checkAllDirections(myMove.substring(3, 5));
-        } else {
-            checkAllQueenDirections(myMove.substring(3, 5));
+        if (!MoveStatus.isOk(validateLastChainMove())) {
+            throw new InvalidMoveException("invalid move", false);
         }
     }
 
     /**
-     * Проверка того, что на той клетке, кужа ходим пойти,
-     * ещё не стоит другая шашка.
+     * Валидация хода без исключений, в том же порядке проверок,
+     * что и {@link #checkMove()}.
      *
-     * @throws BusyCellException в случае непройденной проверки
+     * @return результат {@link MoveStatus}
      */
-    private void checkBusy() throws BusyCellException {
-        if (!isEmpty(newLetter(), newNumber())) {
-            throw new BusyCellException("busy cell");
-        }
+    public int validate() {
+        return validate(board, white, from, to, capture);
     }
 
     /**
-     * Проверка корректности хода (если могли побить, значит должны бить).
+     * Проверка конца цепочки взятий без исключений.
      *
-     * @throws InvalidMoveException в случае непройденной проверки.
+     * @return {@link MoveStatus#OK} или {@link MoveStatus#INVALID_MOVE}
+     * с полем, с которого можно бить дальше
      */
-    private void checkInvalid() throws InvalidMoveException {
-        if (!myMove.contains(":")) {
-            for (Configuration conf : myPositions) {
-                if (!conf.isQueen()) {
-                    checkAllDirections(String.valueOf(conf.getLetter())
-                            + conf.getNumber());
-                } else {
-                    checkAllQueenDirections(String.valueOf(conf.getLetter())
-                            + conf.getNumber());
-                }
-            }
-        }
+    public int validateLastChainMove() {
+        return validateLastChainMove(board, white, from, to);
     }
 
-
     /**
-     * Проверка того, что не пошли на белую клетку.
-     * Осуществляется за счет того, что сумма "код буквы" +
-     * "номер клетки" для белых клеток нечетная.
+     * Валидация шага без создания объектов - для массовой проверки.
      *
-     * @throws WhiteCellException в случае непройденной проверки.
+     * @param board   текущая доска
+     * @param white   играет ли ходящий белыми
+     * @param from    откуда (код клетки {@link MoveParser})
+     * @param to      куда (код клетки {@link MoveParser})
+     * @param capture является ли шаг взятием
+     * @return результат {@link MoveStatus}
      */
-    private void checkWhite() throws WhiteCellException {
-        if ((newNumber() + (int) newLetter()) % 2 != 0) {
-            throw new WhiteCellException("white cell");
+    public static int validate(Board board, boolean white,
+                               int from, int to, boolean capture) {
+        int result = checkBusy(board, to);
+        if (result == MoveStatus.OK) {
+            result = checkInvalid(board, white, capture);
+        }
+        if (result == MoveStatus.OK) {
+            result = checkWhite(to);
+        }
+        if (result == MoveStatus.OK) {
+            result = checkError(board, white, from, to);
         }
+        return result;
     }
 
     /**
-     * Проверяет общую логику движений:
-     * 1) Мы не можем выйти за пределы доски
-     * 2) Мы не можем ходить, если у нас не осталось шашек.
-     * 3) Мы не можем ходить чужой шашкой
+     * Проверка конца цепочки взятий без создания объектов.
      *
-     * @throws LogicException при нарушении проверки
+     * @param board текущая доска (после последнего шага)
+     * @param white играет ли ходящий белыми
+     * @param from  откуда сделан последний шаг
+     * @param to    куда сделан последний шаг
+     * @return {@link MoveStatus#OK} или {@link MoveStatus#INVALID_MOVE}
      */
-    private void checkError() throws LogicException {
-        if ((newNumber() < 1) || (newNumber() > BOARD_SIZE)
-                || (newLetter() < 'a') || (newLetter() > 'h')) {
-            throw new LogicException("error");
-        }
-        if (myPositions.isEmpty()) {
-            throw new LogicException("error");
+    public static int validateLastChainMove(Board board, boolean white,
+                                            int from, int to) {
+        if (to < 0) {
+            return MoveStatus.OK;
         }
-        for (Configuration conf : otherPositions) {
-            if ((conf.getLetter() == prevLetter())
-                    && conf.getNumber() == prevNumber()) {
-                throw new LogicException("error");
-            }
+        if (!isQueen(board, white, from, to)) {
+            return checkAllDirections(board, white, to);
         }
+        return checkAllQueenDirections(board, white, to);
     }
 
     /**
-     * Проверка, что клетка пустая.
-     *
-     * @param letter буквенный адрес клетки
-     * @param number номер клетки
-     * @return является ли клетка пустой
+     * Доска по спискам конфигураций. Съеденные, но ещё не снятые шашки
+     * отмечаются на доске: бить их второй раз нельзя (турецкий удар).
      */
-    private boolean isEmpty(char letter, int number) {
-        for (Configuration myConf : myPositions) {
-            if (myConf.getLetter() == letter
-                    && myConf.getNumber() == number) {
-                return false;
-            }
-        }
-
-        for (Configuration otherConf : otherPositions) {
-            if (otherConf.getLetter() == letter
-                    && otherConf.getNumber() == number) {
-                return false;
-            }
-        }
-        return true;
+    private static Board board(ArrayList<Configuration> myPositions,
+                               ArrayList<Configuration> otherPositions) {
+        Board board = Board.fromConfigurations(myPositions, otherPositions,
+                Play.isWhite(myPositions, otherPositions));
+        markEaten(board, myPositions);
+        markEaten(board, otherPositions);
+        return board;
     }
 
-    private boolean containsOther(char letter, int number) {
-        for (Configuration otherConf : otherPositions) {
-            if (otherConf.getLetter() == letter
-                    && otherConf.getNumber() == number
-                    && !otherConf.isEaten()) {
-                return true;
+    private static void markEaten(Board board,
+                                  ArrayList<Configuration> configs) {
+        for (Configuration conf : configs) {
+            if (conf.isEaten()) {
+                board.markEaten(Board.square(conf.getLetter(),
+                        conf.getNumber()));
             }
         }
-        return false;
     }
 
-    private boolean containsOtherEaten(char letter, int number) {
-        for (Configuration otherConf : otherPositions) {
-            if (otherConf.getLetter() == letter
-                    && otherConf.getNumber() == number
-                    && otherConf.isEaten()) {
-                return true;
-            }
+    /**
+     * Превращает результат проверки в соответствующее исключение.
+     * Исключения создаются без стека вызовов.
+     *
+     * @param result результат {@link MoveStatus}
+     */
+    static void throwIfFailed(int result) throws WhiteCellException,
+            BusyCellException, InvalidMoveException, LogicException {
+        switch (MoveStatus.status(result)) {
+            case MoveStatus.OK:
+                return;
+            case MoveStatus.BUSY_CELL:
+                throw new BusyCellException("busy cell", false);
+            case MoveStatus.WHITE_CELL:
+                throw new WhiteCellException("white cell", false);
+            case MoveStatus.INVALID_MOVE:
+                throw new InvalidMoveException("invalid move", false);
+            default:
+                throw new LogicException("error", false);
         }
-        return false;
     }
 
-    private boolean containsMine(char letter, int number) {
-        for (Configuration myConf : myPositions) {
-            if (myConf.getLetter() == letter && myConf.getNumber() == number) {
-                return true;
-            }
+    /**
+     * Проверка того, что на той клетке, куда хотим пойти,
+     * ещё не стоит другая шашка.
+     */
+    private static int checkBusy(Board board, int to) {
+        if (!board.isEmpty(to)) {
+            return MoveStatus.of(MoveStatus.BUSY_CELL, to);
         }
-        return false;
+        return MoveStatus.OK;
     }
 
-    private void checkAllDirections(String myPos) throws InvalidMoveException {
-        char myLetter = myPos.charAt(0);
-        int myNumber = Integer.valueOf(myPos.substring(1, 2));
-        if (myLetter != 'h' && myLetter != 'g') {
-            if (myNumber <= 6) {
-                if (containsOther((char) (myLetter + 1), myNumber + 1)
-                        && isEmpty((char) (myLetter + 2), myNumber + 2)) {
-                    throw new InvalidMoveException("invalid move");
-                }
-            }
-        }
-
-        if (myLetter != 'h' && myLetter != 'g') {
-            if (myNumber >= 3) {
-                if (containsOther((char) (myLetter + 1), myNumber - 1)
-                        && isEmpty((char) (myLetter + 2), myNumber - 2)) {
-                    throw new InvalidMoveException("invalid move");
-                }
-            }
-        }
-
-        if (myLetter != 'a' && myLetter != 'b') {
-            if (myNumber <= 6) {
-                if (containsOther((char) (myLetter - 1), myNumber + 1)
-                        && isEmpty((char) (myLetter - 2), myNumber + 2)) {
-                    throw new InvalidMoveException("invalid move");
+    /**
+     * Проверка корректности хода (если могли побить, значит должны бить).
+     * В результате - поле шашки, которая может бить.
+     */
+    private static int checkInvalid(Board board, boolean white,
+                                    boolean capture) {
+        if (!capture) {
+            int men = board.men(white);
+            while (men != 0) {
+                int square = Integer.numberOfTrailingZeros(men);
+                men &= men - 1;
+                int result = checkAllDirections(board, white, square);
+                if (result != MoveStatus.OK) {
+                    return result;
                 }
             }
-        }
-
-        if (myLetter != 'a' && myLetter != 'b') {
-            if (myNumber >= 3) {
-                if (containsOther((char) (myLetter - 1), myNumber - 1)
-                        && isEmpty((char) (myLetter - 2), myNumber - 2)) {
-                    throw new InvalidMoveException("invalid move");
+            int queens = board.queens(white);
+            while (queens != 0) {
+                int square = Integer.numberOfTrailingZeros(queens);
+                queens &= queens - 1;
+                int result = checkAllQueenDirections(board, white, square);
+                if (result != MoveStatus.OK) {
+                    return result;
                 }
             }
         }
+        return MoveStatus.OK;
     }
 
-    private void checkAllQueenDirections(String myPos)
-            throws InvalidMoveException {
-        char myLetter = myPos.charAt(0);
-        int myNumber = Integer.valueOf(myPos.substring(1, 2));
-        if (myLetter != 'h' && myLetter != 'g') {
-            if (myNumber <= 6) {
-                int num = -1;
-                for (int i = 1; i < BOARD_SIZE - myNumber; i++) {
-                    if (containsOther((char) (myLetter + i), myNumber + i)) {
-                        num = i;
-                    }
-                    // через свою перепрыгнуть не можем,
-                    // как и через уже съеденную чужую
-                    if ((containsMine((char) (myLetter + i),
-                            myNumber + i))
-                            || (containsOtherEaten((char) (myLetter + i),
-                            myNumber + i))) {
-                        break;
-                    }
-                }
 
-                // на этом направлении есть чужая шашка
-                if (num > 0) {
-                    for (int i = num; i < BOARD_SIZE - myNumber + num; i++) {
-                        if (isEmpty((char) (myLetter + i), myNumber + i)) {
-                            throw new InvalidMoveException("invalid move");
-                        }
-                    }
-                }
-            }
+    /**
+     * Проверка того, что не пошли на белую клетку
+     * (белые клетки отмечает {@link MoveParser}, поля у них нет).
+     */
+    private static int checkWhite(int to) {
+        if (to == MoveParser.WHITE_CELL) {
+            return MoveStatus.of(MoveStatus.WHITE_CELL, -1);
         }
+        return MoveStatus.OK;
+    }
 
-        if (myLetter != 'h' && myLetter != 'g') {
-            if (myNumber >= 3) {
-                int num = -1;
-                for (int i = 1; i < myNumber; i++) {
-                    if (containsOther((char) (myLetter + i),
-                            myNumber - i)) {
-                        num = i;
-                    }
-                    if ((containsMine((char) (myLetter + i), myNumber - i))
-                            || containsOtherEaten((char) (myLetter + i),
-                            myNumber - i)) {
-                        break;
-                    }
-                }
-                // на этом направлении есть чужая шашка
-                if (num > 0) {
-                    for (int i = num; i < BOARD_SIZE - myNumber + num; i++) {
-                        if (isEmpty((char) (myLetter + i), myNumber - i)) {
-                            throw new InvalidMoveException("invalid move");
-                        }
-                    }
-                }
-            }
+    /**
+     * Проверяет общую логику движений:
+     * 1) Мы не можем выйти за пределы доски
+     * 2) Мы не можем ходить, если у нас не осталось шашек.
+     * 3) Мы не можем ходить чужой шашкой
+     */
+    private static int checkError(Board board, boolean white,
+                                  int from, int to) {
+        if (to == MoveParser.OFF_BOARD) {
+            return MoveStatus.of(MoveStatus.LOGIC, -1);
         }
-
-        if (myLetter != 'a' && myLetter != 'b') {
-            if (myNumber <= 6) {
-                int num = -1;
-                for (int i = 1; i < BOARD_SIZE - myNumber; i++) {
-                    if (containsOther((char) (myLetter - i), myNumber + i)) {
-                        num = i;
-                    }
-                    if ((containsMine((char) (myLetter - i), myNumber + i))
-                            || (containsOtherEaten((char) (myLetter - i),
-                            myNumber + i))) {
-                        break;
-                    }
-                }
-                // на этом направлении есть чужая шашка
-                if (num > 0) {
-                    for (int i = num; i < BOARD_SIZE - myNumber + num; i++) {
-                        if (isEmpty((char) (myLetter - i), myNumber + i)) {
-                            throw new InvalidMoveException("invalid move");
-                        }
-                    }
-                }
-            }
+        if (board.pieces(white) == 0) {
+            return MoveStatus.of(MoveStatus.LOGIC, from);
         }
-
-        if (myLetter != 'a' && myLetter != 'b') {
-            if (myNumber >= 3) {
-                int num = -1;
-                for (int i = 1; i < myNumber; i++) {
-                    if (containsOther((char) (myLetter - i), myNumber - i)) {
-                        num = i;
-                    }
-                    if ((containsMine((char) (myLetter - i), myNumber - i))
-                            || (containsMine((char) (myLetter - i),
-                            myNumber - i))) {
-                        break;
-                    }
-                }
-                // на этом направлении есть чужая шашка
-                if (num > 0) {
-                    for (int i = num; i < BOARD_SIZE - myNumber + num; i++) {
-                        if (isEmpty((char) (myLetter - i), myNumber - i)) {
-                            throw new InvalidMoveException("invalid move");
-                        }
-                    }
-                }
-            }
+        if (from < 0 || (board.pieces(white) & Board.bit(from)) == 0) {
+            return MoveStatus.of(MoveStatus.LOGIC, from);
         }
+        return MoveStatus.OK;
     }
 
-    private boolean isQueen() {
-        return myMove.charAt(0) <= MAX_BIG_LETTER;
-    }
-
-    private char newLetter() {
-        return myMove.charAt(3);
+    /**
+     * Клетки, на которых стоят шашки противника, ещё не съеденные
+     * в текущем ходе.
+     *
+     * @return маска шашек противника
+     */
+    private static int others(Board board, boolean white) {
+        return board.pieces(!white) & ~board.eaten();
     }
 
-    private int newNumber() {
-        return Integer.valueOf(myMove.substring(4, 5));
+    private static int checkAllDirections(Board board, boolean white,
+                                          int myPos) {
+        if (Diagonals.manCanCapture(myPos, board.occupied(),
+                others(board, white))) {
+            return MoveStatus.of(MoveStatus.INVALID_MOVE, myPos);
+        }
+        return MoveStatus.OK;
     }
 
-    private char prevLetter() {
-        return myMove.charAt(0);
+    /**
+     * Проверка взятия дамкой по таблицам лучей {@link Diagonals}:
+     * через свою шашку перепрыгнуть не можем,
+     * как и через уже съеденную чужую.
+     *
+     * @param myPos поле дамки
+     * @return {@link MoveStatus#INVALID_MOVE}, если дамка может побить
+     */
+    private static int checkAllQueenDirections(Board board, boolean white,
+                                               int myPos) {
+        if (Diagonals.queenCanCapture(myPos, board.occupied(),
+                others(board, white))) {
+            return MoveStatus.of(MoveStatus.INVALID_MOVE, myPos);
+        }
+        return MoveStatus.OK;
     }
 
-    private int prevNumber() {
-        return Integer.valueOf(myMove.substring(1, 2));
+    /**
+     * Ходит ли дамка: смотрим на клетку назначения (после хода)
+     * либо на исходную (до хода).
+     *
+     * @return является ли ходящая шашка дамкой
+     */
+    private static boolean isQueen(Board board, boolean white,
+                                   int from, int to) {
+        int queens = board.queens(white);
+        return (to >= 0 && (queens & Board.bit(to)) != 0)
+                || (from >= 0 && (queens & Board.bit(from)) != 0);
     }
 }
@@ -0,0 +1,191 @@
+package ru.ellen;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Подсчёт листьев дерева ходов до заданной глубины (perft).
+ * Служит проверкой генератора ходов и мерой его скорости.
+ * <p>
+ * Запуск: {@code Perft <глубина> [count|divide|parallel] [start|stdin]}.
+ * Для stdin позиция читается как в {@link Play}: строка белых,
+ * строка чёрных и необязательная третья строка "white" или "black" -
+ * чей ход (по умолчанию белых).
+ */
+public final class Perft {
+    private static final int MAX_DEPTH = 64;
+
+    private final MoveGenerator generator = new MoveGenerator();
+    private final MoveList[] lists = new MoveList[MAX_DEPTH];
+    private final Board board = new Board();
+
+    public Perft() {
+        for (int i = 0; i < MAX_DEPTH; i++) {
+            lists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Число листьев на глубине depth.
+     *
+     * @param board доска (не меняется)
+     * @param white ходят ли белые
+     * @param depth глубина
+     * @return число листьев
+     */
+    public long perft(Board board, boolean white, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        this.board.copyFrom(board);
+        return perft(0, white, depth);
+    }
+
+    private long perft(int ply, boolean white, int depth) {
+        MoveList list = lists[ply];
+        int count = generator.generate(board, white, list);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(list.get(i));
+            nodes += perft(ply + 1, !white, depth - 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Число листьев отдельно для каждого хода из корня.
+     *
+     * @param board доска
+     * @param white ходят ли белые
+     * @param depth глубина (не меньше 1)
+     * @param out   куда печатать строки "ход число"
+     * @return общее число листьев
+     */
+    public long divide(Board board, boolean white, int depth,
+                       PrintStream out) {
+        MoveList root = new MoveList();
+        generator.generate(board, white, root);
+        long total = 0;
+        Board next = new Board();
+        for (int i = 0; i < root.size(); i++) {
+            next.copyFrom(board);
+            next.apply(root.get(i));
+            long nodes = perft(next, !white, depth - 1);
+            out.println(root.notation(i) + " " + nodes);
+            total += nodes;
+        }
+        return total;
+    }
+
+    /**
+     * Параллельный perft: ходы из корня раздаются задачам fork-join,
+     * у каждой задачи свой генератор и свои буферы.
+     *
+     * @param board доска
+     * @param white ходят ли белые
+     * @param depth глубина (не меньше 1)
+     * @param pool  пул потоков
+     * @return число листьев
+     */
+    public static long parallel(Board board, boolean white, int depth,
+                                ForkJoinPool pool) {
+        return pool.invoke(new RootTask(board, white, depth));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("usage: Perft <depth> [count|divide|parallel]"
+                    + " [start|stdin]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        String mode = args.length > 1 ? args[1] : "count";
+        Board board = Board.initial();
+        boolean white = true;
+        if (args.length > 2 && args[2].equals("stdin")) {
+            BufferedReader reader =
+                    new BufferedReader(new InputStreamReader(System.in));
+            board = Board.fromText(reader.readLine(), reader.readLine());
+            String side = reader.readLine();
+            white = side == null || !side.trim().equals("black");
+        }
+
+        long start = System.nanoTime();
+        long nodes;
+        if (mode.equals("divide")) {
+            nodes = new Perft().divide(board, white, depth, System.out);
+        } else if (mode.equals("parallel")) {
+            nodes = parallel(board, white, depth, ForkJoinPool.commonPool());
+        } else {
+            nodes = new Perft().perft(board, white, depth);
+        }
+        long elapsed = Math.max(System.nanoTime() - start, 1);
+        System.out.println("depth " + depth + ": " + nodes + " nodes, "
+                + elapsed / 1000000 + " ms, "
+                + nodes * 1000000000L / elapsed + " nps");
+    }
+
+    private static final class RootTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        private final Board board;
+        private final boolean white;
+        private final int depth;
+
+        RootTask(Board board, boolean white, int depth) {
+            this.board = board;
+            this.white = white;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            MoveList root = new MoveList();
+            new MoveGenerator().generate(board, white, root);
+            if (depth == 1) {
+                return (long) root.size();
+            }
+            List<ChildTask> tasks = new ArrayList<>();
+            for (int i = 0; i < root.size(); i++) {
+                Board next = new Board();
+                next.copyFrom(board);
+                next.apply(root.get(i));
+                ChildTask task = new ChildTask(next, !white, depth - 1);
+                task.fork();
+                tasks.add(task);
+            }
+            long nodes = 0;
+            for (ChildTask task : tasks) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+
+    private static final class ChildTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        private final Board board;
+        private final boolean white;
+        private final int depth;
+
+        ChildTask(Board board, boolean white, int depth) {
+            this.board = board;
+            this.white = white;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            return new Perft().perft(board, white, depth);
+        }
+    }
+}
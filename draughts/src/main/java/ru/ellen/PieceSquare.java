@@ -0,0 +1,192 @@
+package ru.ellen;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+
+/**
+ * Таблицы "фигура-поле" для оценки позиции: по числу на каждую пару
+ * (вид фигуры, поле), виды - как в {@link Zobrist}. Число складывается
+ * из материала и позиционных надбавок:
+ * <ul>
+ * <li>простой шашке - за каждую пройденную горизонталь, за центр
+ * (c5, d4, e5, f4) и за свою последнюю горизонталь, которая не даёт
+ * противнику пройти в дамки;</li>
+ * <li>дамке - за центр.</li>
+ * </ul>
+ * Числа чёрных фигур - те же, что у белых на повёрнутой доске, со
+ * знаком минус. Оценка позиции - сумма чисел всех фигур с точки
+ * зрения белых; {@link Board} поддерживает её при каждом изменении,
+ * как и ключ Зобриста.
+ * <p>
+ * Веса слагаемых читаются при запуске из ресурса {@link #RESOURCE}
+ * (его пишет {@link ru.ellen.tuning.TexelTuner}); если ресурса или
+ * веса в нём нет, берётся значение по умолчанию.
+ */
+public final class PieceSquare {
+    public static final String RESOURCE = "piece-square.properties";
+    /**
+     * Номера слагаемых в массиве весов и в {@link #features}.
+     */
+    public static final int MAN_TERM = 0;
+    public static final int QUEEN_TERM = 1;
+    public static final int ADVANCE_TERM = 2;
+    public static final int CENTRE_TERM = 3;
+    public static final int GUARD_TERM = 4;
+    public static final int TERMS = 5;
+    private static final String[] NAMES =
+            {"man", "queen", "advance", "centre", "guard"};
+    private static final int[] DEFAULTS = {100, 300, 3, 5, 6};
+
+    private static final int[] WEIGHTS = load();
+    public static final int MAN = WEIGHTS[MAN_TERM];
+    public static final int QUEEN = WEIGHTS[QUEEN_TERM];
+    /**
+     * Надбавка за каждую пройденную простой шашкой горизонталь.
+     */
+    public static final int ADVANCE = WEIGHTS[ADVANCE_TERM];
+    public static final int CENTRE = WEIGHTS[CENTRE_TERM];
+    /**
+     * Надбавка простой шашке на своей последней горизонтали.
+     */
+    public static final int GUARD = WEIGHTS[GUARD_TERM];
+
+    private static final int CENTRE_SQUARES = Board.bit(Board.square('c', 5))
+            | Board.bit(Board.square('d', 4)) | Board.bit(Board.square('e', 5))
+            | Board.bit(Board.square('f', 4));
+    private static final int WHITE_BACK_ROW = 0x0000000F;
+    private static final int BLACK_BACK_ROW = 0xF0000000;
+    private static final int[][] VALUES =
+            new int[Zobrist.KINDS][Board.SQUARES];
+
+    static {
+        for (int square = 0; square < Board.SQUARES; square++) {
+            // горизонталей пройдено белой шашкой на этом поле
+            int advance = Board.number(square) - 1;
+            boolean centre = (CENTRE_SQUARES & Board.bit(square)) != 0;
+            int man = MAN + advance * ADVANCE + (centre ? CENTRE : 0)
+                    + (advance == 0 ? GUARD : 0);
+            int queen = QUEEN + (centre ? CENTRE : 0);
+            int mirror = Board.SQUARES - 1 - square;
+            VALUES[Zobrist.WHITE_MAN][square] = man;
+            VALUES[Zobrist.WHITE_QUEEN][square] = queen;
+            VALUES[Zobrist.BLACK_MAN][mirror] = -man;
+            VALUES[Zobrist.BLACK_QUEEN][mirror] = -queen;
+        }
+    }
+
+    private PieceSquare() {
+    }
+
+    private static int[] load() {
+        try (InputStream in = PieceSquare.class.getResourceAsStream(RESOURCE)) {
+            return in == null ? DEFAULTS.clone() : load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Веса из файла вида "man=100"; недостающие - по умолчанию.
+     *
+     * @param in содержимое файла весов
+     * @return веса по номерам слагаемых
+     */
+    public static int[] load(InputStream in) throws IOException {
+        Properties properties = new Properties();
+        properties.load(in);
+        int[] weights = DEFAULTS.clone();
+        for (int term = 0; term < TERMS; term++) {
+            String value = properties.getProperty(NAMES[term]);
+            if (value != null) {
+                weights[term] = Integer.parseInt(value.trim());
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * @param term номер слагаемого
+     * @return имя веса в файле
+     */
+    public static String name(int term) {
+        return NAMES[term];
+    }
+
+    /**
+     * @return веса, с которыми построены таблицы
+     */
+    public static int[] weights() {
+        return WEIGHTS.clone();
+    }
+
+    /**
+     * @param kind   вид фигуры ({@link Zobrist#WHITE_MAN} и т.д.)
+     * @param square поле
+     * @return вклад фигуры в оценку с точки зрения белых
+     */
+    public static int value(int kind, int square) {
+        return VALUES[kind][square];
+    }
+
+    /**
+     * Сумма чисел всех фигур одного вида из маски.
+     *
+     * @param kind вид фигуры
+     * @param mask маска полей
+     * @return сумма
+     */
+    public static int values(int kind, int mask) {
+        int score = 0;
+        while (mask != 0) {
+            score += VALUES[kind][Integer.numberOfTrailingZeros(mask)];
+            mask &= mask - 1;
+        }
+        return score;
+    }
+
+    /**
+     * Оценка, посчитанная заново по всей доске.
+     *
+     * @param board доска
+     * @return оценка с точки зрения белых
+     */
+    public static int compute(Board board) {
+        return values(Zobrist.WHITE_MAN, board.men(true))
+                + values(Zobrist.WHITE_QUEEN, board.queens(true))
+                + values(Zobrist.BLACK_MAN, board.men(false))
+                + values(Zobrist.BLACK_QUEEN, board.queens(false));
+    }
+
+    /**
+     * Слагаемые оценки без весов: разность белых и чёрных по каждому.
+     * Оценка линейна - это сумма произведений слагаемых на веса.
+     *
+     * @param whiteMen    белые простые
+     * @param whiteQueens белые дамки
+     * @param blackMen    чёрные простые
+     * @param blackQueens чёрные дамки
+     * @param out         массив не короче {@link #TERMS}
+     */
+    public static void features(int whiteMen, int whiteQueens, int blackMen,
+                                int blackQueens, int[] out) {
+        out[MAN_TERM] = Integer.bitCount(whiteMen)
+                - Integer.bitCount(blackMen);
+        out[QUEEN_TERM] = Integer.bitCount(whiteQueens)
+                - Integer.bitCount(blackQueens);
+        int advance = 0;
+        for (int mask = whiteMen; mask != 0; mask &= mask - 1) {
+            advance += Integer.numberOfTrailingZeros(mask) / 4;
+        }
+        for (int mask = blackMen; mask != 0; mask &= mask - 1) {
+            advance -= 7 - Integer.numberOfTrailingZeros(mask) / 4;
+        }
+        out[ADVANCE_TERM] = advance;
+        out[CENTRE_TERM] = Integer.bitCount(
+                (whiteMen | whiteQueens) & CENTRE_SQUARES)
+                - Integer.bitCount((blackMen | blackQueens) & CENTRE_SQUARES);
+        out[GUARD_TERM] = Integer.bitCount(whiteMen & WHITE_BACK_ROW)
+                - Integer.bitCount(blackMen & BLACK_BACK_ROW);
+    }
+}
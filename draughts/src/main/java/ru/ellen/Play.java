@@ -8,9 +8,8 @@ import ru.ellen.exceptions.WhiteCellException;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.PrintStream;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.StringTokenizer;
 
 /**
  * Основной класс игры.
@@ -34,43 +33,34 @@ public class Play {
         String whitePositions = reader.readLine();
         String blackPositions = reader.readLine();
 
-        StringTokenizer wToken = new StringTokenizer(whitePositions, " ");
-        StringTokenizer bToken = new StringTokenizer(blackPositions, " ");
-
-        ArrayList<Configuration> whiteConfigurations = new ArrayList<>();
-        ArrayList<Configuration> blackConfigurations = new ArrayList<>();
-
-        while (wToken.hasMoreTokens()) {
-            Configuration conf = new Configuration(wToken.nextToken(), true);
-            whiteConfigurations.add(conf);
-        }
-
-        while (bToken.hasMoreTokens()) {
-            Configuration conf = new Configuration(bToken.nextToken(), false);
-            blackConfigurations.add(conf);
-        }
+        Board board = Board.fromText(whitePositions, blackPositions);
 
+        int[] parsed = new int[MoveParser.BUFFER_SIZE];
         String curMoves;
         while ((curMoves = reader.readLine()) != null) {
             if (curMoves.length() <= 1) {
                 break;
             }
-            StringTokenizer strTokenizer = new StringTokenizer(curMoves, " ");
-            String whiteMove = strTokenizer.nextToken();
-            String blackMove = strTokenizer.nextToken();
-            processLineOfMoves(whiteConfigurations,
-                    blackConfigurations, whiteMove.toLowerCase());
-            processLineOfMoves(blackConfigurations,
-                    whiteConfigurations, blackMove.toLowerCase());
+            // два хода через пробел разбираются прямо из строки
+            int whiteStart = skipSpaces(curMoves, 0);
+            int whiteEnd = skipMove(curMoves, whiteStart);
+            int blackStart = skipSpaces(curMoves, whiteEnd);
+            int blackEnd = skipMove(curMoves, blackStart);
+            MoveParser.parse(curMoves, whiteStart, whiteEnd, parsed);
+            processLineOfMoves(board, true, parsed);
+            MoveParser.parse(curMoves, blackStart, blackEnd, parsed);
+            processLineOfMoves(board, false, parsed);
         }
 
-        printResult(whiteConfigurations);
-        printResult(blackConfigurations);
+        printResult(board, true, System.out);
+        printResult(board, false, System.out);
 
     }
 
     /**
      * Обработка цепочки шагов одного игрока (в течение одного его хода).
+     * Списки переводятся в {@link Board}, после хода перезаписываются.
+     * Эталонная реализация на списках - {@link ListPlay}.
      *
      * @param myConfigs    конфигурации играющего в данный момент
      * @param otherConfigs конфигурации противника
@@ -85,163 +75,187 @@ public class Play {
                                           String myMoves) throws
             WhiteCellException, BusyCellException, InvalidMoveException,
             LogicException {
-        if (!myMoves.contains(":")) {
+        boolean white = isWhite(myConfigs, otherConfigs);
+        Board board = Board.fromConfigurations(myConfigs, otherConfigs, white);
+        processLineOfMoves(board, white, myMoves);
+        board.toConfigurations(white, myConfigs);
+        board.toConfigurations(!white, otherConfigs);
+    }
+
+    /**
+     * Обработка цепочки шагов одного игрока на битовой доске.
+     * Удобный путь для одиночных ходов: на каждый вызов выделяется
+     * буфер разбора. Кто разбирает много ходов, держит свой буфер
+     * {@link MoveParser#BUFFER_SIZE} и вызывает
+     * {@link #processLineOfMoves(Board, boolean, int[])} или
+     * {@link #applyLineOfMoves(Board, boolean, int[])}.
+     *
+     * @param board   текущая доска
+     * @param white   ходят ли белые
+     * @param myMoves строковое представление цепочки ходов
+     * @throws WhiteCellException   если игрок хочет пойти на белую клетку
+     * @throws BusyCellException    если игрок хочет пойти на уже занятую клетку
+     * @throws InvalidMoveException если игрок делает невалидный ход
+     * @throws LogicException       если нарушает основную логику игры
+     */
+    public static void processLineOfMoves(Board board, boolean white,
+                                          CharSequence myMoves) throws
+            WhiteCellException, BusyCellException, InvalidMoveException,
+            LogicException {
+        int[] parsed = new int[MoveParser.BUFFER_SIZE];
+        MoveParser.parse(myMoves, parsed);
+        processLineOfMoves(board, white, parsed);
+    }
+
+    /**
+     * Обработка цепочки шагов, уже разобранной {@link MoveParser}.
+     *
+     * @param board  текущая доска
+     * @param white  ходят ли белые
+     * @param parsed буфер разбора хода
+     * @throws WhiteCellException   если игрок хочет пойти на белую клетку
+     * @throws BusyCellException    если игрок хочет пойти на уже занятую клетку
+     * @throws InvalidMoveException если игрок делает невалидный ход
+     * @throws LogicException       если нарушает основную логику игры
+     */
+    public static void processLineOfMoves(Board board, boolean white,
+                                          int[] parsed) throws
+            WhiteCellException, BusyCellException, InvalidMoveException,
+            LogicException {
+        MoveValidation.throwIfFailed(applyLineOfMoves(board, white, parsed));
+    }
+
+    /**
+     * Обработка цепочки шагов без исключений - для массовой проверки.
+     * При ошибке доска остаётся в том состоянии, в котором её застала
+     * проверка (как и при исключении).
+     *
+     * @param board  текущая доска
+     * @param white  ходят ли белые
+     * @param parsed буфер разбора хода
+     * @return результат {@link MoveStatus}
+     */
+    public static int applyLineOfMoves(Board board, boolean white,
+                                       int[] parsed) {
+        int length = parsed[MoveParser.LENGTH];
+        if (!MoveParser.isMove(parsed)) {
+            return MoveStatus.of(MoveStatus.LOGIC, -1);
+        }
+        if (parsed[MoveParser.CAPTURE] == 0) {
             // обычный ход без съедения шашки противника
-            StringTokenizer mover = new StringTokenizer(myMoves, "-");
-            String prevMove = mover.nextToken();
-            String newMove = mover.nextToken();
-            processOneMove(myConfigs, otherConfigs, prevMove, newMove, false);
-        } else {
-            String[] moves = myMoves.split(":");
-            for (int i = 0; i < moves.length - 1; i++) {
-                processOneMove(myConfigs, otherConfigs,
-                        moves[i], moves[i + 1], true);
-                if (i == moves.length - 2) {
-                    String currentMoveProcess = moves[i].substring(0, 2)
-                            + ":" + moves[i + 1].substring(0, 2);
-                    MoveValidation lastValidation = new MoveValidation(
-                            myConfigs, otherConfigs,
-                            currentMoveProcess);
-                    lastValidation.checkLastChainMove();
-                }
+            return processOneMove(board, white, parsed[MoveParser.FIRST],
+                    parsed[MoveParser.FIRST + 1], false);
+        }
+        for (int i = 0; i < length - 1; i++) {
+            int from = parsed[MoveParser.FIRST + i];
+            int to = parsed[MoveParser.FIRST + i + 1];
+            int result = processOneMove(board, white, from, to, true);
+            if (result == MoveStatus.OK && i == length - 2) {
+                result = MoveValidation.validateLastChainMove(
+                        board, white, from, to);
             }
-            // убираем с доски все съеденные шашки
-            ArrayList<Configuration> allEaten = new ArrayList<>();
-            for (Configuration otherConf : otherConfigs) {
-                if (otherConf.isEaten()) {
-                    allEaten.add(otherConf);
-                }
+            if (result != MoveStatus.OK) {
+                return result;
             }
-            otherConfigs.removeAll(allEaten);
         }
+        // убираем с доски все съеденные шашки
+        board.removeEaten();
+        return MoveStatus.OK;
     }
 
-    private static void processOneMove(ArrayList<Configuration> myConfigs,
-                                       ArrayList<Configuration> otherConfigs,
-                                       String myPrevPos, String myNewPos,
-                                       boolean eat)
-            throws WhiteCellException, BusyCellException, InvalidMoveException,
-            LogicException {
-        String myMoveCurrent;
-        String prevPos = myPrevPos.substring(0, 2);
-        String newPos = myNewPos.substring(0, 2);
-        if (eat) {
-            myMoveCurrent = prevPos + ":" + newPos;
-        } else {
-            myMoveCurrent = prevPos + "-" + newPos;
+    private static int processOneMove(Board board, boolean white,
+                                      int from, int to, boolean eat) {
+        int result = MoveValidation.validate(board, white, from, to, eat);
+        if (result != MoveStatus.OK) {
+            return result;
         }
-        MoveValidation moveValidation = new MoveValidation(
-                myConfigs, otherConfigs, myMoveCurrent);
-        moveValidation.checkMove();
-        boolean isQueen = false;
-        int myPrevNum = Integer.valueOf(myPrevPos.substring(1, 2));
+        boolean wasQueen = (board.queens(white) & Board.bit(from)) != 0;
         // всегда меняем нашу конфигурацию
-        for (Configuration myConf : myConfigs) {
-            if (myConf.getLetter() == myPrevPos.charAt(0)
-                    && myConf.getNumber() == myPrevNum) {
-                myConf.setLetter(myNewPos.charAt(0));
-                myConf.setNumber(Integer.valueOf(myNewPos.substring(1, 2)));
-                becomeQueen(myConf);
-                isQueen = myConf.isQueen();
-            }
-        }
+        board.move(from, to);
+        board.becomeQueen(to);
 
         // конфигурацию другого меняем только если съели шашку
         if (eat) {
-            String eaten = getEatenPos(otherConfigs,
-                    myPrevPos, myNewPos, isQueen);
-            for (Configuration otherConfiguration : otherConfigs) {
-                if (otherConfiguration.getNumber()
-                        == Integer.valueOf(eaten.substring(1, 2))
-                        && otherConfiguration.getLetter() == eaten.charAt(0)) {
-                    otherConfiguration.setEaten(true);
-                    break;
-                }
+            int eaten = getEatenPos(board, white, from, to, wasQueen);
+            if (eaten >= 0) {
+                board.markEaten(eaten);
             }
         }
+        return MoveStatus.OK;
     }
 
     /**
      * Поиск позиции съеденной шашки
      *
-     * @param otherPositions позиции противника
-     * @param myPrevPos      предыдущая позиция шашки играющего
-     * @param myNewPos       новая позиция шашки играющего
-     * @param isQueen        является ли шашка дамкой
-     * @return строковое представление клетки на доске
+     * @param board   текущая доска
+     * @param white   ходят ли белые
+     * @param from    предыдущая позиция шашки играющего
+     * @param to      новая позиция шашки играющего
+     * @param isQueen является ли шашка дамкой
+     * @return индекс поля съеденной шашки или -1
      */
-    private static String getEatenPos(ArrayList<Configuration> otherPositions,
-                                      String myPrevPos, String myNewPos,
-                                      boolean isQueen) {
+    private static int getEatenPos(Board board, boolean white,
+                                   int from, int to, boolean isQueen) {
+        int others = board.pieces(!white) & ~board.eaten();
         // если это не дамка
         if (!isQueen) {
-            char letterEaten = (char) ((myNewPos.charAt(0)
-                    + myPrevPos.charAt(0)) / 2);
-            int numberEaten = (Integer.valueOf(myNewPos.substring(1, 2))
-                    + Integer.valueOf(myPrevPos.substring(1, 2))) / 2;
-            return String.valueOf(letterEaten) + numberEaten;
+            int eaten = Board.square(
+                    (char) ((Board.letter(from) + Board.letter(to)) / 2),
+                    (Board.number(from) + Board.number(to)) / 2);
+            return eaten >= 0 && (others & Board.bit(eaten)) != 0
+                    ? eaten : -1;
         }
 
         // если это дамка
-        ArrayList<String> positionsBetween = new ArrayList<>();
-        int newNum = Integer.valueOf(myNewPos.substring(1, 2));
-        int prevNum = Integer.valueOf(myPrevPos.substring(1, 2));
-        int prevLetter = myPrevPos.charAt(0);
-        int newLetter = myNewPos.charAt(0);
-        int numSign = (int) Math.signum(newNum - prevNum);
-        int distance = Math.abs(newNum - prevNum);
-
-        for (int num = 1; num < distance; num++) {
-            char letter = (char) (((newLetter - prevLetter)
-                    / distance) * num + prevLetter);
-            positionsBetween.add(String.valueOf(letter)
-                    + (num * numSign + prevNum));
-        }
-        for (Configuration otherPosition : otherPositions) {
-            String otherPos = String.valueOf(otherPosition.getLetter())
-                    + otherPosition.getNumber();
-            if (positionsBetween.contains(otherPos)) {
-                return otherPos;
-            }
+        int dir = Diagonals.direction(from, to);
+        if (dir < 0) {
+            return -1;
         }
-        return null;
+        int blocker = Diagonals.firstBlocker(from, dir, board.occupied());
+        return blocker >= 0 && (others & Board.bit(blocker)) != 0
+                && (Diagonals.ray(dir, blocker) & Board.bit(to)) != 0
+                ? blocker : -1;
     }
 
-    private static void printResult(ArrayList<Configuration> configurations) {
-        if (configurations.size() == 0) {
-            System.out.println();
-            return;
-        }
-        String[] res = new String[configurations.size()];
-        for (int j = 0; j < configurations.size(); j++) {
-            Configuration curConf = configurations.get(j);
-            char letter = curConf.getLetter();
-            if (!curConf.isQueen()) {
-                res[j] = String.valueOf(letter) + curConf.getNumber();
-            } else {
-                res[j] = String.valueOf(Character.toUpperCase(letter))
-                        + curConf.getNumber();
-            }
-        }
-        Arrays.sort(res);
-        for (int i = 0; i < res.length - 1; i++) {
-            System.out.print(res[i] + " ");
+    /**
+     * Вывод фигур одного цвета: отсортированы, дамки заглавными буквами.
+     *
+     * @param board доска
+     * @param white цвет фигур
+     * @param out   поток вывода
+     */
+    public static void printResult(Board board, boolean white,
+                                   PrintStream out) {
+        out.println(board.toText(white));
+    }
+
+    private static int skipSpaces(CharSequence line, int index) {
+        while (index < line.length() && line.charAt(index) == ' ') {
+            index++;
         }
-        System.out.println(res[res.length - 1]);
+        return index;
     }
 
-    private static void becomeQueen(Configuration configuration) {
-        if (!configuration.isQueen()) {
-            // белые
-            if (configuration.isWhite()
-                    && configuration.getNumber() == BOARD_SIZE) {
-                configuration.setQueen(true);
-            }
+    private static int skipMove(CharSequence line, int index) {
+        while (index < line.length() && line.charAt(index) != ' ') {
+            index++;
+        }
+        return index;
+    }
 
-            // черные
-            if (!configuration.isWhite() && configuration.getNumber() == 1) {
-                configuration.setQueen(true);
-            }
+    /**
+     * Цвет играющего по спискам: определяется по его первой шашке,
+     * а если шашек нет - по шашкам противника.
+     *
+     * @param myConfigs    конфигурации играющего
+     * @param otherConfigs конфигурации противника
+     * @return играет ли владелец myConfigs белыми
+     */
+    public static boolean isWhite(ArrayList<Configuration> myConfigs,
+                                  ArrayList<Configuration> otherConfigs) {
+        if (!myConfigs.isEmpty()) {
+            return myConfigs.get(0).isWhite();
         }
+        return otherConfigs.isEmpty() || !otherConfigs.get(0).isWhite();
     }
 }
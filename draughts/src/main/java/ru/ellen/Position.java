@@ -0,0 +1,184 @@
+package ru.ellen;
+
+import java.util.ArrayList;
+
+/**
+ * Неизменяемая позиция: вся расстановка и очередь хода в двух long.
+ * <pre>
+ * pieces - биты 0-31: белые фигуры, биты 32-63: чёрные;
+ * state  - биты 0-31: дамки обоих цветов, бит 32: ход чёрных.
+ * </pre>
+ * Объект можно без синхронизации передавать между потоками и хранить
+ * в кэшах и очередях; для перебора ходов удобнее {@link Board}.
+ */
+public final class Position {
+    private static final long LOW = 0xFFFFFFFFL;
+    private static final long BLACK_TO_MOVE = 1L << 32;
+
+    private final long pieces;
+    private final long state;
+
+    private Position(long pieces, long state) {
+        this.pieces = pieces;
+        this.state = state;
+    }
+
+    /**
+     * @param board доска
+     * @param white ходят ли белые
+     * @return позиция
+     */
+    public static Position of(Board board, boolean white) {
+        long pieces = (board.pieces(true) & LOW)
+                | ((board.pieces(false) & LOW) << 32);
+        long queens = (board.queens(true) | board.queens(false)) & LOW;
+        return new Position(pieces, queens | (white ? 0 : BLACK_TO_MOVE));
+    }
+
+    public static Position initial() {
+        return of(Board.initial(), true);
+    }
+
+    /**
+     * Позиция по двум строкам в формате входа {@link Play}.
+     *
+     * @param whitePositions белые фигуры
+     * @param blackPositions чёрные фигуры
+     * @param white          ходят ли белые
+     * @return позиция
+     */
+    public static Position fromText(String whitePositions,
+                                    String blackPositions, boolean white) {
+        return of(Board.fromText(whitePositions, blackPositions), white);
+    }
+
+    /**
+     * Позиция по спискам конфигураций; ходит владелец myConfigs.
+     *
+     * @param myConfigs    конфигурации играющего
+     * @param otherConfigs конфигурации противника
+     * @param white        играет ли владелец myConfigs белыми
+     * @return позиция
+     */
+    public static Position fromConfigurations(
+            ArrayList<Configuration> myConfigs,
+            ArrayList<Configuration> otherConfigs, boolean white) {
+        return of(Board.fromConfigurations(myConfigs, otherConfigs, white),
+                white);
+    }
+
+    /**
+     * Позиция после хода от {@link MoveGenerator}: только операции
+     * над двумя long, очередь хода переходит к противнику.
+     *
+     * @param move ход стороны, чья очередь
+     * @return новая позиция
+     */
+    public Position withMove(long move) {
+        long captures = Move.captures(move) & LOW;
+        long newPieces = pieces & ~(captures | (captures << 32));
+        long queens = state & LOW & ~captures;
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (from != to) {
+            int offset = whiteToMove() ? 0 : 32;
+            newPieces ^= (1L << (from + offset)) | (1L << (to + offset));
+            if ((queens & (1L << from)) != 0) {
+                queens ^= (1L << from) | (1L << to);
+            }
+        }
+        if (Move.isPromotion(move)) {
+            queens |= 1L << to;
+        }
+        return new Position(newPieces,
+                queens | (~state & BLACK_TO_MOVE));
+    }
+
+    public boolean whiteToMove() {
+        return (state & BLACK_TO_MOVE) == 0;
+    }
+
+    public int pieces(boolean white) {
+        return (int) (white ? pieces : pieces >>> 32);
+    }
+
+    public int queens(boolean white) {
+        return pieces(white) & (int) state;
+    }
+
+    public int men(boolean white) {
+        return pieces(white) & ~(int) state;
+    }
+
+    /**
+     * Переносит позицию на доску (стек отмены доски очищается).
+     *
+     * @param board доска, которая будет перезаписана
+     * @return та же доска
+     */
+    public Board toBoard(Board board) {
+        board.set(men(true), queens(true), men(false), queens(false));
+        return board;
+    }
+
+    public Board toBoard() {
+        return new Board(men(true), queens(true), men(false), queens(false));
+    }
+
+    /**
+     * Фигуры одного цвета в формате вывода {@link Play}.
+     *
+     * @param white цвет фигур
+     * @return строка через пробел
+     */
+    public String toText(boolean white) {
+        return toBoard().toText(white);
+    }
+
+    /**
+     * Перезаписывает список конфигураций фигурами одного цвета.
+     *
+     * @param white   цвет фигур
+     * @param configs список, который будет заполнен заново
+     */
+    public void toConfigurations(boolean white,
+                                 ArrayList<Configuration> configs) {
+        toBoard().toConfigurations(white, configs);
+    }
+
+    /**
+     * @return ключ Зобриста позиции
+     */
+    public long key() {
+        return Zobrist.pieces(Zobrist.WHITE_MAN, men(true))
+                ^ Zobrist.pieces(Zobrist.WHITE_QUEEN, queens(true))
+                ^ Zobrist.pieces(Zobrist.BLACK_MAN, men(false))
+                ^ Zobrist.pieces(Zobrist.BLACK_QUEEN, queens(false))
+                ^ Zobrist.side(whiteToMove());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Position)) {
+            return false;
+        }
+        Position other = (Position) o;
+        return pieces == other.pieces && state == other.state;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = pieces * 0x9E3779B97F4A7C15L ^ state;
+        h *= 0xBF58476D1CE4E5B9L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return toText(true) + " / " + toText(false)
+                + (whiteToMove() ? " (white)" : " (black)");
+    }
+}
@@ -0,0 +1,83 @@
+package ru.ellen;
+
+/**
+ * Ключи Зобриста: по случайному 64-битному числу на каждую пару
+ * (поле, вид фигуры) и одно на ход чёрных. Ключ позиции - XOR ключей
+ * всех фигур, поэтому при ходе он пересчитывается за несколько XOR.
+ * Числа получены генератором splitmix64 с фиксированным зерном,
+ * так что ключи одинаковы при каждом запуске и их можно хранить в файлах.
+ */
+public final class Zobrist {
+    public static final int WHITE_MAN = 0;
+    public static final int WHITE_QUEEN = 1;
+    public static final int BLACK_MAN = 2;
+    public static final int BLACK_QUEEN = 3;
+    public static final int KINDS = 4;
+
+    private static final long SEED = 0x5EED_D1A6_4B0A_12D5L;
+    private static final long[][] PIECES = new long[KINDS][Board.SQUARES];
+    /**
+     * Ключ хода чёрных.
+     */
+    public static final long BLACK_TO_MOVE;
+
+    static {
+        long state = SEED;
+        for (int kind = 0; kind < KINDS; kind++) {
+            for (int square = 0; square < Board.SQUARES; square++) {
+                state += 0x9E3779B97F4A7C15L;
+                PIECES[kind][square] = mix(state);
+            }
+        }
+        state += 0x9E3779B97F4A7C15L;
+        BLACK_TO_MOVE = mix(state);
+    }
+
+    private Zobrist() {
+    }
+
+    public static long piece(int kind, int square) {
+        return PIECES[kind][square];
+    }
+
+    /**
+     * XOR ключей всех фигур одного вида из маски.
+     *
+     * @param kind вид фигуры
+     * @param mask маска полей
+     * @return XOR ключей
+     */
+    public static long pieces(int kind, int mask) {
+        long key = 0;
+        while (mask != 0) {
+            key ^= PIECES[kind][Integer.numberOfTrailingZeros(mask)];
+            mask &= mask - 1;
+        }
+        return key;
+    }
+
+    public static long side(boolean white) {
+        return white ? 0 : BLACK_TO_MOVE;
+    }
+
+    /**
+     * Ключ, посчитанный заново по всей доске.
+     *
+     * @param board доска
+     * @param white ходят ли белые
+     * @return ключ позиции
+     */
+    public static long compute(Board board, boolean white) {
+        return pieces(WHITE_MAN, board.men(true))
+                ^ pieces(WHITE_QUEEN, board.queens(true))
+                ^ pieces(BLACK_MAN, board.men(false))
+                ^ pieces(BLACK_QUEEN, board.queens(false))
+                ^ side(white);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
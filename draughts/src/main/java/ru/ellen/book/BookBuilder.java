@@ -0,0 +1,307 @@
+package ru.ellen.book;
+
+import ru.ellen.Board;
+import ru.ellen.Move;
+import ru.ellen.MoveGenerator;
+import ru.ellen.MoveList;
+import ru.ellen.MoveParser;
+import ru.ellen.MoveStatus;
+import ru.ellen.Play;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Сборка {@link OpeningBook} из текстового файла партий.
+ * <p>
+ * Партия записана как вход {@link Play}: строка белых, строка чёрных,
+ * затем строки "ход белых ход чёрных"; партии разделяются пустой
+ * строкой. В книгу идут первые {@link #MAX_PLY} полуходов партии;
+ * партия с неправильным ходом обрывается на нём и считается
+ * отвергнутой.
+ * <p>
+ * Партии разбираются на {@link ForkJoinPool}: лист задачи проигрывает
+ * несколько партий и сортирует свои записи, при слиянии половин
+ * одинаковые пары (позиция, ход) складываются. Вес хода - его доля
+ * в тысячных среди партий, прошедших через позицию.
+ * <p>
+ * Запуск: {@code BookBuilder <файл партий> <файл книги> [потоки]}.
+ */
+public final class BookBuilder {
+    public static final int MAX_PLY = 24;
+    static final int GAMES_PER_TASK = 16;
+
+    private BookBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: BookBuilder <games> <book> [threads]");
+            return;
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+        List<String[]> games;
+        try (BufferedReader reader = Files.newBufferedReader(
+                Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            games = read(reader);
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Records records = pool.invoke(new Replay(games, 0, games.size()));
+            write(records, Paths.get(args[1]));
+            System.out.printf("%d games, %d rejected, %d records%n",
+                    games.size(), records.rejected, records.size);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Партии файла: строки белых и чёрных, затем строки ходов.
+     *
+     * @param reader источник строк
+     * @return строки каждой партии
+     */
+    static List<String[]> read(BufferedReader reader) throws IOException {
+        List<String[]> games = new ArrayList<>();
+        List<String> game = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                if (!game.isEmpty()) {
+                    games.add(game.toArray(new String[0]));
+                    game.clear();
+                }
+                continue;
+            }
+            game.add(line);
+        }
+        if (!game.isEmpty()) {
+            games.add(game.toArray(new String[0]));
+        }
+        return games;
+    }
+
+    /**
+     * Собирает книгу из партий и пишет её в файл.
+     *
+     * @param games строки партий, как из {@link #read}
+     * @param pool  пул для разбора
+     * @param book  файл книги
+     * @return число записей книги
+     */
+    public static int build(List<String[]> games, ForkJoinPool pool,
+                            Path book) throws IOException {
+        Records records = pool.invoke(new Replay(games, 0, games.size()));
+        write(records, book);
+        return records.size;
+    }
+
+    static void write(Records records, Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(records.size);
+            int first = 0;
+            while (first < records.size) {
+                // записи одной позиции: всего партий через неё
+                int last = first;
+                int total = 0;
+                while (last < records.size
+                        && records.keys[last] == records.keys[first]) {
+                    total += records.games[last++];
+                }
+                for (int i = first; i < last; i++) {
+                    out.writeLong(records.keys[i]);
+                    out.writeLong(records.moves[i]);
+                    out.writeInt((int) (records.games[i] * 1000L / total));
+                    out.writeInt(records.games[i]);
+                }
+                first = last;
+            }
+        }
+    }
+
+    /**
+     * Записи (ключ, ход, число партий), упорядоченные по ключу и ходу.
+     */
+    static final class Records {
+        final long[] keys;
+        final long[] moves;
+        final int[] games;
+        int size;
+        int rejected;
+
+        Records(int capacity) {
+            keys = new long[capacity];
+            moves = new long[capacity];
+            games = new int[capacity];
+        }
+
+        private int compare(int i, long key, long move) {
+            int result = Long.compare(keys[i], key);
+            return result != 0 ? result : Long.compare(moves[i], move);
+        }
+
+        /**
+         * Вставка с сохранением порядка; одинаковая пара складывается.
+         */
+        void insert(long key, long move) {
+            int i = size;
+            while (i > 0 && compare(i - 1, key, move) > 0) {
+                i--;
+            }
+            if (i > 0 && compare(i - 1, key, move) == 0) {
+                games[i - 1]++;
+                return;
+            }
+            System.arraycopy(keys, i, keys, i + 1, size - i);
+            System.arraycopy(moves, i, moves, i + 1, size - i);
+            System.arraycopy(games, i, games, i + 1, size - i);
+            keys[i] = key;
+            moves[i] = move;
+            games[i] = 1;
+            size++;
+        }
+
+        /**
+         * Слияние двух упорядоченных наборов.
+         */
+        static Records merge(Records a, Records b) {
+            Records result = new Records(a.size + b.size);
+            int i = 0;
+            int j = 0;
+            while (i < a.size || j < b.size) {
+                int order = i == a.size ? 1 : j == b.size ? -1
+                        : a.compare(i, b.keys[j], b.moves[j]);
+                int at = result.size;
+                if (at > 0 && order <= 0
+                        && result.compare(at - 1, a.keys[i], a.moves[i]) == 0) {
+                    result.games[at - 1] += a.games[i++];
+                    continue;
+                }
+                if (at > 0 && order > 0
+                        && result.compare(at - 1, b.keys[j], b.moves[j]) == 0) {
+                    result.games[at - 1] += b.games[j++];
+                    continue;
+                }
+                if (order <= 0) {
+                    result.append(a, i++);
+                } else {
+                    result.append(b, j++);
+                }
+            }
+            result.rejected = a.rejected + b.rejected;
+            return result;
+        }
+
+        private void append(Records from, int i) {
+            keys[size] = from.keys[i];
+            moves[size] = from.moves[i];
+            games[size] = from.games[i];
+            size++;
+        }
+    }
+
+    /**
+     * Разбор партий [from, to).
+     */
+    private static final class Replay extends RecursiveTask<Records> {
+        private static final long serialVersionUID = 1L;
+        private final List<String[]> games;
+        private final int from;
+        private final int to;
+
+        Replay(List<String[]> games, int from, int to) {
+            this.games = games;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Records compute() {
+            if (to - from > GAMES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                Replay left = new Replay(games, from, middle);
+                left.fork();
+                Records right = new Replay(games, middle, to).compute();
+                return Records.merge(left.join(), right);
+            }
+            Records records = new Records((to - from) * MAX_PLY);
+            MoveGenerator generator = new MoveGenerator();
+            MoveList list = new MoveList();
+            int[] parsed = new int[MoveParser.BUFFER_SIZE];
+            Board before = new Board();
+            for (int i = from; i < to; i++) {
+                if (!replay(games.get(i), records, generator, list, parsed,
+                        before)) {
+                    records.rejected++;
+                }
+            }
+            return records;
+        }
+
+        /**
+         * @return false, если в партии неправильный ход
+         */
+        private static boolean replay(String[] game, Records records,
+                                      MoveGenerator generator, MoveList list,
+                                      int[] parsed, Board before) {
+            if (game.length < 2) {
+                return false;
+            }
+            Board board = Board.fromText(game[0], game[1]);
+            boolean white = true;
+            int ply = 0;
+            for (int line = 2; line < game.length; line++) {
+                for (String text : game[line].trim().split(" +")) {
+                    if (ply == MAX_PLY) {
+                        return true;
+                    }
+                    int count = generator.generate(board, white, list);
+                    before.copyFrom(board);
+                    if (MoveParser.parse(text, parsed) == MoveParser.ERROR
+                            || Play.applyLineOfMoves(board, white, parsed)
+                            != MoveStatus.OK) {
+                        return false;
+                    }
+                    long move = played(before, board, list, count);
+                    if (move == Move.NONE) {
+                        return false;
+                    }
+                    records.insert(before.key(white), move);
+                    white = !white;
+                    ply++;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Ход генератора, приводящий к той же доске, что ход Play.
+         */
+        private static long played(Board before, Board after, MoveList list,
+                                   int count) {
+            for (int i = 0; i < count; i++) {
+                before.makeMove(list.get(i));
+                boolean same = before.key(true) == after.key(true);
+                before.unmakeMove();
+                if (same) {
+                    return list.get(i);
+                }
+            }
+            return Move.NONE;
+        }
+    }
+}
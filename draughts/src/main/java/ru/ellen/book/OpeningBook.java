@@ -0,0 +1,130 @@
+package ru.ellen.book;
+
+import ru.ellen.Board;
+import ru.ellen.Move;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Дебютная книга: отсортированные записи (ключ позиции, ход, вес,
+ * число партий) в файле, отображённом в память.
+ * <p>
+ * Файл: "DOB1", число записей (int), затем записи по {@link #RECORD}
+ * байт - ключ {@link Board#key(boolean)} (long), ход {@link Move}
+ * (long), вес в тысячных (int), число партий (int). Записи упорядочены
+ * по ключу, при равном ключе - по ходу; поиск - двоичный по файлу,
+ * при открытии читается только заголовок. Собирает книгу
+ * {@link BookBuilder}.
+ */
+public final class OpeningBook {
+    public static final int RECORD = 24;
+    static final int MAGIC = 0x444F4231;
+    static final int HEADER = 8;
+
+    private final ByteBuffer buffer;
+    private final int size;
+
+    private OpeningBook(ByteBuffer buffer, int size) {
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    /**
+     * @param file файл, записанный {@link BookBuilder}
+     * @return книга
+     * @throws IOException если файл не книга или повреждён
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+        if (buffer.capacity() < HEADER || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not an opening book: " + file);
+        }
+        int size = buffer.getInt(4);
+        if (size < 0 || (long) size * RECORD + HEADER != buffer.capacity()) {
+            throw new IOException("corrupt opening book: " + file);
+        }
+        return new OpeningBook(buffer, size);
+    }
+
+    /**
+     * @return число записей
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param key ключ позиции
+     * @return номер первой записи позиции или -1, если её нет в книге
+     */
+    public int find(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < size && key(low) == key ? low : -1;
+    }
+
+    public long key(int record) {
+        return buffer.getLong(HEADER + record * RECORD);
+    }
+
+    public long move(int record) {
+        return buffer.getLong(HEADER + record * RECORD + 8);
+    }
+
+    /**
+     * @param record номер записи
+     * @return доля хода среди партий через позицию, в тысячных
+     */
+    public int weight(int record) {
+        return buffer.getInt(HEADER + record * RECORD + 16);
+    }
+
+    /**
+     * @param record номер записи
+     * @return в скольких партиях сделан этот ход
+     */
+    public int games(int record) {
+        return buffer.getInt(HEADER + record * RECORD + 20);
+    }
+
+    /**
+     * Самый весомый ход книги, при равном весе - первый.
+     *
+     * @param board доска
+     * @param white ходят ли белые
+     * @return ход или {@link Move#NONE}, если позиции нет в книге
+     */
+    public long best(Board board, boolean white) {
+        long key = board.key(white);
+        int record = find(key);
+        if (record < 0) {
+            return Move.NONE;
+        }
+        long best = Move.NONE;
+        int bestWeight = -1;
+        for (; record < size && key(record) == key; record++) {
+            if (weight(record) > bestWeight) {
+                bestWeight = weight(record);
+                best = move(record);
+            }
+        }
+        return best;
+    }
+}
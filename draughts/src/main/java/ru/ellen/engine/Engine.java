@@ -0,0 +1,179 @@
+package ru.ellen.engine;
+
+import ru.ellen.Board;
+import ru.ellen.Configuration;
+import ru.ellen.Move;
+import ru.ellen.MoveGenerator;
+import ru.ellen.MoveList;
+import ru.ellen.MoveParser;
+import ru.ellen.Play;
+import ru.ellen.Position;
+import ru.ellen.book.OpeningBook;
+import ru.ellen.exceptions.BusyCellException;
+import ru.ellen.exceptions.InvalidMoveException;
+import ru.ellen.exceptions.LogicException;
+import ru.ellen.exceptions.WhiteCellException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подсказка хода для позиции, заданной так же, как в {@link Play}.
+ * <p>
+ * Запуск: {@code Engine <глубина>}; из stdin читаются строка белых,
+ * строка чёрных и необязательная строка "white" или "black" -
+ * чей ход (по умолчанию белых). С {@code Engine <глубина> <k>} печатаются
+ * k лучших вариантов с оценками (multi-PV).
+ * <p>
+ * Игра: {@code Engine game <мс на ход>}; после строк белых и чёрных
+ * каждая строка stdin - ход белых, движок отвечает за чёрных и, пока
+ * человек думает, обдумывает ожидаемый ответ ({@link Ponderer}).
+ * С {@code Engine game <мс> <книга>} ходы, найденные в дебютной книге
+ * ({@link OpeningBook}), делаются без поиска.
+ */
+public final class Engine {
+    private Engine() {
+    }
+
+    /**
+     * Лучший ход играющего.
+     *
+     * @param myConfigs    конфигурации играющего
+     * @param otherConfigs конфигурации противника
+     * @param depth        глубина поиска в полуходах
+     * @return результат поиска; ход в записи
+     * {@link Play#processLineOfMoves(ArrayList, ArrayList, String)}
+     */
+    public static SearchResult bestMove(ArrayList<Configuration> myConfigs,
+                                        ArrayList<Configuration> otherConfigs,
+                                        int depth) {
+        boolean white = Play.isWhite(myConfigs, otherConfigs);
+        Board board = Board.fromConfigurations(myConfigs, otherConfigs, white);
+        return new Search().search(board, white, depth);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args[0].equals("game") && args.length < 2) {
+            System.out.println(
+                    "usage: Engine <depth> [<lines>] | Engine game <ms> [<book>]");
+            return;
+        }
+        BufferedReader reader =
+                new BufferedReader(new InputStreamReader(System.in));
+        if (args[0].equals("game")) {
+            try {
+                OpeningBook book = args.length > 2
+                        ? OpeningBook.open(Paths.get(args[2])) : null;
+                game(reader, System.out, Integer.parseInt(args[1]), book);
+            } catch (WhiteCellException | BusyCellException
+                    | InvalidMoveException | LogicException e) {
+                System.out.println(e.getMessage());
+            }
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        Board board = Board.fromText(reader.readLine(), reader.readLine());
+        String side = reader.readLine();
+        boolean white = side == null || !side.trim().equals("black");
+
+        Search search = new Search();
+        long start = System.nanoTime();
+        if (args.length > 1) {
+            SearchResult[] lines = search.analyze(board, white, depth,
+                    Integer.parseInt(args[1]));
+            for (SearchResult line : lines) {
+                System.out.println(line);
+            }
+            System.out.println((System.nanoTime() - start) / 1000000 + " ms");
+            return;
+        }
+        SearchResult result = search.search(board, white, depth);
+        long elapsed = Math.max(System.nanoTime() - start, 1);
+        System.out.println(result.getNotation());
+        System.out.println(result + ", " + elapsed / 1000000 + " ms");
+        System.out.printf("tt hit rate %.3f, fill rate %.3f%n",
+                search.table().hitRate(), search.table().fillRate());
+    }
+
+    /**
+     * Партия человека (белые) против движка (чёрные).
+     *
+     * @param reader      строки белых и чёрных, затем ходы белых
+     * @param out         ответы движка
+     * @param millisPerMove время на ход движка
+     */
+    static void game(BufferedReader reader, PrintStream out,
+                     int millisPerMove) throws IOException,
+            WhiteCellException, BusyCellException, InvalidMoveException,
+            LogicException {
+        game(reader, out, millisPerMove, null);
+    }
+
+    /**
+     * Партия с дебютной книгой: пока позиция есть в книге, движок
+     * отвечает из неё, не тратя времени на поиск.
+     *
+     * @param reader        строки белых и чёрных, затем ходы белых
+     * @param out           ответы движка
+     * @param millisPerMove время на ход движка
+     * @param book          книга или null
+     */
+    public static void game(BufferedReader reader, PrintStream out,
+                            int millisPerMove, OpeningBook book) throws IOException,
+            WhiteCellException, BusyCellException, InvalidMoveException,
+            LogicException {
+        MoveGenerator generator = new MoveGenerator();
+        MoveList list = new MoveList();
+        int[] parsed = new int[MoveParser.BUFFER_SIZE];
+        Board board = Board.fromText(reader.readLine(), reader.readLine());
+        long budget = TimeUnit.MILLISECONDS.toNanos(millisPerMove);
+        try (Ponderer ponderer = new Ponderer(
+                new TranspositionTable(Search.DEFAULT_TABLE_MB))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    break;
+                }
+                MoveParser.parse(line.trim(), parsed);
+                Play.processLineOfMoves(board, true, parsed);
+                int known = bookMove(book, board, generator, list);
+                if (known >= 0) {
+                    ponderer.cancel();
+                    out.println(list.notation(known));
+                    board.apply(list.get(known));
+                    continue;
+                }
+                SearchResult result = ponderer.reply(board, false,
+                        System.nanoTime() + budget);
+                if (result.getMove() == Move.NONE) {
+                    out.println("no moves");
+                    break;
+                }
+                out.println(result.getNotation());
+                Position.of(board, false).withMove(result.getMove())
+                        .toBoard(board);
+                ponderer.ponder(board, true, result);
+            }
+            out.printf("ponder hits %d, misses %d%n",
+                    ponderer.hits(), ponderer.misses());
+        }
+    }
+
+    /**
+     * @return номер хода книги в списке ходов чёрных или -1
+     */
+    private static int bookMove(OpeningBook book, Board board,
+                                MoveGenerator generator, MoveList list) {
+        if (book == null) {
+            return -1;
+        }
+        generator.generate(board, false, list);
+        // ход из книги проверяется генератором на случай совпадения ключей
+        return list.indexOf(book.best(board, false));
+    }
+}
@@ -0,0 +1,33 @@
+package ru.ellen.engine;
+
+import ru.ellen.Board;
+import ru.ellen.PieceSquare;
+
+/**
+ * Статическая оценка позиции: материал и таблицы "фигура-поле"
+ * ({@link PieceSquare} - продвижение, центр, охрана последней
+ * горизонтали). Сумма поддерживается доской при каждом ходе, взятии
+ * и превращении, поэтому оценка листа - одно чтение поля.
+ * Оценка дается с точки зрения стороны, чей ход.
+ */
+public final class Evaluator {
+    public static final int MAN = PieceSquare.MAN;
+    public static final int QUEEN = PieceSquare.QUEEN;
+    /**
+     * Надбавка за каждую пройденную простой шашкой горизонталь.
+     */
+    public static final int ADVANCE = PieceSquare.ADVANCE;
+
+    private Evaluator() {
+    }
+
+    /**
+     * @param board доска
+     * @param white ходят ли белые
+     * @return оценка в сотых долях простой шашки
+     */
+    public static int evaluate(Board board, boolean white) {
+        int score = board.score();
+        return white ? score : -score;
+    }
+}
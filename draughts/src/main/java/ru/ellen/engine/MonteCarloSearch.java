@@ -0,0 +1,331 @@
+package ru.ellen.engine;
+
+import ru.ellen.Board;
+import ru.ellen.Move;
+import ru.ellen.MoveGenerator;
+import ru.ellen.MoveList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Поиск по дереву методом Монте-Карло (UCT), альтернатива
+ * {@link Search}. Потоки строят одно общее дерево без блокировок:
+ * <ul>
+ * <li>статистика узла - одно поле long (посещения в старших 32 битах,
+ * полуочки в младших), меняется атомарным сложением;</li>
+ * <li>спускаясь, поток сразу засчитывает посещение без очков
+ * (виртуальный проигрыш), поэтому другие потоки выбирают
+ * соседние ветки; очки добавляются на обратном пути;</li>
+ * <li>дети узла публикуются одним compareAndSet, проигравший
+ * в гонке поток просто берёт чужой массив.</li>
+ * </ul>
+ * Лист раскрывается после {@link #EXPAND_VISITS} посещений, а при
+ * достижении предела числа узлов дерево перестаёт расти.
+ * Из листа играется {@link RandomPlayout}.
+ */
+public final class MonteCarloSearch implements AutoCloseable {
+    /**
+     * Предел числа узлов дерева по умолчанию.
+     */
+    public static final int DEFAULT_MAX_NODES = 1 << 21;
+    /**
+     * Зерно случайных партий по умолчанию: поиск воспроизводим.
+     */
+    public static final long DEFAULT_SEED = 0x5DEECE66DL;
+    static final int EXPAND_VISITS = 8;
+    // коэффициент исследования UCT (для оценок от 0 до 1)
+    private static final double EXPLORATION = 1.4;
+    private static final int MAX_DEPTH = 256;
+    private static final long VISIT = 1L << 32;
+    private static final long REWARD_MASK = 0xFFFFFFFFL;
+
+    private static final AtomicLongFieldUpdater<Node> STATS =
+            AtomicLongFieldUpdater.newUpdater(Node.class, "stats");
+    private static final AtomicReferenceFieldUpdater<Node, Node[]> CHILDREN =
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, Node[].class,
+                    "children");
+
+    private final Worker[] workers;
+    private final ExecutorService executor;
+    private final int maxNodes;
+    private final AtomicLong nodes = new AtomicLong();
+    private final AtomicLong playouts = new AtomicLong();
+    private volatile boolean stop;
+
+    /**
+     * Узел дерева: позиция после хода move.
+     */
+    static final class Node {
+        final long move;
+        // ходит ли в этой позиции белый
+        final boolean white;
+        // посещения (старшие 32 бита) и полуочки стороны, сделавшей move
+        volatile long stats;
+        volatile Node[] children;
+
+        Node(long move, boolean white) {
+            this.move = move;
+            this.white = white;
+        }
+
+        int visits() {
+            return (int) (stats >>> 32);
+        }
+
+        int reward() {
+            return (int) (stats & REWARD_MASK);
+        }
+    }
+
+    public MonteCarloSearch(int threads) {
+        this(threads, DEFAULT_MAX_NODES);
+    }
+
+    public MonteCarloSearch(int threads, int maxNodes) {
+        this(threads, maxNodes, DEFAULT_SEED);
+    }
+
+    /**
+     * @param threads  число потоков вместе с вызывающим (не меньше 1)
+     * @param maxNodes предел числа узлов дерева
+     * @param seed     зерно случайных партий; с одним потоком одно и то
+     *                 же зерно даёт один и тот же поиск
+     */
+    public MonteCarloSearch(int threads, int maxNodes, long seed) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        this.maxNodes = maxNodes;
+        this.workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(seed + 0x9E3779B97F4A7C15L * (i + 1));
+        }
+        this.executor = threads == 1 ? null
+                : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "mcts-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int threads() {
+        return workers.length;
+    }
+
+    /**
+     * Поиск, пока не сыграно playoutLimit партий или не наступил срок.
+     *
+     * @param position     доска (не должна меняться до конца поиска)
+     * @param white        ходят ли белые
+     * @param playoutLimit сколько случайных партий сыграть
+     * @param deadline     срок по {@link System#nanoTime()}
+     *                     или {@link Search#NO_DEADLINE}
+     * @return самый посещаемый ход; score - доля очков этого хода
+     * в тысячных, depth - длина варианта из самых посещаемых ходов,
+     * nodes - число сыгранных партий
+     */
+    public SearchResult search(Board position, boolean white,
+                               long playoutLimit, long deadline) {
+        stop = false;
+        nodes.set(1);
+        playouts.set(0);
+        Node root = new Node(Move.NONE, white);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 1; i < workers.length; i++) {
+            Worker worker = workers[i];
+            futures.add(executor.submit(() ->
+                    worker.run(position, root, playoutLimit, deadline)));
+        }
+        workers[0].run(position, root, playoutLimit, deadline);
+        stop = true;
+        for (Future<?> future : futures) {
+            await(future);
+        }
+        return result(position, root);
+    }
+
+    /**
+     * Останавливает текущий поиск; безопасно вызывать из другого потока.
+     */
+    public void stop() {
+        stop = true;
+    }
+
+    /**
+     * @return число узлов дерева последнего поиска
+     */
+    public long nodes() {
+        return nodes.get();
+    }
+
+    @Override
+    public void close() {
+        stop = true;
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private SearchResult result(Board position, Node root) {
+        Board board = new Board();
+        board.copyFrom(position);
+        MoveGenerator generator = new MoveGenerator();
+        MoveList list = new MoveList();
+        List<String> line = new ArrayList<>();
+        Node node = root;
+        Node best = null;
+        while (true) {
+            Node child = mostVisited(node);
+            if (child == null) {
+                break;
+            }
+            if (best == null) {
+                best = child;
+            }
+            generator.generate(board, node.white, list);
+            line.add(list.notation(list.indexOf(child.move)));
+            board.apply(child.move);
+            node = child;
+        }
+        if (best == null) {
+            return new SearchResult(Move.NONE, 0, 0, playouts.get(),
+                    new String[0]);
+        }
+        long stats = best.stats;
+        int visits = (int) (stats >>> 32);
+        int score = (int) ((stats & REWARD_MASK) * 500 / Math.max(visits, 1));
+        return new SearchResult(best.move, score, line.size(),
+                playouts.get(), line.toArray(new String[0]));
+    }
+
+    private static Node mostVisited(Node node) {
+        Node[] children = node.children;
+        if (children == null) {
+            return null;
+        }
+        Node best = null;
+        for (Node child : children) {
+            if (child.visits() > 0
+                    && (best == null || child.visits() > best.visits())) {
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("mcts worker failed",
+                    e.getCause());
+        }
+    }
+
+    /**
+     * Состояние одного потока: доска, генератор, путь от корня.
+     */
+    private final class Worker {
+        private final Board board = new Board();
+        private final MoveGenerator generator = new MoveGenerator();
+        private final MoveList list = new MoveList();
+        private final Node[] path = new Node[MAX_DEPTH + 1];
+        private final RandomPlayout playout;
+
+        Worker(long seed) {
+            this.playout = new RandomPlayout(seed);
+        }
+
+        void run(Board position, Node root, long limit, long deadline) {
+            while (!stop && playouts.getAndIncrement() < limit) {
+                if (deadline != Search.NO_DEADLINE
+                        && System.nanoTime() - deadline >= 0) {
+                    stop = true;
+                    break;
+                }
+                iterate(position, root);
+            }
+            // лишние заявки на партии не считаются
+            playouts.updateAndGet(n -> Math.min(n, limit));
+        }
+
+        private void iterate(Board position, Node root) {
+            board.copyFrom(position);
+            Node node = root;
+            int length = 0;
+            STATS.getAndAdd(node, VISIT);
+            path[length++] = node;
+            while (length <= MAX_DEPTH) {
+                Node[] children = node.children;
+                if (children == null) {
+                    if (node.visits() <= EXPAND_VISITS
+                            || nodes.get() >= maxNodes) {
+                        break;
+                    }
+                    children = expand(node);
+                }
+                if (children.length == 0) {
+                    break;
+                }
+                node = select(node, children);
+                board.apply(node.move);
+                STATS.getAndAdd(node, VISIT);
+                path[length++] = node;
+            }
+            // результат для стороны, которая ходит в листе
+            int result = node.children != null && node.children.length == 0
+                    ? RandomPlayout.LOSS : playout.play(board, node.white);
+            for (int i = length - 1; i >= 0; i--) {
+                // очки узла - очки стороны, сделавшей ход в него
+                result = RandomPlayout.WIN - result;
+                STATS.getAndAdd(path[i], result);
+            }
+        }
+
+        private Node[] expand(Node node) {
+            int count = generator.generate(board, node.white, list);
+            Node[] children = new Node[count];
+            for (int i = 0; i < count; i++) {
+                children[i] = new Node(list.get(i), !node.white);
+            }
+            if (CHILDREN.compareAndSet(node, null, children)) {
+                nodes.addAndGet(count);
+                return children;
+            }
+            return node.children;
+        }
+
+        private Node select(Node parent, Node[] children) {
+            double logParent = Math.log(Math.max(parent.visits(), 1));
+            Node best = children[0];
+            double bestValue = -1;
+            int start = playout.nextInt(children.length);
+            for (int n = 0; n < children.length; n++) {
+                // непосещённые дети по очереди, начиная со случайного
+                Node child = children[(start + n) % children.length];
+                long stats = child.stats;
+                int visits = (int) (stats >>> 32);
+                if (visits == 0) {
+                    return child;
+                }
+                double value = (stats & REWARD_MASK) / (2.0 * visits)
+                        + EXPLORATION * Math.sqrt(logParent / visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package ru.ellen.engine;
+
+import ru.ellen.Board;
+import ru.ellen.Move;
+import ru.ellen.MoveList;
+
+import java.util.Arrays;
+
+/**
+ * Сортировка тихих ходов (без взятий) одного потока поиска.
+ * <ul>
+ * <li>Ходы-убийцы: по два хода на полуход, давших отсечение
+ * в соседних ветках на той же глубине.</li>
+ * <li>Таблица истории: счёт по (исходное поле, конечное поле)
+ * за каждую сторону, растёт на depth * depth при отсечении.</li>
+ * </ul>
+ * Взятия не сортируются: если у стороны есть взятие, других ходов нет.
+ * Между поисками убийцы сбрасываются, а история делится пополам,
+ * чтобы старые счета не перевешивали новые.
+ */
+final class MoveOrdering {
+    private static final int KILLERS = 2;
+    private static final int KILLER_SCORE = Integer.MAX_VALUE - KILLERS;
+    // при таком счёте вся история делится пополам
+    private static final int HISTORY_LIMIT = 1 << 24;
+
+    private final long[] killers = new long[(Search.MAX_PLY + 1) * KILLERS];
+    private final int[] history = new int[2 * Board.SQUARES * Board.SQUARES];
+    private final int[] scores = new int[MoveList.MAX_MOVES];
+    private boolean useKillers = true;
+    private boolean useHistory = true;
+
+    void setKillers(boolean useKillers) {
+        this.useKillers = useKillers;
+    }
+
+    void setHistory(boolean useHistory) {
+        this.useHistory = useHistory;
+    }
+
+    /**
+     * Старение между поисками.
+     */
+    void newSearch() {
+        Arrays.fill(killers, Move.NONE);
+        age();
+    }
+
+    /**
+     * Сортирует ходы списка начиная с first: сначала убийцы этого
+     * полухода, затем по убыванию истории.
+     *
+     * @param list  ходы узла
+     * @param first сколько ходов в начале уже поставлено (ход из главного
+     *              варианта или таблицы)
+     * @param ply   полуход от корня
+     * @param white ходят ли белые
+     */
+    void order(MoveList list, int first, int ply, boolean white) {
+        int count = list.size();
+        if (count - first < 2 || (!useKillers && !useHistory)
+                || Move.isCapture(list.get(0))) {
+            return;
+        }
+        int side = white ? 0 : 1;
+        for (int i = first; i < count; i++) {
+            long move = list.get(i);
+            int score = useHistory ? history[index(side, move)] : 0;
+            if (useKillers) {
+                for (int slot = 0; slot < KILLERS; slot++) {
+                    if (killers[ply * KILLERS + slot] == move) {
+                        score = KILLER_SCORE + KILLERS - slot;
+                    }
+                }
+            }
+            scores[i] = score;
+        }
+        // ходов немного, поэтому сортировка вставками
+        for (int i = first + 1; i < count; i++) {
+            int score = scores[i];
+            int j = i;
+            while (j > first && scores[j - 1] < score) {
+                scores[j] = scores[j - 1];
+                list.swap(j, j - 1);
+                j--;
+            }
+            scores[j] = score;
+        }
+    }
+
+    /**
+     * Тихий ход дал отсечение.
+     *
+     * @param move  ход
+     * @param ply   полуход от корня
+     * @param white ходят ли белые
+     * @param depth оставшаяся глубина узла
+     */
+    void cutoff(long move, int ply, boolean white, int depth) {
+        if (Move.isCapture(move)) {
+            return;
+        }
+        int slot = ply * KILLERS;
+        if (killers[slot] != move) {
+            killers[slot + 1] = killers[slot];
+            killers[slot] = move;
+        }
+        int index = index(white ? 0 : 1, move);
+        history[index] += depth * depth;
+        if (history[index] > HISTORY_LIMIT) {
+            age();
+        }
+    }
+
+    long killer(int ply, int slot) {
+        return killers[ply * KILLERS + slot];
+    }
+
+    int history(boolean white, long move) {
+        return history[index(white ? 0 : 1, move)];
+    }
+
+    private void age() {
+        for (int i = 0; i < history.length; i++) {
+            history[i] >>= 1;
+        }
+    }
+
+    private static int index(int side, long move) {
+        return (side * Board.SQUARES + Move.from(move)) * Board.SQUARES
+                + Move.to(move);
+    }
+}
@@ -0,0 +1,164 @@
+package ru.ellen.engine;
+
+import ru.ellen.Board;
+import ru.ellen.MoveGenerator;
+import ru.ellen.MoveList;
+import ru.ellen.Position;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Обдумывание на времени противника. После своего хода движок
+ * предполагает ответ противника (второй ход главного варианта) и в фоновом
+ * потоке ищет получившуюся позицию без ограничения по времени, заполняя
+ * таблицу транспозиций.
+ * <p>
+ * Когда приходит настоящий ход: если он совпал с ожидаемым, фоновому
+ * поиску назначается срок и его результат становится ответом; если нет,
+ * фоновый поиск останавливается, а новый начинается с уже прогретой
+ * таблицей.
+ * <p>
+ * Методы вызываются из одного потока (потока игры).
+ */
+public final class Ponderer implements AutoCloseable {
+    // запас на случай, если фоновый поиск стартовал уже после переноса срока
+    private static final long GRACE = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Search search;
+    private final ExecutorService executor;
+    private final Board ponderBoard = new Board();
+    private final MoveGenerator generator = new MoveGenerator();
+    private final MoveList list = new MoveList();
+    private Future<SearchResult> pondering;
+    private Position expected;
+    private int hits;
+    private int misses;
+
+    /**
+     * @param table таблица транспозиций, общая для обдумывания и поиска
+     */
+    public Ponderer(TranspositionTable table) {
+        this.search = new Search(table);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ponder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Ход для настоящей позиции. Если она совпала с обдумываемой,
+     * продолжается фоновый поиск, иначе он отменяется.
+     *
+     * @param board    доска (не меняется)
+     * @param white    ходят ли белые
+     * @param deadline срок по {@link System#nanoTime()}
+     * @return результат поиска
+     */
+    public SearchResult reply(Board board, boolean white, long deadline) {
+        if (pondering != null) {
+            Future<SearchResult> future = pondering;
+            boolean hit = Position.of(board, white).equals(expected);
+            pondering = null;
+            expected = null;
+            if (hit) {
+                hits++;
+                return finish(future, deadline);
+            }
+            misses++;
+            finish(future, System.nanoTime());
+        }
+        return search.search(board, white, Search.MAX_PLY, deadline);
+    }
+
+    /**
+     * Начинает обдумывание позиции после ожидаемого ответа противника.
+     *
+     * @param board доска после своего хода (копируется)
+     * @param white ходят ли белые (то есть противник)
+     * @param last  результат поиска, которым был выбран свой ход
+     * @return начато ли обдумывание (в главном варианте может
+     * не быть ответа противника)
+     */
+    public boolean ponder(Board board, boolean white, SearchResult last) {
+        cancel();
+        String[] line = last.getPrincipalVariation();
+        if (line.length < 2) {
+            return false;
+        }
+        int count = generator.generate(board, white, list);
+        for (int i = 0; i < count; i++) {
+            if (list.notation(i).equals(line[1])) {
+                expected = Position.of(board, white).withMove(list.get(i));
+                expected.toBoard(ponderBoard);
+                boolean side = !white;
+                pondering = executor.submit(() -> search.search(ponderBoard,
+                        side, Search.MAX_PLY, Search.NO_DEADLINE));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Прерывает обдумывание, если оно идёт.
+     */
+    public void cancel() {
+        if (pondering != null) {
+            finish(pondering, System.nanoTime());
+            pondering = null;
+            expected = null;
+        }
+    }
+
+    /**
+     * @return сколько раз противник сделал ожидаемый ход
+     */
+    public int hits() {
+        return hits;
+    }
+
+    /**
+     * @return сколько раз обдумывание пришлось отменить
+     */
+    public int misses() {
+        return misses;
+    }
+
+    public TranspositionTable table() {
+        return search.table();
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        executor.shutdown();
+    }
+
+    private SearchResult finish(Future<SearchResult> future, long deadline) {
+        while (true) {
+            // поиск, ещё не успевший начаться, сбросит срок на
+            // бесконечный, поэтому срок назначается, пока он не закончится
+            search.setDeadline(deadline);
+            long wait = Math.max(deadline - System.nanoTime(), 0) + GRACE;
+            try {
+                return future.get(wait, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // следующий круг
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                search.stop();
+                throw new IllegalStateException("interrupted while pondering",
+                        e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("ponder search failed",
+                        e.getCause());
+            }
+        }
+    }
+}
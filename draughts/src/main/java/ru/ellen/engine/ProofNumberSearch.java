@@ -0,0 +1,373 @@
+package ru.ellen.engine;
+
+import ru.ellen.Board;
+import ru.ellen.MoveGenerator;
+import ru.ellen.MoveList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Решатель задач "ход белых, выигрыш" поиском по доказательным числам
+ * в глубину (df-pn). Выигрыш - позиция, в которой у защищающейся
+ * стороны нет ходов.
+ * <p>
+ * Числа доказательства и опровержения хранятся в таблице фиксированного
+ * размера: корзины по две записи, при нехватке места вытесняется запись
+ * с меньшей работой (числом узлов под ней). Повтор позиции на пути и
+ * предельная длина варианта считаются неудачей нападающего, поэтому
+ * "нет выигрыша" означает "нет выигрыша не длиннее {@link #MAX_PLY}
+ * полуходов". Такое опровержение зависит от пути: та же позиция,
+ * пришедшая другим путём или раньше, может выигрываться. Поэтому
+ * опровержения, опирающиеся на повтор или предел длины, в таблицу
+ * не пишутся.
+ * <p>
+ * Экземпляр не потокобезопасен: для нескольких задач параллельно
+ * нужно по решателю на поток (см. {@link PuzzleSolver}).
+ */
+public final class ProofNumberSearch {
+    public static final int WIN = 1;
+    public static final int NO_WIN = 2;
+    /**
+     * Предел узлов исчерпан раньше, чем найден ответ.
+     */
+    public static final int UNKNOWN = 3;
+    public static final int MAX_PLY = 80;
+    public static final long DEFAULT_MAX_NODES = 20_000_000L;
+
+    static final int INFINITY = 1 << 28;
+    private static final long LOW = 0xFFFFFFFFL;
+    // неизвестная позиция: pn = dn = 1
+    private static final long UNKNOWN_NUMBERS = (1L << 32) | 1;
+
+    private final MoveGenerator generator = new MoveGenerator();
+    private final MoveList[] lists = new MoveList[MAX_PLY + 1];
+    private final long[] pathKeys = new long[MAX_PLY + 1];
+    // последние известные числа детей узла на каждом полуходе: если
+    // запись ребёнка вытеснена, узел не начинает его заново с (1, 1)
+    private final long[][] children =
+            new long[MAX_PLY + 1][MoveList.MAX_MOVES];
+    // опровергнут ли ребёнок только из-за повтора или предела длины
+    private final boolean[][] pathDependent =
+            new boolean[MAX_PLY + 1][MoveList.MAX_MOVES];
+    private final long[] keys;
+    // число доказательства в старших 32 битах, опровержения в младших
+    private final long[] numbers;
+    private final long[] work;
+    private final int mask;
+    private final Board board = new Board();
+    private long nodes;
+    private long maxNodes;
+    private long budget;
+    private boolean attacker;
+    // числа последнего узла, посчитанного mid
+    private int lastPn;
+    private int lastDn;
+    private boolean lastPathDependent;
+
+    /**
+     * Результат решения задачи.
+     */
+    public static final class Proof {
+        private final int status;
+        private final String[] line;
+        private final long nodes;
+
+        Proof(int status, String[] line, long nodes) {
+            this.status = status;
+            this.line = line;
+            this.nodes = nodes;
+        }
+
+        /**
+         * @return {@link #WIN}, {@link #NO_WIN} или {@link #UNKNOWN}
+         */
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * @return выигрывающий вариант в записи {@link MoveList#notation};
+         * защита выбирает самое долгое сопротивление из известных таблице
+         */
+        public String[] getLine() {
+            return line.clone();
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        @Override
+        public String toString() {
+            String result = status == WIN ? "win " + String.join(" ", line)
+                    : status == NO_WIN ? "no win" : "unknown";
+            return result + ", nodes " + nodes;
+        }
+    }
+
+    public ProofNumberSearch() {
+        this(1 << 20);
+    }
+
+    /**
+     * @param entries размер таблицы в записях (округляется вниз
+     *                до степени двойки, не меньше 2)
+     */
+    public ProofNumberSearch(int entries) {
+        int size = Integer.highestOneBit(Math.max(entries, 2));
+        this.keys = new long[size];
+        this.numbers = new long[size];
+        this.work = new long[size];
+        this.mask = size - 1;
+        for (int i = 0; i <= MAX_PLY; i++) {
+            lists[i] = new MoveList();
+        }
+    }
+
+    public Proof solve(Board position, boolean white) {
+        return solve(position, white, DEFAULT_MAX_NODES);
+    }
+
+    /**
+     * Доказывает или опровергает выигрыш стороны, чей ход.
+     *
+     * @param position доска (не меняется)
+     * @param white    ходят ли белые (они и нападают)
+     * @param maxNodes предел числа узлов
+     * @return результат с вариантом и числом узлов
+     */
+    public Proof solve(Board position, boolean white, long maxNodes) {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(work, 0L);
+        board.copyFrom(position);
+        this.nodes = 0;
+        this.maxNodes = maxNodes;
+        this.budget = maxNodes;
+        this.attacker = white;
+        mid(0, white, INFINITY - 1, INFINITY - 1);
+        int status = lastPn == 0 ? WIN : lastDn == 0 ? NO_WIN : UNKNOWN;
+        String[] line = status == WIN ? winningLine(position, white)
+                : new String[0];
+        return new Proof(status, line, nodes);
+    }
+
+    /**
+     * Раскрытие узла, пока его числа не превысят пороги.
+     */
+    private void mid(int ply, boolean white, int thresholdPn,
+                     int thresholdDn) {
+        nodes++;
+        long startNodes = nodes;
+        long key = board.key(white);
+        boolean or = white == attacker;
+        MoveList list = lists[ply];
+        int count = generator.generate(board, white, list);
+        if (count == 0) {
+            // нет ходов - проигрыш того, чей ход
+            setLast(or ? INFINITY : 0, or ? 0 : INFINITY, false);
+            store(key, lastPn, lastDn, 1);
+            return;
+        }
+        if (ply == MAX_PLY || repeats(ply, key)) {
+            // не записывается: на другом пути позиция может выигрываться
+            setLast(INFINITY, 0, true);
+            return;
+        }
+        pathKeys[ply] = key;
+        long[] cached = children[ply];
+        boolean[] dependent = pathDependent[ply];
+        Arrays.fill(cached, 0, count, UNKNOWN_NUMBERS);
+        Arrays.fill(dependent, 0, count, false);
+        // если предел узлов уже исчерпан, узел остаётся неизвестным
+        int pn = 1;
+        int dn = 1;
+        boolean pathDependentDn = false;
+        while (nodes < maxNodes) {
+            int best = -1;
+            int bestValue = INFINITY + 1;
+            int second = INFINITY;
+            int bestPn = 0;
+            int bestDn = 0;
+            pn = or ? INFINITY : 0;
+            dn = or ? 0 : INFINITY;
+            // опровержение ИЛИ-узла зависит от пути, если от него зависит
+            // опровержение хоть одного ребёнка, И-узла - если всех
+            // опровергнутых детей
+            boolean anyDependent = false;
+            boolean anyIndependent = false;
+            for (int i = 0; i < count; i++) {
+                board.makeMove(list.get(i));
+                long childKey = board.key(!white);
+                board.unmakeMove();
+                int childPn;
+                int childDn;
+                boolean childDependent;
+                if (ply + 1 == MAX_PLY || repeats(ply + 1, childKey)) {
+                    childPn = INFINITY;
+                    childDn = 0;
+                    childDependent = true;
+                } else {
+                    // опровержение через повтор в таблицу не попадает,
+                    // и там может остаться старая запись ребёнка
+                    int slot = dependent[i] ? -1 : slot(childKey);
+                    long known = slot < 0 ? cached[i] : numbers[slot];
+                    childPn = (int) (known >>> 32);
+                    childDn = (int) (known & LOW);
+                    childDependent = dependent[i];
+                }
+                if (childDn == 0) {
+                    if (childDependent) {
+                        anyDependent = true;
+                    } else {
+                        anyIndependent = true;
+                    }
+                }
+                int value;
+                if (or) {
+                    pn = Math.min(pn, childPn);
+                    dn = Math.min(INFINITY, dn + childDn);
+                    value = childPn;
+                } else {
+                    pn = Math.min(INFINITY, pn + childPn);
+                    dn = Math.min(dn, childDn);
+                    value = childDn;
+                }
+                if (value < bestValue) {
+                    second = bestValue;
+                    bestValue = value;
+                    best = i;
+                    bestPn = childPn;
+                    bestDn = childDn;
+                } else if (value < second) {
+                    second = value;
+                }
+            }
+            pathDependentDn = dn == 0
+                    && (or ? anyDependent : !anyIndependent);
+            if (pn >= thresholdPn || dn >= thresholdDn) {
+                break;
+            }
+            int childPn;
+            int childDn;
+            if (or) {
+                childPn = Math.min(thresholdPn, second + 1);
+                childDn = Math.min(INFINITY - 1, thresholdDn - dn + bestDn);
+            } else {
+                childPn = Math.min(INFINITY - 1, thresholdPn - pn + bestPn);
+                childDn = Math.min(thresholdDn, second + 1);
+            }
+            board.makeMove(list.get(best));
+            mid(ply + 1, !white, childPn, childDn);
+            board.unmakeMove();
+            cached[best] = ((long) lastPn << 32) | lastDn;
+            dependent[best] = lastPathDependent;
+        }
+        setLast(pn, dn, pathDependentDn);
+        if (!pathDependentDn) {
+            store(key, pn, dn, nodes - startNodes + 1);
+        }
+    }
+
+    private boolean repeats(int ply, long key) {
+        for (int i = ply - 2; i >= 0; i -= 2) {
+            if (pathKeys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void setLast(int pn, int dn, boolean pathDependent) {
+        lastPn = pn;
+        lastDn = dn;
+        lastPathDependent = pathDependent;
+    }
+
+    private void store(long key, int pn, int dn, long amount) {
+        int index = (int) key & mask & ~1;
+        int slot = slot(key);
+        if (slot < 0) {
+            // вытесняется запись, под которой меньше работы
+            slot = work[index] <= work[index + 1] ? index : index + 1;
+            work[slot] = 0;
+        }
+        keys[slot] = key;
+        numbers[slot] = ((long) pn << 32) | dn;
+        work[slot] += amount;
+    }
+
+    /**
+     * Вариант по таблице: нападающий идёт в доказанную позицию,
+     * защита - туда, где на доказательство ушло больше всего работы.
+     * Если доказанная позиция вытеснена из таблицы, она решается заново.
+     */
+    private String[] winningLine(Board position, boolean white) {
+        Board line = new Board();
+        line.copyFrom(position);
+        MoveList list = new MoveList();
+        List<String> moves = new ArrayList<>();
+        boolean side = white;
+        while (moves.size() < MAX_PLY) {
+            int count = generator.generate(line, side, list);
+            if (count == 0) {
+                break;
+            }
+            int chosen = proven(line, side, list, count);
+            if (chosen < 0 && side == attacker) {
+                // доказательство вытеснено из таблицы: решаем заново
+                board.copyFrom(line);
+                maxNodes = nodes + budget;
+                mid(0, side, INFINITY - 1, INFINITY - 1);
+                chosen = proven(line, side, list, count);
+            }
+            if (chosen < 0) {
+                break;
+            }
+            moves.add(list.notation(chosen));
+            line.makeMove(list.get(chosen));
+            side = !side;
+        }
+        return moves.toArray(new String[0]);
+    }
+
+    /**
+     * @return ход в доказанную позицию (для защиты - с наибольшей
+     * работой) или -1
+     */
+    private int proven(Board line, boolean side, MoveList list, int count) {
+        int chosen = -1;
+        long chosenWork = -1;
+        for (int i = 0; i < count; i++) {
+            line.makeMove(list.get(i));
+            long key = line.key(!side);
+            line.unmakeMove();
+            int slot = slot(key);
+            if (slot < 0 || numbers[slot] >>> 32 != 0) {
+                continue;
+            }
+            if (side == attacker) {
+                return i;
+            }
+            if (work[slot] > chosenWork) {
+                chosen = i;
+                chosenWork = work[slot];
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * @return номер записи позиции или -1, если её нет в таблице
+     */
+    private int slot(long key) {
+        int index = (int) key & mask & ~1;
+        for (int i = index; i < index + 2; i++) {
+            if (keys[i] == key && work[i] != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,119 @@
+package ru.ellen.engine;
+
+import ru.ellen.Board;
+import ru.ellen.Play;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Проверка файла задач "ход белых, выигрыш" решателем
+ * {@link ProofNumberSearch}.
+ * <p>
+ * Задача - две строки, как первые две строки входа {@link Play}:
+ * белые и чёрные фигуры. Пустые строки и строки с '#' пропускаются.
+ * Задачи решаются параллельно, у каждого потока свой решатель со своей
+ * таблицей; результаты печатаются в порядке файла.
+ * <p>
+ * Запуск: {@code PuzzleSolver <файл> [потоки] [предел узлов]}.
+ */
+public final class PuzzleSolver {
+    private PuzzleSolver() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("usage: PuzzleSolver <file> [threads] [nodes]");
+            return;
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        long maxNodes = args.length > 2 ? Long.parseLong(args[2])
+                : ProofNumberSearch.DEFAULT_MAX_NODES;
+        try (BufferedReader reader = Files.newBufferedReader(
+                Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            solve(read(reader), threads, maxNodes, System.out);
+        }
+    }
+
+    /**
+     * Задачи файла: пары строк белых и чёрных.
+     *
+     * @param reader источник строк
+     * @return по две строки на задачу
+     */
+    static List<String[]> read(BufferedReader reader) throws IOException {
+        List<String[]> puzzles = new ArrayList<>();
+        String white = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (white == null) {
+                white = line;
+            } else {
+                puzzles.add(new String[]{white, line});
+                white = null;
+            }
+        }
+        return puzzles;
+    }
+
+    /**
+     * Решает задачи на нескольких потоках и печатает результаты.
+     *
+     * @param puzzles  строки белых и чёрных каждой задачи
+     * @param threads  число потоков
+     * @param maxNodes предел узлов на задачу
+     * @param out      поток вывода
+     * @return результаты в порядке задач
+     */
+    static List<ProofNumberSearch.Proof> solve(List<String[]> puzzles,
+                                               int threads, long maxNodes,
+                                               PrintStream out) {
+        ThreadLocal<ProofNumberSearch> solvers =
+                ThreadLocal.withInitial(ProofNumberSearch::new);
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, threads));
+        try {
+            List<Future<ProofNumberSearch.Proof>> futures = new ArrayList<>();
+            for (String[] puzzle : puzzles) {
+                futures.add(executor.submit(() -> solvers.get().solve(
+                        Board.fromText(puzzle[0], puzzle[1]), true,
+                        maxNodes)));
+            }
+            List<ProofNumberSearch.Proof> proofs = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                ProofNumberSearch.Proof proof = await(futures.get(i));
+                proofs.add(proof);
+                out.println((i + 1) + ": " + proof);
+            }
+            return proofs;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static ProofNumberSearch.Proof await(
+            Future<ProofNumberSearch.Proof> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("solver failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ru.ellen.engine;
+
+import ru.ellen.Board;
+import ru.ellen.Move;
+import ru.ellen.MoveGenerator;
+import ru.ellen.MoveList;
+
+/**
+ * Случайная партия до конца для {@link MonteCarloSearch}.
+ * Ход выбирается равновероятно среди ходов {@link MoveGenerator},
+ * поэтому правило обязательного взятия (как в {@link ru.ellen.MoveValidation})
+ * соблюдается само собой. Генератор случайных чисел - xorshift
+ * в поле long, ходы пишутся в свой {@link MoveList}: партия
+ * не выделяет память. Экземпляр нужен свой каждому потоку.
+ */
+public final class RandomPlayout {
+    /**
+     * Результат партии в полуочках: выигрыш, ничья, проигрыш.
+     */
+    public static final int WIN = 2;
+    public static final int DRAW = 1;
+    public static final int LOSS = 0;
+    /**
+     * Партия длиннее этого числа полуходов считается ничьей
+     * (дамки могут ходить бесконечно).
+     */
+    public static final int MAX_PLIES = 150;
+
+    private final MoveGenerator generator = new MoveGenerator();
+    private final MoveList list = new MoveList();
+    private long seed;
+
+    /**
+     * @param seed начальное состояние генератора (любое)
+     */
+    public RandomPlayout(long seed) {
+        // у xorshift нулевое состояние запрещено
+        this.seed = seed == 0 ? 0x9E3779B97F4A7C15L : seed;
+    }
+
+    /**
+     * Случайный допустимый ход.
+     *
+     * @param board доска
+     * @param white ходят ли белые
+     * @return ход или {@link Move#NONE}, если ходов нет
+     */
+    public long pick(Board board, boolean white) {
+        int count = generator.generate(board, white, list);
+        return count == 0 ? Move.NONE : list.get(nextInt(count));
+    }
+
+    /**
+     * Доигрывает партию случайными ходами; доска меняется.
+     *
+     * @param board доска
+     * @param white ходят ли белые
+     * @return результат для стороны white: {@link #WIN}, {@link #DRAW}
+     * или {@link #LOSS}
+     */
+    public int play(Board board, boolean white) {
+        boolean side = white;
+        for (int ply = 0; ply < MAX_PLIES; ply++) {
+            long move = pick(board, side);
+            if (move == Move.NONE) {
+                // нет ходов - проигрыш того, чей ход
+                return side == white ? LOSS : WIN;
+            }
+            board.apply(move);
+            side = !side;
+        }
+        return DRAW;
+    }
+
+    /**
+     * @param bound верхняя граница (не включая)
+     * @return равномерное число от 0 до bound - 1
+     */
+    int nextInt(int bound) {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) (((seed >>> 32) * bound) >>> 32);
+    }
+}
@@ -0,0 +1,651 @@
+package ru.ellen.engine;
+
+import ru.ellen.Board;
+import ru.ellen.Move;
+import ru.ellen.MoveGenerator;
+import ru.ellen.MoveList;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Поиск лучшего хода: negamax с альфа-бета отсечением и итеративным
+ * углублением. Главный вариант предыдущей итерации перебирается
+ * первым, остальные ходы проверяются нулевым окном (PVS).
+ * Результаты узлов сохраняются в {@link TranspositionTable}: она даёт
+ * и отсечения в повторяющихся позициях, и лучший ход для сортировки.
+ * На горизонте поиск не останавливается посреди размена: пока у стороны
+ * есть обязательное взятие, перебираются только взятия (quiescence).
+ * Тихие ходы сортируются ходами-убийцами и таблицей истории
+ * ({@link MoveOrdering}), своими у каждого экземпляра.
+ * <p>
+ * Доска во время поиска меняется через
+ * {@link Board#makeMove(long)} / {@link Board#unmakeMove()}, буферы
+ * ходов выделены заранее, так что сам перебор память не выделяет.
+ * Экземпляр не потокобезопасен, но его можно остановить из другого
+ * потока через {@link #stop()} или ограничить по времени
+ * ({@link #search(Board, boolean, int, long)}): тогда возвращается
+ * результат последней завершённой итерации.
+ */
+public final class Search {
+    /**
+     * Оценка выигранной позиции (за вычетом числа полуходов до выигрыша).
+     */
+    public static final int WIN = 30000;
+    public static final int INFINITY = 32000;
+    public static final int MAX_PLY = 64;
+    /**
+     * Размер таблицы транспозиций по умолчанию, МБ.
+     */
+    public static final int DEFAULT_TABLE_MB = 16;
+    /**
+     * Поиск без ограничения по времени.
+     */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+    // флаг остановки и время проверяются раз в 64 узла (около 0.1 мс);
+    // System.nanoTime на фоне генерации ходов почти ничего не стоит
+    private static final int CHECK_MASK = 63;
+
+    private final MoveGenerator generator = new MoveGenerator();
+    private final MoveList[] lists = new MoveList[MAX_PLY + 1];
+    private final long[][] pv = new long[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private final Board board = new Board();
+    // главный вариант последней завершённой итерации: по нему
+    // упорядочивается следующая
+    private final long[] completedPv = new long[MAX_PLY + 1];
+    private int completedLength;
+    // первые ходы, перебранные итерацией на каждом полуходе, и сколько
+    // из них поставил первыми главный вариант прошлой итерации
+    private final long[] firstMoves = new long[MAX_PLY + 1];
+    private int firstLength;
+    private int pvPlies;
+    private final TranspositionTable table;
+    private final MoveOrdering ordering = new MoveOrdering();
+    private final AtomicBoolean stop;
+    private final boolean ownsStop;
+    private final int helper;
+    private long nodes;
+    private boolean followPv;
+    private boolean aborted;
+    private boolean quiescence = true;
+    private volatile long deadline = NO_DEADLINE;
+    // когда назначен срок: от этого момента считается половина времени
+    private volatile long budgetStart;
+
+    public Search() {
+        this(new TranspositionTable(DEFAULT_TABLE_MB));
+    }
+
+    /**
+     * @param table таблица транспозиций (может быть общей для потоков)
+     */
+    public Search(TranspositionTable table) {
+        this(table, new AtomicBoolean(), 0, true);
+    }
+
+    /**
+     * Поиск в составе {@link SmpSearch}: флаг остановки и поколения
+     * таблицы ведёт владелец.
+     *
+     * @param table  общая таблица транспозиций
+     * @param stop   общий флаг остановки
+     * @param helper номер потока (0 - главный)
+     */
+    Search(TranspositionTable table, AtomicBoolean stop, int helper) {
+        this(table, stop, helper, false);
+    }
+
+    private Search(TranspositionTable table, AtomicBoolean stop, int helper,
+                   boolean ownsStop) {
+        this.table = table;
+        this.stop = stop;
+        this.helper = helper;
+        this.ownsStop = ownsStop;
+        for (int i = 0; i <= MAX_PLY; i++) {
+            lists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Итеративное углубление до глубины maxDepth.
+     *
+     * @param position доска (не меняется)
+     * @param white    ходят ли белые
+     * @param maxDepth глубина в полуходах (от 1 до {@link #MAX_PLY})
+     * @return результат последней итерации
+     */
+    public SearchResult search(Board position, boolean white, int maxDepth) {
+        return search(position, white, maxDepth, NO_DEADLINE);
+    }
+
+    /**
+     * Поиск с ограничением по времени: итерации углубляются, пока
+     * не наступит срок, и возвращается лучший ход последней завершённой
+     * итерации. Новая итерация не начинается, если прошло больше
+     * половины срока: закончить её всё равно почти наверняка не успеть.
+     * <p>
+     * Срок проверяется раз в 64 узла, поэтому после срока поиск
+     * работает не больше миллисекунды процессорного времени. По
+     * настенным часам это не гарантируется: если поток снят с
+     * процессора, возврат опаздывает ещё на время простоя.
+     *
+     * @param position доска (не меняется)
+     * @param white    ходят ли белые
+     * @param maxDepth предельная глубина
+     * @param deadline срок по {@link System#nanoTime()}
+     *                 или {@link #NO_DEADLINE}
+     * @return результат последней завершённой итерации; если не успела
+     * ни одна, лучший из уже просмотренных ходов корня
+     */
+    public SearchResult search(Board position, boolean white, int maxDepth,
+                               long deadline) {
+        begin(position, deadline);
+        int score = 0;
+        int depth = 0;
+        int lastDepth = Math.min(maxDepth, MAX_PLY);
+        for (int iteration = 1; iteration <= lastDepth; iteration++) {
+            // вспомогательные потоки через один идут на полуход глубже
+            int d = Math.min(iteration + (helper & 1), lastDepth);
+            followPv = true;
+            firstLength = 0;
+            pvPlies = 0;
+            int result = negamax(0, white, d, -INFINITY, INFINITY);
+            if (aborted) {
+                break;
+            }
+            score = result;
+            depth = d;
+            completedLength = pvLength[0];
+            System.arraycopy(pv[0], 0, completedPv, 0, completedLength);
+            if (completedLength == 0 || Math.abs(score) >= WIN - MAX_PLY
+                    || d == lastDepth || pastHalf()) {
+                // ходов нет, выигрыш уже найден, глубина достигнута
+                // или на следующую итерацию не хватит времени
+                break;
+            }
+        }
+        if (completedLength == 0 && aborted) {
+            completedLength = fallback(white);
+        }
+        long best = completedLength > 0 ? completedPv[0] : Move.NONE;
+        return new SearchResult(best, score, depth, nodes, principalVariation(
+                position, white, completedPv, completedLength));
+    }
+
+    /**
+     * Анализ нескольких лучших ходов (multi-PV) за одно итеративное
+     * углубление.
+     *
+     * @param position доска (не меняется)
+     * @param white    ходят ли белые
+     * @param maxDepth глубина в полуходах
+     * @param lines    сколько лучших ходов нужно
+     * @return варианты по убыванию оценки
+     * @see #analyze(Board, boolean, int, int, long)
+     */
+    public SearchResult[] analyze(Board position, boolean white, int maxDepth,
+                                  int lines) {
+        return analyze(position, white, maxDepth, lines, NO_DEADLINE);
+    }
+
+    /**
+     * Анализ нескольких лучших ходов за одно итеративное углубление.
+     * В корне первые lines ходов (в порядке прошлой итерации) считаются
+     * с полным окном, остальные - нулевым окном относительно худшего
+     * из найденных вариантов и пересчитываются, только если оказались
+     * лучше него. Глубже корня это обычный поиск с общей таблицей,
+     * поэтому варианты не пересчитывают заново одни и те же позиции.
+     *
+     * @param position доска (не меняется)
+     * @param white    ходят ли белые
+     * @param maxDepth предельная глубина
+     * @param lines    сколько лучших ходов нужно
+     * @param deadline срок по {@link System#nanoTime()}
+     *                 или {@link #NO_DEADLINE}
+     * @return варианты последней завершённой итерации по убыванию
+     * оценки (не больше числа ходов; пустой массив, если ходов нет)
+     */
+    public SearchResult[] analyze(Board position, boolean white, int maxDepth,
+                                  int lines, long deadline) {
+        if (lines < 1) {
+            throw new IllegalArgumentException("lines must be positive");
+        }
+        begin(position, deadline);
+        followPv = false;
+        MoveList list = lists[0];
+        int count = generator.generate(board, white, list);
+        long[] moves = new long[count];
+        int[] order = new int[count];
+        int[] scores = new int[count];
+        long[][] variations = new long[count][MAX_PLY + 1];
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            moves[i] = list.get(i);
+            order[i] = i;
+            variations[i][0] = moves[i];
+            lengths[i] = 1;
+        }
+        int k = Math.min(lines, count);
+        int[] top = new int[k];
+        int depth = 0;
+        int[] completedScores = new int[k];
+        long[][] completedLines = new long[k][];
+        int lastDepth = Math.min(maxDepth, MAX_PLY);
+        for (int d = 1; d <= lastDepth && k > 0; d++) {
+            for (int n = 0; n < count && !aborted; n++) {
+                int index = order[n];
+                board.makeMove(moves[index]);
+                int score;
+                if (n < k) {
+                    score = -negamax(1, !white, d - 1, -INFINITY, INFINITY);
+                } else {
+                    // хватит ли хода, чтобы войти в число лучших
+                    int alpha = top[k - 1];
+                    score = -negamax(1, !white, d - 1, -alpha - 1, -alpha);
+                    if (score > alpha && !aborted) {
+                        score = -negamax(1, !white, d - 1,
+                                -INFINITY, -alpha);
+                    }
+                }
+                board.unmakeMove();
+                if (aborted) {
+                    break;
+                }
+                scores[index] = score;
+                int length = pvLength[1];
+                System.arraycopy(pv[1], 1, variations[index], 1,
+                        Math.max(length - 1, 0));
+                lengths[index] = Math.max(length, 1);
+                insertTop(top, Math.min(n, k), score);
+            }
+            if (aborted) {
+                break;
+            }
+            sortByScore(order, scores);
+            depth = d;
+            for (int i = 0; i < k; i++) {
+                completedScores[i] = scores[order[i]];
+                completedLines[i] = Arrays.copyOf(
+                        variations[order[i]], lengths[order[i]]);
+            }
+            if (pastHalf()) {
+                break;
+            }
+        }
+        SearchResult[] result = new SearchResult[k];
+        for (int i = 0; i < k; i++) {
+            // не успела ни одна итерация: ходы в порядке генератора
+            long[] line = depth > 0 ? completedLines[i]
+                    : new long[]{moves[i]};
+            result[i] = new SearchResult(line[0],
+                    depth > 0 ? completedScores[i] : 0, depth, nodes,
+                    principalVariation(position, white, line, line.length));
+        }
+        return result;
+    }
+
+    private void begin(Board position, long deadline) {
+        budgetStart = System.nanoTime();
+        this.deadline = deadline;
+        board.copyFrom(position);
+        if (ownsStop) {
+            stop.set(false);
+            table.newSearch();
+        }
+        ordering.newSearch();
+        nodes = 0;
+        aborted = false;
+        pvLength[0] = 0;
+        completedLength = 0;
+        firstLength = 0;
+        pvPlies = 0;
+    }
+
+    /**
+     * Вставка оценки в убывающий массив лучших оценок.
+     *
+     * @param top   лучшие оценки по убыванию
+     * @param size  сколько из них уже заполнено
+     * @param score новая оценка
+     */
+    private static void insertTop(int[] top, int size, int score) {
+        int i = Math.min(size, top.length - 1);
+        if (size == top.length && score <= top[i]) {
+            return;
+        }
+        while (i > 0 && top[i - 1] < score) {
+            top[i] = top[i - 1];
+            i--;
+        }
+        top[i] = score;
+    }
+
+    /**
+     * Устойчивая сортировка ходов корня по убыванию оценки.
+     */
+    private static void sortByScore(int[] order, int[] scores) {
+        for (int i = 1; i < order.length; i++) {
+            int index = order[i];
+            int j = i;
+            while (j > 0 && scores[order[j - 1]] < scores[index]) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = index;
+        }
+    }
+
+    /**
+     * Включает или выключает перебор взятий на горизонте
+     * (по умолчанию включён; выключение нужно для сравнения).
+     *
+     * @param quiescence перебирать ли взятия на горизонте
+     */
+    public void setQuiescence(boolean quiescence) {
+        this.quiescence = quiescence;
+    }
+
+    /**
+     * Включает или выключает ходы-убийцы (по умолчанию включены).
+     *
+     * @param killers сортировать ли ходами-убийцами
+     */
+    public void setKillers(boolean killers) {
+        ordering.setKillers(killers);
+    }
+
+    /**
+     * Включает или выключает таблицу истории (по умолчанию включена).
+     *
+     * @param history сортировать ли по истории
+     */
+    public void setHistory(boolean history) {
+        ordering.setHistory(history);
+    }
+
+    /**
+     * Просит поиск остановиться; безопасно вызывать из другого потока.
+     */
+    public void stop() {
+        stop.set(true);
+    }
+
+    /**
+     * Переносит срок идущего поиска; безопасно вызывать из другого потока.
+     * Половина времени, после которой итерации не начинаются, отсчитывается
+     * от момента вызова.
+     *
+     * @param deadline срок по {@link System#nanoTime()}
+     *                 или {@link #NO_DEADLINE}
+     */
+    public void setDeadline(long deadline) {
+        budgetStart = System.nanoTime();
+        this.deadline = deadline;
+    }
+
+    private boolean mustStop() {
+        long limit = deadline;
+        return stop.get()
+                || (limit != NO_DEADLINE && System.nanoTime() - limit >= 0);
+    }
+
+    private boolean pastHalf() {
+        long limit = deadline;
+        long start = budgetStart;
+        // вспомогательный поток SMP не бросает итерации заранее:
+        // его останавливает срок или главный поток
+        return helper == 0 && limit != NO_DEADLINE
+                && System.nanoTime() - start > (limit - start) / 2;
+    }
+
+    /**
+     * Не успела ни одна итерация: берём лучший из ходов корня, уже
+     * просмотренных прерванной итерацией, а если таких нет - первый ход.
+     *
+     * @return длина главного варианта (0 - ходов нет)
+     */
+    private int fallback(boolean white) {
+        if (pvLength[0] > 0) {
+            completedPv[0] = pv[0][0];
+            return 1;
+        }
+        MoveList list = lists[0];
+        if (generator.generate(board, white, list) == 0) {
+            return 0;
+        }
+        completedPv[0] = list.get(0);
+        return 1;
+    }
+
+    /**
+     * @return первые ходы, перебранные последней итерацией на каждом
+     * полуходе (для проверки порядка ходов)
+     */
+    long[] firstMoves() {
+        return Arrays.copyOf(firstMoves, firstLength);
+    }
+
+    /**
+     * @return на скольких полуходах последней итерации первым поставлен
+     * ход главного варианта прошлой
+     */
+    int pvPlies() {
+        return pvPlies;
+    }
+
+    /**
+     * @return число узлов, посещённых последним поиском
+     */
+    public long nodes() {
+        return nodes;
+    }
+
+    public TranspositionTable table() {
+        return table;
+    }
+
+    private int negamax(int ply, boolean white, int depth,
+                        int alpha, int beta) {
+        if ((++nodes & CHECK_MASK) == 0 && mustStop()) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+        pvLength[ply] = 0;
+        if (depth <= 0 || ply == MAX_PLY) {
+            followPv = false;
+            return quiescence ? quiesce(ply, white, alpha, beta)
+                    : Evaluator.evaluate(board, white);
+        }
+        long key = board.key(white);
+        long entry = table.probe(key);
+        long tableMove = Move.NONE;
+        if (entry != 0) {
+            tableMove = TranspositionTable.move(entry);
+            // в узлах главного варианта не отсекаем, чтобы не обрывать его
+            if (beta - alpha == 1 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER
+                        && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+        MoveList list = lists[ply];
+        int count = generator.generate(board, white, list);
+        if (count == 0) {
+            // нет ходов - проигрыш
+            followPv = false;
+            return -WIN + ply;
+        }
+        boolean placed = orderPv(ply, list);
+        if (!placed && tableMove != Move.NONE) {
+            int index = list.indexOf(tableMove);
+            if (index > 0) {
+                list.swap(0, index);
+            }
+            placed = index >= 0;
+        }
+        ordering.order(list, placed ? 1 : 0, ply, white);
+        if (ply == 0 && helper > 0 && count > 2) {
+            // вспомогательные потоки перебирают корень в своём порядке,
+            // чтобы не повторять работу главного
+            list.swap(1, 1 + helper % (count - 1));
+        }
+        int startAlpha = alpha;
+        long best = Move.NONE;
+        for (int i = 0; i < count; i++) {
+            long move = list.get(i);
+            if (ply == firstLength) {
+                firstMoves[firstLength++] = move;
+            }
+            board.makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -negamax(ply + 1, !white, depth - 1, -beta, -alpha);
+            } else {
+                // остальные ходы сначала проверяются нулевым окном:
+                // обычно они хуже первого, и такая проверка дешевле
+                score = -negamax(ply + 1, !white, depth - 1,
+                        -alpha - 1, -alpha);
+                if (score > alpha && score < beta) {
+                    score = -negamax(ply + 1, !white, depth - 1,
+                            -beta, -alpha);
+                }
+            }
+            board.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score > alpha) {
+                alpha = score;
+                best = move;
+                updatePv(ply, move);
+                if (alpha >= beta) {
+                    ordering.cutoff(move, ply, white, depth);
+                    break;
+                }
+            }
+        }
+        int bound = alpha >= beta ? TranspositionTable.LOWER
+                : alpha > startAlpha ? TranspositionTable.EXACT
+                : TranspositionTable.UPPER;
+        table.store(key, best, depth, bound, toTable(alpha, ply));
+        return alpha;
+    }
+
+    /**
+     * Перебор одних взятий. Бить обязательно, поэтому статическая оценка
+     * возвращается только в позиции без взятий; проверка
+     * {@link MoveGenerator#hasCapture} дешевле генерации ходов,
+     * а при взятии генерируются только взятия.
+     */
+    private int quiesce(int ply, boolean white, int alpha, int beta) {
+        if (ply == MAX_PLY || !MoveGenerator.hasCapture(board, white)) {
+            return Evaluator.evaluate(board, white);
+        }
+        MoveList list = lists[ply];
+        int count = generator.generateCaptures(board, white, list);
+        for (int i = 0; i < count; i++) {
+            board.makeMove(list.get(i));
+            if ((++nodes & CHECK_MASK) == 0 && mustStop()) {
+                aborted = true;
+            }
+            int score = aborted ? 0
+                    : -quiesce(ply + 1, !white, -beta, -alpha);
+            board.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score > alpha) {
+                alpha = score;
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Оценки выигрыша хранятся относительно узла, а не корня:
+     * одна и та же позиция встречается на разной глубине.
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= WIN - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -WIN + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= WIN - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -WIN + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Пока идём по главному варианту прошлой итерации,
+     * его ход ставится первым. Вариант берётся из сохранённой копии:
+     * pv[0] текущая итерация обнуляет, едва войдя в корень.
+     *
+     * @return поставлен ли ход главного варианта
+     */
+    private boolean orderPv(int ply, MoveList list) {
+        if (!followPv) {
+            return false;
+        }
+        if (ply < completedLength) {
+            int index = list.indexOf(completedPv[ply]);
+            if (index > 0) {
+                list.swap(0, index);
+            }
+            if (index >= 0) {
+                pvPlies = ply + 1;
+                return true;
+            }
+        }
+        followPv = false;
+        return false;
+    }
+
+    private void updatePv(int ply, long move) {
+        pv[ply][ply] = move;
+        int length = pvLength[ply + 1];
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1,
+                Math.max(length - ply - 1, 0));
+        pvLength[ply] = Math.max(length, ply + 1);
+    }
+
+    /**
+     * Главный вариант в записи {@link MoveList#notation(int)}:
+     * запись взятия зависит от пути, поэтому ход ищется
+     * в заново сгенерированном списке.
+     */
+    private String[] principalVariation(Board position, boolean white,
+                                        long[] line, int length) {
+        board.copyFrom(position);
+        MoveList list = lists[0];
+        String[] result = new String[length];
+        for (int ply = 0; ply < length; ply++) {
+            generator.generate(board, white, list);
+            int index = list.indexOf(line[ply]);
+            result[ply] = list.notation(index);
+            board.makeMove(line[ply]);
+            white = !white;
+        }
+        return result;
+    }
+}
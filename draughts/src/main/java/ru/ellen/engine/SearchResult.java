@@ -0,0 +1,63 @@
+package ru.ellen.engine;
+
+/**
+ * Результат поиска: лучший ход, оценка и главный вариант
+ * в записи, которую принимает {@link ru.ellen.Play}.
+ */
+public final class SearchResult {
+    private final long move;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final String[] principalVariation;
+
+    public SearchResult(long move, int score, int depth, long nodes,
+                        String[] principalVariation) {
+        this.move = move;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.principalVariation = principalVariation;
+    }
+
+    /**
+     * @return лучший ход ({@link ru.ellen.Move}) или
+     * {@link ru.ellen.Move#NONE}, если ходов нет
+     */
+    public long getMove() {
+        return move;
+    }
+
+    /**
+     * @return лучший ход в записи вида "c3-d4" или "c3:e5:g3",
+     * пустая строка, если ходов нет
+     */
+    public String getNotation() {
+        return principalVariation.length > 0 ? principalVariation[0] : "";
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return глубина последней завершённой итерации
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public String[] getPrincipalVariation() {
+        return principalVariation.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + depth + " score " + score + " nodes " + nodes
+                + " pv " + String.join(" ", principalVariation);
+    }
+}
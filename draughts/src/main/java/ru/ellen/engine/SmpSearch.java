@@ -0,0 +1,131 @@
+package ru.ellen.engine;
+
+import ru.ellen.Board;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Многопоточный поиск Lazy SMP: главный поток и N - 1 вспомогательных
+ * ищут одну и ту же позицию независимо, обмениваясь результатами только
+ * через общую {@link TranspositionTable}. Вспомогательные потоки
+ * через один идут на полуход глубже и перебирают корень в своём
+ * порядке, поэтому заполняют таблицу разными ветками.
+ * <p>
+ * Ответ даёт главный поток; когда он закончил, остальные
+ * останавливаются, и поиск ждёт их завершения.
+ */
+public final class SmpSearch implements AutoCloseable {
+    private final TranspositionTable table;
+    private final AtomicBoolean stop = new AtomicBoolean();
+    private final Search main;
+    private final Search[] helpers;
+    private final ExecutorService executor;
+
+    /**
+     * @param threads число потоков вместе с вызывающим (не меньше 1)
+     * @param table   общая таблица транспозиций
+     */
+    public SmpSearch(int threads, TranspositionTable table) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        this.table = table;
+        this.main = new Search(table, stop, 0);
+        this.helpers = new Search[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Search(table, stop, i + 1);
+        }
+        this.executor = helpers.length == 0 ? null
+                : Executors.newFixedThreadPool(helpers.length, runnable -> {
+            Thread thread = new Thread(runnable, "smp-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int threads() {
+        return helpers.length + 1;
+    }
+
+    public TranspositionTable table() {
+        return table;
+    }
+
+    /**
+     * Поиск до глубины maxDepth в главном потоке.
+     *
+     * @param position доска (не должна меняться до конца поиска)
+     * @param white    ходят ли белые
+     * @param maxDepth глубина в полуходах
+     * @return результат главного потока; узлы - сумма по всем потокам
+     */
+    public SearchResult search(Board position, boolean white, int maxDepth) {
+        return search(position, white, maxDepth, Search.NO_DEADLINE);
+    }
+
+    /**
+     * Поиск с ограничением по времени (см.
+     * {@link Search#search(Board, boolean, int, long)}). Срок знают все
+     * потоки: когда потоков больше, чем ядер, главный может ждать своей
+     * очереди, и тогда срок замечает тот, кто работает.
+     *
+     * @param position доска (не должна меняться до конца поиска)
+     * @param white    ходят ли белые
+     * @param maxDepth предельная глубина
+     * @param deadline срок по {@link System#nanoTime()}
+     * @return результат главного потока
+     */
+    public SearchResult search(Board position, boolean white, int maxDepth,
+                               long deadline) {
+        stop.set(false);
+        table.newSearch();
+        Future<?>[] futures = new Future<?>[helpers.length];
+        for (int i = 0; i < helpers.length; i++) {
+            Search helper = helpers[i];
+            futures[i] = executor.submit(() ->
+                    helper.search(position, white, Search.MAX_PLY,
+                            deadline));
+        }
+        SearchResult result = main.search(position, white, maxDepth,
+                deadline);
+        stop.set(true);
+        long nodes = result.getNodes();
+        for (int i = 0; i < futures.length; i++) {
+            await(futures[i]);
+            nodes += helpers[i].nodes();
+        }
+        return new SearchResult(result.getMove(), result.getScore(),
+                result.getDepth(), nodes, result.getPrincipalVariation());
+    }
+
+    /**
+     * Останавливает текущий поиск (его результат - последняя
+     * завершённая итерация); безопасно вызывать из другого потока.
+     */
+    public void stop() {
+        stop.set(true);
+    }
+
+    @Override
+    public void close() {
+        stop.set(true);
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("helper search failed",
+                    e.getCause());
+        }
+    }
+}
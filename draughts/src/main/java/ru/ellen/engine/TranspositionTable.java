@@ -0,0 +1,240 @@
+package ru.ellen.engine;
+
+import ru.ellen.Board;
+import ru.ellen.Move;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Таблица транспозиций фиксированного размера вне кучи Java
+ * (direct-буфер), общая для всех потоков поиска.
+ * <p>
+ * Запись - 16 байт, два long: {@code key ^ data} и {@code data}.
+ * Блокировок нет: читатель проверяет, что XOR двух слов даёт ключ,
+ * поэтому запись, наполовину перезаписанная другим потоком,
+ * просто считается промахом.
+ * <pre>
+ * data: биты 0-29  - ход (см. ниже),
+ *       биты 30-45 - оценка (16 бит со знаком),
+ *       биты 46-52 - глубина,
+ *       биты 53-54 - тип оценки ({@link #EXACT}, {@link #LOWER}, {@link #UPPER}),
+ *       биты 55-62 - поколение поиска.
+ * ход:  биты 0-11 как в {@link Move}, биты 12-29 - побитые фигуры
+ *       на 18 внутренних полях (на краю доски фигуру побить нельзя).
+ * </pre>
+ */
+public final class TranspositionTable {
+    public static final int EXACT = 1;
+    /**
+     * Оценка не меньше сохранённой (было отсечение).
+     */
+    public static final int LOWER = 2;
+    /**
+     * Оценка не больше сохранённой (ни один ход не улучшил альфу).
+     */
+    public static final int UPPER = 3;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final long BYTES_PER_MB = 1L << 20;
+    // один direct-буфер не больше 1 ГБ
+    private static final long MAX_ENTRIES = 1L << 26;
+
+    private static final int MOVE_BITS = 30;
+    private static final int MOVE_HEAD_BITS = 12;
+    private static final int SCORE_SHIFT = 30;
+    private static final int DEPTH_SHIFT = 46;
+    private static final int BOUND_SHIFT = 53;
+    private static final int AGE_SHIFT = 55;
+    private static final long MOVE_MASK = (1L << MOVE_BITS) - 1;
+    private static final int MOVE_HEAD_MASK = (1 << MOVE_HEAD_BITS) - 1;
+    private static final int DEPTH_MASK = 0x7F;
+    private static final int BOUND_MASK = 0x3;
+    private static final int AGE_MASK = 0xFF;
+
+    // внутренние поля доски и их номера в упакованной маске
+    private static final int[] INNER_SQUARES;
+    private static final int[] INNER_INDEX = new int[Board.SQUARES];
+
+    static {
+        int edge = 0x0000000F | 0xF0000000;
+        for (int row = 0; row < 8; row++) {
+            // крайняя левая (a) или крайняя правая (h) клетка горизонтали
+            edge |= Board.bit(row * 4 + ((row & 1) == 0 ? 0 : 3));
+        }
+        int inner = ~edge;
+        INNER_SQUARES = new int[Integer.bitCount(inner)];
+        int index = 0;
+        for (int square = 0; square < Board.SQUARES; square++) {
+            INNER_INDEX[square] = -1;
+            if ((inner & Board.bit(square)) != 0) {
+                INNER_INDEX[square] = index;
+                INNER_SQUARES[index++] = square;
+            }
+        }
+    }
+
+    private final LongBuffer entries;
+    private final int mask;
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder filled = new LongAdder();
+    private volatile int age;
+
+    /**
+     * @param megabytes размер таблицы; число записей округляется вниз
+     *                  до степени двойки (не больше 2^26)
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("size must be at least 1 MB");
+        }
+        long count = Math.min(MAX_ENTRIES,
+                Long.highestOneBit(megabytes * BYTES_PER_MB / ENTRY_BYTES));
+        this.entries = ByteBuffer.allocateDirect((int) (count * ENTRY_BYTES))
+                .order(ByteOrder.nativeOrder()).asLongBuffer();
+        this.mask = (int) count - 1;
+    }
+
+    /**
+     * @return число записей
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Начало нового поиска: записи прошлых поисков вытесняются первыми.
+     */
+    public void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /**
+     * Очистка таблицы и счётчиков.
+     */
+    public void clear() {
+        for (int i = 0; i < entries.capacity(); i++) {
+            entries.put(i, 0L);
+        }
+        probes.reset();
+        hits.reset();
+        filled.reset();
+    }
+
+    /**
+     * @param key ключ позиции
+     * @return данные записи или 0, если позиции в таблице нет
+     */
+    public long probe(long key) {
+        int index = ((int) key & mask) << 1;
+        long data = entries.get(index + 1);
+        probes.increment();
+        if (data == 0 || (entries.get(index) ^ data) != key) {
+            return 0;
+        }
+        hits.increment();
+        return data;
+    }
+
+    /**
+     * Сохранение результата. Запись другой позиции вытесняется,
+     * если она из прошлого поиска или посчитана не глубже новой.
+     *
+     * @param key   ключ позиции
+     * @param move  лучший ход или {@link Move#NONE}
+     * @param depth глубина (0-127)
+     * @param bound тип оценки
+     * @param score оценка (помещающаяся в short)
+     */
+    public void store(long key, long move, int depth, int bound, int score) {
+        int index = ((int) key & mask) << 1;
+        long oldData = entries.get(index + 1);
+        if (oldData != 0) {
+            boolean same = (entries.get(index) ^ oldData) == key;
+            if (!same && age(oldData) == age && depth(oldData) > depth) {
+                return;
+            }
+            if (same && move == Move.NONE) {
+                // ход из прежней записи всё ещё полезен для сортировки
+                move = move(oldData);
+            }
+        } else {
+            filled.increment();
+        }
+        long data = pack(move)
+                | ((long) (score & 0xFFFF) << SCORE_SHIFT)
+                | ((long) (depth & DEPTH_MASK) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) age << AGE_SHIFT);
+        entries.put(index, key ^ data);
+        entries.put(index + 1, data);
+    }
+
+    public static long move(long data) {
+        return unpack(data & MOVE_MASK);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> SCORE_SHIFT);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & DEPTH_MASK;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & BOUND_MASK;
+    }
+
+    private static int age(long data) {
+        return (int) (data >>> AGE_SHIFT) & AGE_MASK;
+    }
+
+    /**
+     * @return доля успешных обращений к таблице
+     */
+    public double hitRate() {
+        long count = probes.sum();
+        return count == 0 ? 0 : (double) hits.sum() / count;
+    }
+
+    /**
+     * @return доля занятых записей
+     */
+    public double fillRate() {
+        return Math.min(1.0, (double) filled.sum() / capacity());
+    }
+
+    public long probes() {
+        return probes.sum();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    private static long pack(long move) {
+        long packed = move & MOVE_HEAD_MASK;
+        int captures = Move.captures(move);
+        while (captures != 0) {
+            int square = Integer.numberOfTrailingZeros(captures);
+            captures &= captures - 1;
+            packed |= 1L << (MOVE_HEAD_BITS + INNER_INDEX[square]);
+        }
+        return packed;
+    }
+
+    private static long unpack(long packed) {
+        long move = packed & MOVE_HEAD_MASK;
+        long inner = packed >>> MOVE_HEAD_BITS;
+        while (inner != 0) {
+            int index = Long.numberOfTrailingZeros(inner);
+            inner &= inner - 1;
+            move |= (long) Board.bit(INNER_SQUARES[index]) << 32;
+        }
+        return move;
+    }
+}
@@ -8,4 +8,13 @@ public class InvalidMoveException extends Exception {
     public InvalidMoveException(String message) {
         super(message);
     }
+
+    /**
+     * @param message            сообщение
+     * @param writableStackTrace заполнять ли стек вызовов; без стека
+     *                           исключение создаётся намного дешевле
+     */
+    public InvalidMoveException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
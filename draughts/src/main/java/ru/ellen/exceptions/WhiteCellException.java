@@ -7,4 +7,13 @@ public class WhiteCellException extends Exception {
     public WhiteCellException(String message) {
         super(message);
     }
+
+    /**
+     * @param message            сообщение
+     * @param writableStackTrace заполнять ли стек вызовов; без стека
+     *                           исключение создаётся намного дешевле
+     */
+    public WhiteCellException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
@@ -0,0 +1,228 @@
+package ru.ellen.tablebase;
+
+import ru.ellen.Board;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Сжатая таблица выигрыш/ничья/проигрыш одного материала, читаемая
+ * прямо из отображённого в память файла.
+ * <p>
+ * Позиции нумеруются так же, как в {@link Slice}: номер расстановки
+ * {@link Material} по 32 тёмным полям, сначала ход белых, потом чёрных.
+ * На позицию два бита ({@link Slice#DRAW}, {@link Slice#WIN},
+ * {@link Slice#LOSS}). Позиции идут блоками по {@link #BLOCK}; блок
+ * хранится либо упакованным по четыре позиции в байт, либо сериями
+ * (байт: значение в младших двух битах, длина серии минус один в
+ * старших шести) - что короче. Недопустимые номера получают значение
+ * соседа, чтобы не рвать серии, и при чтении дают что угодно.
+ * <p>
+ * Файл: "DWB1", четыре байта материала, число расстановок, число
+ * блоков, смещения начала каждого блока и конца последнего (int от
+ * начала данных), затем блоки. При открытии читается только заголовок.
+ * <p>
+ * Проба не выделяет памяти: она читает смещение блока, затем в
+ * упакованном блоке - один байт, а в блоке серий - серии по порядку до
+ * нужной позиции. Индекса внутри блока нет. Блок пишется сериями,
+ * только если они короче упакованного ({@link #BLOCK} / 4 = 256 байт),
+ * поэтому в худшем случае проба просматривает 255 байт подряд, то есть
+ * четыре строки кэша. В блоках с длинными сериями это единицы байт.
+ */
+public final class Bitbase {
+    public static final int BLOCK = 1024;
+    private static final int BLOCK_SHIFT = 10;
+    private static final int MAGIC = 0x44574231;
+    private static final int HEADER = 16;
+    private static final byte PACKED = 0;
+    private static final byte RUNS = 1;
+    private static final int MAX_RUN = 64;
+
+    private final Material material;
+    private final ByteBuffer buffer;
+    private final int data;
+
+    private Bitbase(Material material, ByteBuffer buffer, int data) {
+        this.material = material;
+        this.buffer = buffer;
+        this.data = data;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println(
+                    "usage: Bitbase <tablebase directory> <directory>");
+            return;
+        }
+        Path target = Paths.get(args[1]);
+        Files.createDirectories(target);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(
+                Paths.get(args[0]), "*.tb")) {
+            for (Path file : files) {
+                Slice slice = Slice.read(file);
+                Path out = path(target, slice.material());
+                write(slice, out);
+                System.out.printf("%s: %d positions, %d bytes%n",
+                        slice.material(), slice.results.length,
+                        Files.size(out));
+            }
+        }
+    }
+
+    /**
+     * @param directory каталог
+     * @param material  материал
+     * @return файл таблицы материала в каталоге
+     */
+    public static Path path(Path directory, Material material) {
+        return directory.resolve(material.signature() + ".wdl");
+    }
+
+    /**
+     * Сжимает результаты таблицы в файл.
+     *
+     * @param slice посчитанная таблица
+     * @param file  файл
+     */
+    public static void write(Slice slice, Path file) throws IOException {
+        byte[] values = slice.results.clone();
+        // недопустимые номера повторяют предыдущее значение
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == Slice.INVALID) {
+                values[i] = i > 0 ? values[i - 1] : Slice.DRAW;
+            }
+        }
+        int blocks = (values.length + BLOCK - 1) >>> BLOCK_SHIFT;
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int[] offsets = new int[blocks + 1];
+        for (int block = 0; block < blocks; block++) {
+            offsets[block] = body.size();
+            int from = block << BLOCK_SHIFT;
+            int to = Math.min(values.length, from + BLOCK);
+            byte[] runs = runs(values, from, to);
+            if (runs.length < (to - from + 3) / 4) {
+                body.write(RUNS);
+                body.write(runs);
+            } else {
+                body.write(PACKED);
+                body.write(packed(values, from, to));
+            }
+        }
+        offsets[blocks] = body.size();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.write(slice.material().signature().getBytes("US-ASCII"));
+            out.writeInt(slice.material().size());
+            out.writeInt(blocks);
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            body.writeTo(out);
+        }
+    }
+
+    private static byte[] runs(byte[] values, int from, int to) {
+        ByteArrayOutputStream runs = new ByteArrayOutputStream();
+        int i = from;
+        while (i < to) {
+            int value = values[i];
+            int length = 1;
+            while (i + length < to && length < MAX_RUN
+                    && values[i + length] == value) {
+                length++;
+            }
+            runs.write((length - 1) << 2 | value);
+            i += length;
+        }
+        return runs.toByteArray();
+    }
+
+    private static byte[] packed(byte[] values, int from, int to) {
+        byte[] packed = new byte[(to - from + 3) / 4];
+        for (int i = from; i < to; i++) {
+            int position = i - from;
+            packed[position >>> 2] |= values[i] << ((position & 3) * 2);
+        }
+        return packed;
+    }
+
+    /**
+     * Отображает файл в память; читается только заголовок.
+     *
+     * @param file файл, записанный {@link #write(Slice, Path)}
+     * @return таблица
+     * @throws IOException если файл не таблица или повреждён
+     */
+    public static Bitbase open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+        if (buffer.capacity() < HEADER || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a bitbase file: " + file);
+        }
+        Material material = new Material(buffer.get(4) - '0',
+                buffer.get(5) - '0', buffer.get(6) - '0', buffer.get(7) - '0');
+        int blocks = buffer.getInt(12);
+        int data = HEADER + (blocks + 1) * 4;
+        if (buffer.getInt(8) != material.size()
+                || blocks != (material.size() * 2 + BLOCK - 1) >>> BLOCK_SHIFT
+                || data > buffer.capacity()
+                || data + buffer.getInt(data - 4) != buffer.capacity()) {
+            throw new IOException("corrupt bitbase file: " + file);
+        }
+        return new Bitbase(material, buffer, data);
+    }
+
+    public Material material() {
+        return material;
+    }
+
+    /**
+     * @param board доска с материалом этой таблицы
+     * @param white ходят ли белые
+     * @return {@link Slice#WIN}, {@link Slice#DRAW} или {@link Slice#LOSS}
+     * для ходящей стороны
+     */
+    public int probe(Board board, boolean white) {
+        return probe(material.index(board), white);
+    }
+
+    /**
+     * @param index номер допустимой расстановки
+     * @param white ходят ли белые
+     * @return результат для ходящей стороны
+     */
+    public int probe(int index, boolean white) {
+        int position = white ? index : material.size() + index;
+        int start = data
+                + buffer.getInt(HEADER + (position >>> BLOCK_SHIFT) * 4);
+        int within = position & (BLOCK - 1);
+        if (buffer.get(start) == PACKED) {
+            int packed = buffer.get(start + 1 + (within >>> 2));
+            return packed >>> ((within & 3) * 2) & 3;
+        }
+        int cursor = start + 1;
+        while (true) {
+            int run = buffer.get(cursor++) & 0xFF;
+            int length = (run >>> 2) + 1;
+            if (within < length) {
+                return run & 3;
+            }
+            within -= length;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ru.ellen.tablebase;
+
+import ru.ellen.Board;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Все таблицы {@link Bitbase} из каталога: проба любой позиции, для
+ * материала которой есть файл. Потокобезопасен - пробы только читают
+ * отображённые файлы.
+ */
+public final class Bitbases {
+    /**
+     * Для материала позиции таблицы нет.
+     */
+    public static final int UNKNOWN = -1;
+    // коды материалов - подписи как числа
+    private static final int CODES = 10000;
+
+    private final Bitbase[] tables = new Bitbase[CODES];
+    private int count;
+
+    /**
+     * @param directory каталог с файлами *.wdl
+     * @return таблицы каталога
+     */
+    public static Bitbases open(Path directory) throws IOException {
+        Bitbases bitbases = new Bitbases();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(
+                directory, "*.wdl")) {
+            for (Path file : files) {
+                Bitbase table = Bitbase.open(file);
+                int code = table.material().code();
+                if (code == Material.NO_CODE) {
+                    throw new IOException("material has no code: " + file);
+                }
+                bitbases.tables[code] = table;
+                bitbases.count++;
+            }
+        }
+        return bitbases;
+    }
+
+    /**
+     * @return число открытых таблиц
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @param board доска
+     * @param white ходят ли белые
+     * @return {@link Slice#WIN}, {@link Slice#DRAW}, {@link Slice#LOSS}
+     * для ходящей стороны или {@link #UNKNOWN}
+     */
+    public int probe(Board board, boolean white) {
+        if (board.pieces(white) == 0) {
+            return Slice.LOSS;
+        }
+        if (board.pieces(!white) == 0) {
+            return Slice.WIN;
+        }
+        int code = Material.code(board);
+        if (code == Material.NO_CODE) {
+            return UNKNOWN;
+        }
+        Bitbase table = tables[code];
+        return table == null ? UNKNOWN : table.probe(board, white);
+    }
+}
@@ -0,0 +1,313 @@
+package ru.ellen.tablebase;
+
+import ru.ellen.Board;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Набор фигур (материал) и нумерация всех расстановок этого набора.
+ * <p>
+ * Номер расстановки складывается из номеров сочетаний четырёх групп
+ * по очереди: белые шашки, чёрные шашки, белые дамки, чёрные дамки.
+ * Каждая группа нумеруется среди полей, ещё не занятых предыдущими
+ * группами, поэтому у группы фиксированное число вариантов и номер
+ * считается без таблиц. Шашка на поле своего превращения невозможна:
+ * такие номера {@link #isValid(int) недопустимы} и просто пропускаются.
+ * <p>
+ * Подпись материала - четыре цифры в том же порядке, что в конструкторе:
+ * "1102" - белые шашка и дамка против двух чёрных дамок.
+ */
+public final class Material {
+    /**
+     * Код материала, где в группе больше девяти фигур: четырьмя цифрами
+     * такой материал не записать.
+     */
+    public static final int NO_CODE = -1;
+    private static final int WHITE_QUEEN_ROW = 0xF0000000;
+    private static final int BLACK_QUEEN_ROW = 0x0000000F;
+    private static final int MAX_GROUP = 12;
+    private static final int[][] BINOMIAL =
+            new int[Board.SQUARES + 1][MAX_GROUP + 1];
+
+    static {
+        for (int n = 0; n <= Board.SQUARES; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= Math.min(n, MAX_GROUP); k++) {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1]
+                        + (k <= n - 1 ? BINOMIAL[n - 1][k] : 0);
+            }
+        }
+    }
+
+    private final int whiteMen;
+    private final int whiteQueens;
+    private final int blackMen;
+    private final int blackQueens;
+    // размеры групп в порядке нумерации
+    private final int[] counts;
+    private final int[] radix;
+    // вес номера группы в номере расстановки
+    private final int[] place;
+    private final int size;
+
+    public Material(int whiteMen, int whiteQueens, int blackMen,
+                    int blackQueens) {
+        if (whiteMen < 0 || whiteQueens < 0 || blackMen < 0
+                || blackQueens < 0 || whiteMen + whiteQueens
+                + blackMen + blackQueens > MAX_GROUP) {
+            throw new IllegalArgumentException("bad material");
+        }
+        this.whiteMen = whiteMen;
+        this.whiteQueens = whiteQueens;
+        this.blackMen = blackMen;
+        this.blackQueens = blackQueens;
+        this.counts = new int[]{whiteMen, blackMen, whiteQueens, blackQueens};
+        this.radix = new int[counts.length];
+        long total = 1;
+        int free = Board.SQUARES;
+        for (int group = 0; group < counts.length; group++) {
+            radix[group] = BINOMIAL[free][counts[group]];
+            total *= radix[group];
+            free -= counts[group];
+        }
+        if (total > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("material is too large");
+        }
+        this.size = (int) total;
+        this.place = new int[counts.length];
+        int weight = 1;
+        for (int group = counts.length - 1; group >= 0; group--) {
+            place[group] = weight;
+            weight *= radix[group];
+        }
+    }
+
+    /**
+     * @param board доска
+     * @return материал на доске
+     */
+    public static Material of(Board board) {
+        return new Material(Integer.bitCount(board.men(true)),
+                Integer.bitCount(board.queens(true)),
+                Integer.bitCount(board.men(false)),
+                Integer.bitCount(board.queens(false)));
+    }
+
+    /**
+     * Все материалы не больше чем из maxPieces фигур, где у обеих
+     * сторон что-то есть, в порядке расчёта: сначала меньше фигур,
+     * при равном числе - меньше шашек (превращение шашки в дамку
+     * переводит позицию в материал с меньшим числом шашек).
+     *
+     * @param maxPieces наибольшее число фигур
+     * @return материалы в порядке расчёта
+     */
+    public static List<Material> upTo(int maxPieces) {
+        List<Material> result = new ArrayList<>();
+        for (int wm = 0; wm <= maxPieces; wm++) {
+            for (int wq = 0; wm + wq <= maxPieces; wq++) {
+                for (int bm = 0; wm + wq + bm <= maxPieces; bm++) {
+                    for (int bq = 0; wm + wq + bm + bq <= maxPieces; bq++) {
+                        if (wm + wq > 0 && bm + bq > 0) {
+                            result.add(new Material(wm, wq, bm, bq));
+                        }
+                    }
+                }
+            }
+        }
+        result.sort(Comparator.comparingInt(Material::pieces)
+                .thenComparingInt(Material::men));
+        return result;
+    }
+
+    /**
+     * Код материала на доске без создания объекта: подпись как число.
+     *
+     * @param board доска
+     * @return код от 0 до 9999 или {@link #NO_CODE}
+     */
+    public static int code(Board board) {
+        return code(Integer.bitCount(board.men(true)),
+                Integer.bitCount(board.queens(true)),
+                Integer.bitCount(board.men(false)),
+                Integer.bitCount(board.queens(false)));
+    }
+
+    /**
+     * @return код от 0 до 9999 или {@link #NO_CODE}
+     */
+    public int code() {
+        return code(whiteMen, whiteQueens, blackMen, blackQueens);
+    }
+
+    private static int code(int whiteMen, int whiteQueens, int blackMen,
+                            int blackQueens) {
+        // десяток в группе перешёл бы в соседнюю цифру
+        if (Math.max(Math.max(whiteMen, whiteQueens),
+                Math.max(blackMen, blackQueens)) > 9) {
+            return NO_CODE;
+        }
+        return ((whiteMen * 10 + whiteQueens) * 10 + blackMen) * 10
+                + blackQueens;
+    }
+
+    public int pieces() {
+        return whiteMen + whiteQueens + blackMen + blackQueens;
+    }
+
+    public int men() {
+        return whiteMen + blackMen;
+    }
+
+    /**
+     * @return число номеров расстановок (вместе с недопустимыми)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Номер расстановки на доске без выделения памяти; материал доски
+     * должен совпадать.
+     *
+     * @param board доска
+     * @return номер
+     */
+    public int index(Board board) {
+        int whiteMen = board.men(true);
+        int blackMen = board.men(false);
+        int whiteQueens = board.queens(true);
+        int men = whiteMen | blackMen;
+        int index = rank(whiteMen, 0);
+        index = index * radix[1] + rank(blackMen, whiteMen);
+        index = index * radix[2] + rank(whiteQueens, men);
+        return index * radix[3]
+                + rank(board.queens(false), men | whiteQueens);
+    }
+
+    /**
+     * Номер сочетания полей mask среди полей, не занятых occupied.
+     */
+    private static int rank(int mask, int occupied) {
+        int rank = 0;
+        int k = 0;
+        while (mask != 0) {
+            int square = Integer.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            // место поля среди ещё свободных
+            int position = square
+                    - Integer.bitCount(occupied & ((1 << square) - 1));
+            rank += BINOMIAL[position][++k];
+        }
+        return rank;
+    }
+
+    /**
+     * Расстановка по номеру без выделения памяти.
+     *
+     * @param index номер
+     * @param board доска, которая будет перезаписана
+     * @return false, если номер недопустим (шашка на поле превращения)
+     */
+    public boolean unrank(int index, Board board) {
+        int whiteMen = unrank(index, 0, 0);
+        int blackMen = unrank(index, 1, whiteMen);
+        int men = whiteMen | blackMen;
+        int whiteQueens = unrank(index, 2, men);
+        int blackQueens = unrank(index, 3, men | whiteQueens);
+        board.set(whiteMen, whiteQueens, blackMen, blackQueens);
+        return isValid(whiteMen, blackMen);
+    }
+
+    /**
+     * Поля группы по номеру расстановки.
+     *
+     * @param index    номер расстановки
+     * @param group    номер группы
+     * @param occupied поля предыдущих групп
+     * @return маска полей группы
+     */
+    private int unrank(int index, int group, int occupied) {
+        int rank = index / place[group] % radix[group];
+        int positions = 0;
+        int free = Board.SQUARES - Integer.bitCount(occupied);
+        for (int k = counts[group]; k > 0; k--) {
+            // наибольшее c с C(c, k) <= rank
+            int c = k - 1;
+            while (c + 1 < free && BINOMIAL[c + 1][k] <= rank) {
+                c++;
+            }
+            rank -= BINOMIAL[c][k];
+            positions |= 1 << c;
+            free = c;
+        }
+        return spread(positions, occupied);
+    }
+
+    /**
+     * @param index номер
+     * @return есть ли такая расстановка (шашки не стоят на полях
+     * своего превращения)
+     */
+    public boolean isValid(int index) {
+        return unrank(index, new Board());
+    }
+
+    private static boolean isValid(int whiteMen, int blackMen) {
+        return (whiteMen & WHITE_QUEEN_ROW) == 0
+                && (blackMen & BLACK_QUEEN_ROW) == 0;
+    }
+
+    /**
+     * Места среди свободных полей переводятся в сами поля.
+     */
+    private static int spread(int positions, int occupied) {
+        int result = 0;
+        int free = ~occupied;
+        int position = 0;
+        while (free != 0 && positions != 0) {
+            int square = Integer.numberOfTrailingZeros(free);
+            free &= free - 1;
+            if ((positions & (1 << position)) != 0) {
+                result |= 1 << square;
+                positions &= ~(1 << position);
+            }
+            position++;
+        }
+        return result;
+    }
+
+    /**
+     * @return подпись из четырёх цифр
+     */
+    public String signature() {
+        return "" + whiteMen + whiteQueens + blackMen + blackQueens;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Material)) {
+            return false;
+        }
+        Material other = (Material) o;
+        return whiteMen == other.whiteMen && whiteQueens == other.whiteQueens
+                && blackMen == other.blackMen
+                && blackQueens == other.blackQueens;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((whiteMen * 13 + whiteQueens) * 13 + blackMen) * 13
+                + blackQueens;
+    }
+
+    @Override
+    public String toString() {
+        return signature();
+    }
+}
@@ -0,0 +1,144 @@
+package ru.ellen.tablebase;
+
+import ru.ellen.Board;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Результаты всех позиций одного {@link Material}: для каждой расстановки
+ * и очереди хода - выигрыш, ничья или проигрыш ходящей стороны и число
+ * полуходов до конца партии при лучшей игре (выигрывающий спешит,
+ * проигрывающий тянет).
+ * <p>
+ * Файл: "DTB1", четыре байта материала, число расстановок (int),
+ * затем результаты (по байту) сначала для хода белых, потом чёрных,
+ * и так же расстояния.
+ */
+public final class Slice {
+    public static final byte DRAW = 0;
+    public static final byte WIN = 1;
+    public static final byte LOSS = 2;
+    /**
+     * Номер без расстановки (шашка на поле своего превращения).
+     */
+    public static final byte INVALID = 3;
+
+    private static final int MAGIC = 0x44544231;
+
+    private final Material material;
+    final byte[] results;
+    final byte[] distances;
+
+    Slice(Material material) {
+        this.material = material;
+        this.results = new byte[material.size() * 2];
+        this.distances = new byte[material.size() * 2];
+    }
+
+    public Material material() {
+        return material;
+    }
+
+    /**
+     * @param index номер расстановки
+     * @param white ходят ли белые
+     * @return {@link #WIN}, {@link #DRAW}, {@link #LOSS} или {@link #INVALID}
+     */
+    public byte result(int index, boolean white) {
+        return results[offset(index, white)];
+    }
+
+    /**
+     * @param index номер расстановки
+     * @param white ходят ли белые
+     * @return полуходов до конца партии (0 для ничьей)
+     */
+    public int distance(int index, boolean white) {
+        return distances[offset(index, white)] & 0xFF;
+    }
+
+    /**
+     * @param board доска с материалом этой таблицы
+     * @param white ходят ли белые
+     * @return результат для ходящей стороны
+     */
+    public byte result(Board board, boolean white) {
+        return result(material.index(board), white);
+    }
+
+    public int distance(Board board, boolean white) {
+        return distance(material.index(board), white);
+    }
+
+    int offset(int index, boolean white) {
+        return white ? index : material.size() + index;
+    }
+
+    /**
+     * @param directory каталог
+     * @return файл таблицы в каталоге
+     */
+    public Path path(Path directory) {
+        return directory.resolve(material.signature() + ".tb");
+    }
+
+    public void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.write(material.signature().getBytes("US-ASCII"));
+            out.writeInt(material.size());
+            out.write(results);
+            out.write(distances);
+        }
+    }
+
+    /**
+     * @param file файл, записанный {@link #write(Path)}
+     * @return таблица
+     * @throws IOException если файл не таблица или повреждён
+     */
+    public static Slice read(Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(
+                     new BufferedInputStream(stream))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("not a tablebase file: " + file);
+            }
+            byte[] signature = new byte[4];
+            in.readFully(signature);
+            Material material = new Material(signature[0] - '0',
+                    signature[1] - '0', signature[2] - '0', signature[3] - '0');
+            if (in.readInt() != material.size()) {
+                throw new IOException("corrupt tablebase file: " + file);
+            }
+            Slice slice = new Slice(material);
+            in.readFully(slice.results);
+            in.readFully(slice.distances);
+            return slice;
+        }
+    }
+
+    /**
+     * Число позиций с данным результатом.
+     *
+     * @param result результат
+     * @return число позиций (обе очереди хода)
+     */
+    public int count(byte result) {
+        int count = 0;
+        for (byte value : results) {
+            if (value == result) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,393 @@
+package ru.ellen.tablebase;
+
+import ru.ellen.Board;
+import ru.ellen.Diagonals;
+import ru.ellen.MoveGenerator;
+import ru.ellen.MoveList;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Генератор таблиц окончаний ретроградным анализом.
+ * <p>
+ * Материалы считаются в порядке {@link Material#upTo}: взятие уменьшает
+ * число фигур, превращение - число шашек, поэтому все таблицы, куда
+ * можно попасть ходом, кроме текущей, к её расчёту уже готовы.
+ * <p>
+ * Материал считается в два шага. Сначала один прямой проход по всем
+ * позициям: ходы в другие материалы сразу дают известный результат,
+ * ходы внутри материала (тихие, без превращения) только считаются,
+ * позиция без ходов - проигрыш за 0. Затем решённые позиции
+ * разбираются в порядке расстояния, и для каждой перебираются
+ * предшественники в том же материале - обратные тихие ходы сходившей
+ * стороны, если у неё в той позиции не было взятия. Проигрыш за d
+ * даёт предшественнику выигрыш за d+1; выигрыш уменьшает счётчик его
+ * ходов, и когда все они ведут в выигрыш соперника, предшественник
+ * проигран за самый долгий из них плюс один. Что не решилось, - ничья.
+ * <p>
+ * Ходы берутся из {@link MoveGenerator} - те же правила взятия и
+ * превращения, что у {@link ru.ellen.MoveValidation}. Прямой проход
+ * делится на куски номеров для {@link ForkJoinPool}; разбор идёт в
+ * одном потоке, поэтому результат не зависит от числа потоков.
+ * <p>
+ * Запуск: {@code TablebaseGenerator <фигур> <каталог> [потоки]}.
+ */
+public final class TablebaseGenerator {
+    static final int CHUNK = 4096;
+    private static final int MAX_DISTANCE = 255;
+    // коды материалов - подписи как числа
+    private static final int CODES = 10000;
+    // счётчик позиции, которая не может проиграть: у неё есть ход
+    // не в выигрыш соперника
+    private static final short CANNOT_LOSE = -1;
+
+    private final int maxPieces;
+    private final ForkJoinPool pool;
+    private final Slice[] slices = new Slice[CODES];
+
+    /**
+     * @param maxPieces наибольшее число фигур на доске
+     * @param pool      пул, на котором считаются прямые проходы
+     */
+    public TablebaseGenerator(int maxPieces, ForkJoinPool pool) {
+        if (maxPieces < 2) {
+            throw new IllegalArgumentException("at least two pieces needed");
+        }
+        // у обеих сторон что-то есть, поэтому в группе не больше
+        // maxPieces - 1 фигур, и код материала есть всегда
+        if (maxPieces > 10) {
+            throw new IllegalArgumentException("at most ten pieces");
+        }
+        this.maxPieces = maxPieces;
+        this.pool = pool;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println(
+                    "usage: TablebaseGenerator <pieces> <directory> [threads]");
+            return;
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+        Path directory = Paths.get(args[1]);
+        Files.createDirectories(directory);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            new TablebaseGenerator(Integer.parseInt(args[0]), pool)
+                    .generate(directory, System.out);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Считает все таблицы и пишет каждую в свой файл
+     * ({@link Slice#path(Path)}), печатая сводку по таблице.
+     *
+     * @param directory каталог для файлов
+     * @param out       поток для сводки
+     * @return таблицы в порядке расчёта
+     */
+    public List<Slice> generate(Path directory, PrintStream out)
+            throws IOException {
+        List<Slice> result = new ArrayList<>();
+        for (Material material : Material.upTo(maxPieces)) {
+            long start = System.nanoTime();
+            Slice slice = generate(material);
+            slice.write(slice.path(directory));
+            out.printf("%s: win %d, draw %d, loss %d, longest %d, %d ms%n",
+                    material, slice.count(Slice.WIN), slice.count(Slice.DRAW),
+                    slice.count(Slice.LOSS), longest(slice),
+                    (System.nanoTime() - start) / 1_000_000);
+            result.add(slice);
+        }
+        return result;
+    }
+
+    /**
+     * Считает все таблицы в памяти.
+     *
+     * @return таблицы в порядке расчёта
+     */
+    public List<Slice> generate() {
+        List<Slice> result = new ArrayList<>();
+        for (Material material : Material.upTo(maxPieces)) {
+            result.add(generate(material));
+        }
+        return result;
+    }
+
+    /**
+     * Считает одну таблицу; все материалы, куда из неё ведут взятия и
+     * превращения, должны быть уже посчитаны.
+     */
+    Slice generate(Material material) {
+        if (material.code() == Material.NO_CODE) {
+            throw new IllegalArgumentException("material has no code");
+        }
+        Positions positions = new Positions(material);
+        pool.invoke(new Scan(positions, 0, positions.state.length));
+        positions.propagate();
+        Slice slice = new Slice(material);
+        for (int i = 0; i < positions.state.length; i++) {
+            // нерешённое - ничья (DRAW = 0)
+            slice.results[i] = (byte) (positions.state[i] & 3);
+            slice.distances[i] = (byte) (positions.state[i] >>> 2);
+        }
+        slices[material.code()] = slice;
+        return slice;
+    }
+
+    /**
+     * @param material материал
+     * @return посчитанная таблица или null
+     */
+    Slice slice(Material material) {
+        return slices[material.code()];
+    }
+
+    private static int longest(Slice slice) {
+        int result = 0;
+        for (byte distance : slice.distances) {
+            result = Math.max(result, distance & 0xFF);
+        }
+        return result;
+    }
+
+    private static short pack(byte result, int distance) {
+        return (short) (distance << 2 | result);
+    }
+
+    /**
+     * Позиции одного материала: номера [0, size) - ход белых,
+     * [size, 2 size) - ход чёрных.
+     */
+    private final class Positions {
+        final Material material;
+        final int size;
+        // окончательные результат и расстояние; 0 - не решено
+        final short[] state;
+        // лучшее известное: выигрыш за наименьшее расстояние или
+        // проигрыш за наибольшее из уже решённых ходов
+        final short[] pending;
+        // сколько ходов внутри материала ещё не решены или
+        // CANNOT_LOSE
+        final short[] counters;
+        // позиции, ожидающие разбора, по расстоянию
+        private final int[][] levels = new int[MAX_DISTANCE + 1][];
+        private final int[] lengths = new int[MAX_DISTANCE + 1];
+
+        Positions(Material material) {
+            this.material = material;
+            this.size = material.size();
+            this.state = new short[size * 2];
+            this.pending = new short[size * 2];
+            this.counters = new short[size * 2];
+        }
+
+        /**
+         * Разбор решённых позиций по возрастанию расстояния: так
+         * выигрыш получает кратчайшее расстояние, а проигрыш ставится,
+         * только когда решены все ходы.
+         */
+        void propagate() {
+            for (int offset = 0; offset < state.length; offset++) {
+                if (state[offset] == 0 && pending[offset] != 0
+                        && counters[offset] <= 0) {
+                    push(offset);
+                }
+            }
+            Board board = new Board();
+            Board before = new Board();
+            for (int distance = 0; distance <= MAX_DISTANCE; distance++) {
+                // новые позиции попадают только на дальние уровни
+                for (int i = 0; i < lengths[distance]; i++) {
+                    int offset = levels[distance][i];
+                    short value = pending[offset];
+                    if (state[offset] != 0 || value >>> 2 != distance) {
+                        continue;
+                    }
+                    state[offset] = value;
+                    predecessors(offset, board, before);
+                }
+                levels[distance] = null;
+            }
+        }
+
+        private void push(int offset) {
+            int distance = pending[offset] >>> 2;
+            if (distance > MAX_DISTANCE) {
+                throw new IllegalStateException(
+                        "distance does not fit in a byte: " + material);
+            }
+            int[] level = levels[distance];
+            if (level == null) {
+                level = new int[64];
+            } else if (lengths[distance] == level.length) {
+                level = Arrays.copyOf(level, level.length * 2);
+            }
+            levels[distance] = level;
+            level[lengths[distance]++] = offset;
+        }
+
+        /**
+         * Передаёт результат решённой позиции тем, из которых в неё
+         * ведёт тихий ход.
+         */
+        private void predecessors(int offset, Board board, Board before) {
+            boolean white = offset < size;
+            material.unrank(white ? offset : offset - size, board);
+            // сходила сторона, которая теперь не ходит
+            boolean mover = !white;
+            int occupied = board.occupied();
+            int men = board.men(mover);
+            int queens = board.queens(mover);
+            int back = mover ? Diagonals.DOWN_RIGHT : Diagonals.UP_RIGHT;
+            for (int pieces = men; pieces != 0; pieces &= pieces - 1) {
+                int to = Integer.numberOfTrailingZeros(pieces);
+                for (int dir = back; dir < back + 2; dir++) {
+                    int from = Diagonals.step(dir, to);
+                    if (from >= 0 && (occupied & Board.bit(from)) == 0) {
+                        int moved = men ^ Board.bit(to) ^ Board.bit(from);
+                        update(board, before, mover, moved, queens, offset);
+                    }
+                }
+            }
+            for (int pieces = queens; pieces != 0; pieces &= pieces - 1) {
+                int to = Integer.numberOfTrailingZeros(pieces);
+                for (int dir = 0; dir < Diagonals.DIRECTIONS; dir++) {
+                    int ray = Diagonals.freeRay(to, dir, occupied);
+                    for (; ray != 0; ray &= ray - 1) {
+                        int from = Integer.numberOfTrailingZeros(ray);
+                        int moved = queens ^ Board.bit(to) ^ Board.bit(from);
+                        update(board, before, mover, men, moved, offset);
+                    }
+                }
+            }
+        }
+
+        private void update(Board board, Board before, boolean mover,
+                            int men, int queens, int offset) {
+            if (mover) {
+                before.set(men, queens, board.men(false), board.queens(false));
+            } else {
+                before.set(board.men(true), board.queens(true), men, queens);
+            }
+            // при взятии тихий ход невозможен
+            if (MoveGenerator.hasCapture(before, mover)) {
+                return;
+            }
+            int previous = (mover ? 0 : size) + material.index(before);
+            if (state[previous] != 0) {
+                return;
+            }
+            int distance = (state[offset] >>> 2) + 1;
+            if ((state[offset] & 3) == Slice.LOSS) {
+                short value = pending[previous];
+                if ((value & 3) != Slice.WIN || value >>> 2 > distance) {
+                    pending[previous] = pack(Slice.WIN, distance);
+                    counters[previous] = CANNOT_LOSE;
+                    push(previous);
+                }
+            } else if (counters[previous] > 0) {
+                pending[previous] = pack(Slice.LOSS,
+                        Math.max(pending[previous] >>> 2, distance));
+                if (--counters[previous] == 0) {
+                    push(previous);
+                }
+            }
+        }
+    }
+
+    /**
+     * Прямой проход по отрезку номеров [from, to): позиции без ходов,
+     * ходы в готовые материалы и счётчики ходов внутри материала.
+     */
+    private final class Scan extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Positions positions;
+        private final int from;
+        private final int to;
+
+        Scan(Positions positions, int from, int to) {
+            this.positions = positions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK) {
+                int middle = (from + to) >>> 1;
+                Scan left = new Scan(positions, from, middle);
+                left.fork();
+                new Scan(positions, middle, to).compute();
+                left.join();
+                return;
+            }
+            Board board = new Board();
+            MoveGenerator generator = new MoveGenerator();
+            MoveList list = new MoveList();
+            Material material = positions.material;
+            int size = positions.size;
+            for (int offset = from; offset < to; offset++) {
+                boolean white = offset < size;
+                if (!material.unrank(white ? offset : offset - size, board)) {
+                    positions.state[offset] = Slice.INVALID;
+                    continue;
+                }
+                scan(offset, board, white, generator, list);
+            }
+        }
+
+        private void scan(int offset, Board board, boolean white,
+                          MoveGenerator generator, MoveList list) {
+            int count = generator.generate(board, white, list);
+            int code = positions.material.code();
+            int inside = 0;
+            int fastestWin = Integer.MAX_VALUE;
+            int longestLoss = 0;
+            boolean canLose = true;
+            for (int i = 0; i < count; i++) {
+                board.makeMove(list.get(i));
+                if (board.pieces(!white) == 0) {
+                    fastestWin = 1;
+                    canLose = false;
+                } else if (Material.code(board) == code) {
+                    inside++;
+                } else {
+                    Slice slice = slices[Material.code(board)];
+                    int index = slice.material().index(board);
+                    byte result = slice.result(index, !white);
+                    int distance = slice.distance(index, !white) + 1;
+                    if (result == Slice.LOSS) {
+                        fastestWin = Math.min(fastestWin, distance);
+                    }
+                    if (result == Slice.WIN) {
+                        longestLoss = Math.max(longestLoss, distance);
+                    } else {
+                        canLose = false;
+                    }
+                }
+                board.unmakeMove();
+            }
+            if (fastestWin != Integer.MAX_VALUE) {
+                positions.pending[offset] = pack(Slice.WIN, fastestWin);
+            } else if (canLose) {
+                positions.pending[offset] = pack(Slice.LOSS, longestLoss);
+            }
+            positions.counters[offset] = canLose ? (short) inside
+                    : CANNOT_LOSE;
+        }
+    }
+}
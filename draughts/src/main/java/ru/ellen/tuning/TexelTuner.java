@@ -0,0 +1,242 @@
+package ru.ellen.tuning;
+
+import ru.ellen.PieceSquare;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Настройка весов {@link PieceSquare} по исходам партий (метод Texel).
+ * <p>
+ * Оценка позиции e переводится в ожидаемые очки белых
+ * s = 1 / (1 + 10^(-k e / 400)), и веса подбираются так, чтобы
+ * средний квадрат разности s и настоящего исхода был наименьшим.
+ * Сначала при исходных весах подбирается масштаб k, затем веса
+ * спускаются по градиенту (шаги Adam). Вес простой шашки не меняется:
+ * он задаёт единицу оценки.
+ * <p>
+ * Ошибка и градиент считаются по кускам позиций на {@link ForkJoinPool};
+ * деление на куски не зависит от числа потоков, поэтому и результат
+ * от него не зависит. Итог пишется в файл весов, который оценка читает
+ * при запуске (ресурс {@link PieceSquare#RESOURCE}).
+ * <p>
+ * Запуск: {@code TexelTuner convert <текст> <файл позиций>} или
+ * {@code TexelTuner tune <файл позиций> <файл весов> [потоки] [шаги]}.
+ */
+public final class TexelTuner {
+    public static final int DEFAULT_ITERATIONS = 500;
+    static final int SHARD = 8192;
+    private static final double LEARNING_RATE = 0.5;
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+    private static final double EPSILON = 1e-8;
+    private static final double LN10 = Math.log(10);
+
+    private final TrainingSet positions;
+    private final ForkJoinPool pool;
+    private double scale = 1;
+
+    public TexelTuner(TrainingSet positions, ForkJoinPool pool) {
+        this.positions = positions;
+        this.pool = pool;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3 || !args[0].equals("convert")
+                && !args[0].equals("tune")) {
+            System.out.println("usage: TexelTuner convert <text> <positions>"
+                    + " | TexelTuner tune <positions> <weights>"
+                    + " [threads] [iterations]");
+            return;
+        }
+        if (args[0].equals("convert")) {
+            try (BufferedReader reader = Files.newBufferedReader(
+                    Paths.get(args[1]), StandardCharsets.UTF_8)) {
+                int count = TrainingSet.convert(reader, Paths.get(args[2]));
+                System.out.println(count + " positions");
+            }
+            return;
+        }
+        int threads = args.length > 3 ? Integer.parseInt(args[3])
+                : Runtime.getRuntime().availableProcessors();
+        int iterations = args.length > 4 ? Integer.parseInt(args[4])
+                : DEFAULT_ITERATIONS;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            TexelTuner tuner = new TexelTuner(
+                    TrainingSet.read(Paths.get(args[1])), pool);
+            int[] weights = tuner.tune(PieceSquare.weights(), iterations,
+                    System.out);
+            write(weights, Paths.get(args[2]));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Подбирает масштаб k при данных весах, затем сами веса.
+     *
+     * @param start      исходные веса
+     * @param iterations число шагов спуска
+     * @param log        поток для хода настройки
+     * @return настроенные веса
+     */
+    public int[] tune(int[] start, int iterations, PrintStream log) {
+        double[] weights = new double[PieceSquare.TERMS];
+        for (int term = 0; term < weights.length; term++) {
+            weights[term] = start[term];
+        }
+        fitScale(weights);
+        log.printf("k %.4f, error %.6f%n", scale, error(weights));
+        double[] first = new double[weights.length];
+        double[] second = new double[weights.length];
+        for (int step = 1; step <= iterations; step++) {
+            double[] gradient = pool.invoke(
+                    new Shard(weights, 0, positions.size()));
+            double correction1 = 1 - Math.pow(BETA1, step);
+            double correction2 = 1 - Math.pow(BETA2, step);
+            // вес простой шашки - единица оценки, его не трогаем
+            for (int term = 1; term < weights.length; term++) {
+                first[term] = BETA1 * first[term]
+                        + (1 - BETA1) * gradient[term];
+                second[term] = BETA2 * second[term]
+                        + (1 - BETA2) * gradient[term] * gradient[term];
+                weights[term] -= LEARNING_RATE * (first[term] / correction1)
+                        / (Math.sqrt(second[term] / correction2) + EPSILON);
+            }
+            if (step % 100 == 0 || step == iterations) {
+                log.printf("step %d, error %.6f%n", step, error(weights));
+            }
+        }
+        int[] result = new int[weights.length];
+        for (int term = 0; term < weights.length; term++) {
+            result[term] = (int) Math.round(weights[term]);
+        }
+        return result;
+    }
+
+    /**
+     * Масштаб k с наименьшей ошибкой (поиск золотым сечением).
+     */
+    private void fitScale(double[] weights) {
+        double low = 0.05;
+        double high = 5;
+        double ratio = (Math.sqrt(5) - 1) / 2;
+        for (int i = 0; i < 40; i++) {
+            double a = high - ratio * (high - low);
+            double b = low + ratio * (high - low);
+            scale = a;
+            double errorA = error(weights);
+            scale = b;
+            double errorB = error(weights);
+            if (errorA < errorB) {
+                high = b;
+            } else {
+                low = a;
+            }
+        }
+        scale = (low + high) / 2;
+    }
+
+    /**
+     * @return масштаб k, найденный при последней настройке
+     */
+    public double scale() {
+        return scale;
+    }
+
+    /**
+     * @param weights веса по номерам слагаемых
+     * @return средний квадрат ошибки предсказания исхода
+     */
+    public double error(double[] weights) {
+        double[] sums = pool.invoke(new Shard(weights, 0, positions.size()));
+        return sums[PieceSquare.TERMS] / Math.max(positions.size(), 1);
+    }
+
+    public double error(int[] weights) {
+        double[] converted = new double[weights.length];
+        for (int term = 0; term < weights.length; term++) {
+            converted[term] = weights[term];
+        }
+        return error(converted);
+    }
+
+    /**
+     * Пишет веса в формате ресурса {@link PieceSquare#RESOURCE}.
+     *
+     * @param weights веса по номерам слагаемых
+     * @param file    файл весов
+     */
+    public static void write(int[] weights, Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file,
+                StandardCharsets.UTF_8)) {
+            out.write("# Веса оценки PieceSquare в сотых долях простой"
+                    + " шашки.\n");
+            out.write("# Файл пишет ru.ellen.tuning.TexelTuner.\n");
+            for (int term = 0; term < weights.length; term++) {
+                out.write(PieceSquare.name(term) + "=" + weights[term] + "\n");
+            }
+        }
+    }
+
+    /**
+     * Градиент средней ошибки по весам и её сумма (последний элемент)
+     * на позициях [from, to).
+     */
+    private final class Shard extends RecursiveTask<double[]> {
+        private static final long serialVersionUID = 1L;
+        private final double[] weights;
+        private final int from;
+        private final int to;
+
+        Shard(double[] weights, int from, int to) {
+            this.weights = weights;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from > SHARD) {
+                int middle = (from + to) >>> 1;
+                Shard left = new Shard(weights, from, middle);
+                left.fork();
+                double[] right = new Shard(weights, middle, to).compute();
+                double[] sums = left.join();
+                for (int i = 0; i < sums.length; i++) {
+                    sums[i] += right[i];
+                }
+                return sums;
+            }
+            int terms = PieceSquare.TERMS;
+            double[] sums = new double[terms + 1];
+            double factor = scale * LN10 / 400;
+            double normalizer = 2.0 / Math.max(positions.size(), 1);
+            for (int i = from; i < to; i++) {
+                double evaluation = 0;
+                for (int term = 0; term < terms; term++) {
+                    evaluation += weights[term] * positions.feature(i, term);
+                }
+                double expected = 1 / (1 + Math.exp(-factor * evaluation));
+                double difference = positions.score(i) - expected;
+                sums[terms] += difference * difference;
+                // d(r - s)^2 / dw = -2 (r - s) s (1 - s) factor f
+                double slope = -normalizer * difference * expected
+                        * (1 - expected) * factor;
+                for (int term = 0; term < terms; term++) {
+                    sums[term] += slope * positions.feature(i, term);
+                }
+            }
+            return sums;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package ru.ellen.tuning;
+
+import ru.ellen.Board;
+import ru.ellen.PieceSquare;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Размеченные позиции для настройки оценки: слагаемые
+ * {@link PieceSquare#features} каждой позиции и исход партии.
+ * <p>
+ * Файл: "DTS1", число позиций (int), затем записи по {@link #RECORD}
+ * байт - маски белых простых, белых дамок, чёрных простых, чёрных
+ * дамок (int) и исход для белых (байт: {@link #LOSS}, {@link #DRAW},
+ * {@link #WIN}). Текстовый источник - тройки строк: белые и чёрные
+ * фигуры, как первые строки входа {@link ru.ellen.Play} (разбираются
+ * через {@link ru.ellen.Configuration}), и исход "1-0", "1/2-1/2" или
+ * "0-1". Пустые строки и строки с '#' между позициями пропускаются;
+ * пустая строка чёрных внутри тройки - чёрных фигур нет.
+ */
+public final class TrainingSet {
+    public static final int RECORD = 17;
+    public static final byte LOSS = 0;
+    public static final byte DRAW = 1;
+    public static final byte WIN = 2;
+    private static final int MAGIC = 0x44545331;
+    private static final int HEADER = 8;
+
+    private final int size;
+    // по TERMS слагаемых на позицию подряд
+    private final int[] features;
+    private final byte[] results;
+
+    private TrainingSet(int size) {
+        this.size = size;
+        this.features = new int[size * PieceSquare.TERMS];
+        this.results = new byte[size];
+    }
+
+    /**
+     * Переводит текстовые позиции в двоичный файл.
+     *
+     * @param reader источник строк
+     * @param file   двоичный файл
+     * @return число позиций
+     * @throws IOException если исход не распознан
+     */
+    public static int convert(BufferedReader reader, Path file)
+            throws IOException {
+        int count = 0;
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            // число позиций дописывается в конце
+            out.writeInt(0);
+            String[] lines = new String[3];
+            int filled = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (filled == 0 && (line.trim().isEmpty()
+                        || line.startsWith("#"))) {
+                    continue;
+                }
+                lines[filled++] = line;
+                if (filled < lines.length) {
+                    continue;
+                }
+                filled = 0;
+                Board board = Board.fromText(lines[0], lines[1]);
+                out.writeInt(board.men(true));
+                out.writeInt(board.queens(true));
+                out.writeInt(board.men(false));
+                out.writeInt(board.queens(false));
+                out.writeByte(result(lines[2].trim()));
+                count++;
+            }
+        }
+        try (RandomAccessFile out = new RandomAccessFile(file.toFile(),
+                "rw")) {
+            out.seek(4);
+            out.writeInt(count);
+        }
+        return count;
+    }
+
+    private static byte result(String text) throws IOException {
+        switch (text) {
+            case "1-0":
+                return WIN;
+            case "0-1":
+                return LOSS;
+            case "1/2-1/2":
+                return DRAW;
+            default:
+                throw new IOException("bad result: " + text);
+        }
+    }
+
+    /**
+     * Читает файл, записанный {@link #convert}, и сразу считает
+     * слагаемые оценки каждой позиции.
+     *
+     * @param file двоичный файл
+     * @return позиции
+     * @throws IOException если файл не набор позиций или повреждён
+     */
+    public static TrainingSet read(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+        if (buffer.capacity() < HEADER || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a training set: " + file);
+        }
+        int size = buffer.getInt(4);
+        if (size < 0 || (long) size * RECORD + HEADER != buffer.capacity()) {
+            throw new IOException("corrupt training set: " + file);
+        }
+        TrainingSet set = new TrainingSet(size);
+        int[] terms = new int[PieceSquare.TERMS];
+        for (int i = 0; i < size; i++) {
+            int at = HEADER + i * RECORD;
+            PieceSquare.features(buffer.getInt(at), buffer.getInt(at + 4),
+                    buffer.getInt(at + 8), buffer.getInt(at + 12), terms);
+            System.arraycopy(terms, 0, set.features,
+                    i * PieceSquare.TERMS, PieceSquare.TERMS);
+            byte result = buffer.get(at + 16);
+            if (result < LOSS || result > WIN) {
+                throw new IOException("corrupt training set: " + file);
+            }
+            set.results[i] = result;
+        }
+        return set;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param position номер позиции
+     * @param term     номер слагаемого
+     * @return значение слагаемого
+     */
+    public int feature(int position, int term) {
+        return features[position * PieceSquare.TERMS + term];
+    }
+
+    /**
+     * @param position номер позиции
+     * @return очки белых: 1, 0.5 или 0
+     */
+    public double score(int position) {
+        return results[position] * 0.5;
+    }
+}
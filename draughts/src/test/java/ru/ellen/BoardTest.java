@@ -0,0 +1,103 @@
+package ru.ellen;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ellen.exceptions.BusyCellException;
+import ru.ellen.exceptions.InvalidMoveException;
+import ru.ellen.exceptions.LogicException;
+import ru.ellen.exceptions.WhiteCellException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class BoardTest {
+
+    @Test
+    public void squaresAreNumberedFromA1ToH8() {
+        Assert.assertEquals(0, Board.square('a', 1));
+        Assert.assertEquals(1, Board.square('c', 1));
+        Assert.assertEquals(4, Board.square('b', 2));
+        Assert.assertEquals(31, Board.square('h', 8));
+        Assert.assertEquals(-1, Board.square('a', 2));
+        Assert.assertEquals(-1, Board.square('i', 9));
+        for (int square = 0; square < Board.SQUARES; square++) {
+            Assert.assertEquals(square, Board.square(Board.letter(square),
+                    Board.number(square)));
+        }
+    }
+
+    @Test
+    public void configurationsRoundTrip() {
+        ArrayList<Configuration> whites = new ArrayList<>();
+        ArrayList<Configuration> blacks = new ArrayList<>();
+        whites.add(new Configuration("a1", true));
+        whites.add(new Configuration("C3", true));
+        blacks.add(new Configuration("h8", false));
+        Board board = Board.fromConfigurations(whites, blacks, true);
+        Assert.assertEquals(Board.bit(0), board.men(true));
+        Assert.assertEquals(Board.bit(9), board.queens(true));
+        Assert.assertEquals(Board.bit(31), board.men(false));
+
+        board.toConfigurations(true, whites);
+        board.toConfigurations(false, blacks);
+        Assert.assertEquals("[C3, a1]", getResult(whites));
+        Assert.assertEquals("[h8]", getResult(blacks));
+    }
+
+    @Test
+    public void boardAgreesWithListReference() throws WhiteCellException,
+            BusyCellException, InvalidMoveException, LogicException {
+        String[][] games = {
+                {"a1 b4", "b2 c5 c7 e5", "b4:d6:f4"},
+                {"A1 a7", "c3 E3 g3 H8", "a1:d4:f2:h4"},
+                {"g7 h2", "c5 c7 e5", "g7-h8"},
+                {"E5", "b2 f6", "e5:h8"},
+        };
+        for (String[] game : games) {
+            ArrayList<Configuration> whites = parse(game[0], true);
+            ArrayList<Configuration> blacks = parse(game[1], false);
+            ArrayList<Configuration> whitesList = parse(game[0], true);
+            ArrayList<Configuration> blacksList = parse(game[1], false);
+            Play.processLineOfMoves(whites, blacks, game[2]);
+            ListPlay.processLineOfMoves(whitesList, blacksList, game[2]);
+            Assert.assertEquals(getResult(whitesList), getResult(whites));
+            Assert.assertEquals(getResult(blacksList), getResult(blacks));
+        }
+    }
+
+    @Test
+    public void unmakeRestoresPosition() {
+        // фигуры после отмены хода сверяет сам обход
+        for (Board board : BoardWalk.positions()) {
+            BoardWalk.walk(board, true, 4, (b, white, line, length) ->
+                    Assert.assertEquals(length, b.ply()));
+            BoardWalk.walk(board, false, 4, (b, white, line, length) ->
+                    Assert.assertEquals(length, b.ply()));
+        }
+    }
+
+    private static ArrayList<Configuration> parse(String line,
+                                                  boolean white) {
+        ArrayList<Configuration> configurations = new ArrayList<>();
+        for (String token : line.split(" ")) {
+            configurations.add(new Configuration(token, white));
+        }
+        return configurations;
+    }
+
+    private static String getResult(ArrayList<Configuration> configurations) {
+        String[] res = new String[configurations.size()];
+        for (int j = 0; j < configurations.size(); j++) {
+            Configuration curConf = configurations.get(j);
+            if (!curConf.isQueen()) {
+                res[j] = String.valueOf(curConf.getLetter()) + curConf.getNumber();
+            } else {
+                res[j] = String.valueOf(Character.toUpperCase(curConf.getLetter()))
+                        + curConf.getNumber();
+            }
+        }
+        Arrays.sort(res);
+        return Arrays.toString(res);
+    }
+}
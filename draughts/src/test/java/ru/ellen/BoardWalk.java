@@ -0,0 +1,92 @@
+package ru.ellen;
+
+
+import org.junit.Assert;
+import ru.ellen.exceptions.BusyCellException;
+import ru.ellen.exceptions.InvalidMoveException;
+import ru.ellen.exceptions.LogicException;
+import ru.ellen.exceptions.WhiteCellException;
+
+/**
+ * Обход дерева ходов для проверок того, что доска поддерживает
+ * при каждом ходе (ключ, оценка, состояние после отмены хода).
+ */
+final class BoardWalk {
+
+    /**
+     * Проверка в узле обхода.
+     */
+    interface Check {
+        /**
+         * @param board  доска в узле
+         * @param white  чей ход
+         * @param line   ходы от корня
+         * @param length число ходов от корня
+         */
+        void check(Board board, boolean white, long[] line, int length);
+    }
+
+    private BoardWalk() {
+    }
+
+    /**
+     * @return начальная позиция, позиции с дамками обеих сторон и
+     * позиция с превращениями во время взятия и сразу за ним
+     */
+    static Board[] positions() {
+        return new Board[]{
+                Board.initial(),
+                Board.fromText("A1 g7", "c3 E3 g3 b6 d6"),
+                Board.fromText("b6 f6", "a7 C7 e7 g7 h8"),
+                Board.fromText("c5 e7 g7", "b2 d6 f8"),
+        };
+    }
+
+    /**
+     * Обходит все варианты до глубины depth. Проверка вызывается в
+     * каждом узле и ещё раз после отмены каждого хода из него; после
+     * отмены фигуры на доске должны стоять как до хода.
+     */
+    static void walk(Board board, boolean white, int depth, Check check) {
+        walk(board, white, depth, check, new long[depth], 0);
+    }
+
+    private static void walk(Board board, boolean white, int depth,
+                             Check check, long[] line, int length) {
+        check.check(board, white, line, length);
+        if (depth == 0) {
+            return;
+        }
+        MoveList list = new MoveList();
+        new MoveGenerator().generate(board, white, list);
+        String whites = board.toText(true);
+        String blacks = board.toText(false);
+        for (int i = 0; i < list.size(); i++) {
+            board.makeMove(list.get(i));
+            line[length] = list.get(i);
+            walk(board, !white, depth - 1, check, line, length + 1);
+            board.unmakeMove();
+            Assert.assertEquals(list.notation(i), whites, board.toText(true));
+            Assert.assertEquals(list.notation(i), blacks, board.toText(false));
+            check.check(board, white, line, length);
+        }
+    }
+
+    /**
+     * Двойное взятие и превращения тихим ходом у обеих сторон через
+     * {@link Play}. Проверка вызывается после каждого хода.
+     *
+     * @return доска в конце ("H8 a1 f4" против "C1 c7")
+     */
+    static Board playPath(Check check) throws WhiteCellException,
+            BusyCellException, InvalidMoveException, LogicException {
+        Board board = Board.fromText("a1 b4 g7", "b2 c5 c7 e5");
+        Play.processLineOfMoves(board, true, "b4:d6:f4");
+        check.check(board, false, null, 0);
+        Play.processLineOfMoves(board, false, "b2-c1");
+        check.check(board, true, null, 0);
+        Play.processLineOfMoves(board, true, "g7-h8");
+        check.check(board, false, null, 0);
+        return board;
+    }
+}
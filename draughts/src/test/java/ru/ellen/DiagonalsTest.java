@@ -0,0 +1,68 @@
+package ru.ellen;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DiagonalsTest {
+
+    @Test
+    public void raysFromCorner() {
+        int a1 = Board.square('a', 1);
+        int ray = 0;
+        for (char letter = 'b'; letter <= 'h'; letter++) {
+            ray |= Board.bit(Board.square(letter, letter - 'a' + 1));
+        }
+        Assert.assertEquals(ray, Diagonals.ray(Diagonals.UP_RIGHT, a1));
+        Assert.assertEquals(0, Diagonals.ray(Diagonals.UP_LEFT, a1));
+        Assert.assertEquals(0, Diagonals.ray(Diagonals.DOWN_LEFT, a1));
+        Assert.assertEquals(-1, Diagonals.jump(Diagonals.DOWN_RIGHT, a1));
+        Assert.assertEquals(Board.square('c', 3),
+                Diagonals.jump(Diagonals.UP_RIGHT, a1));
+    }
+
+    @Test
+    public void queenCaptureStopsAtNextPiece() {
+        int a1 = Board.square('a', 1);
+        int c3 = Board.bit(Board.square('c', 3));
+        int f6 = Board.bit(Board.square('f', 6));
+        int landings = Diagonals.queenCapture(a1, Diagonals.UP_RIGHT,
+                c3 | f6, c3 | f6);
+        Assert.assertEquals(Board.bit(Board.square('d', 4))
+                | Board.bit(Board.square('e', 5)), landings);
+    }
+
+    @Test
+    public void queenCannotCaptureTwoInARow() {
+        int a1 = Board.square('a', 1);
+        int c3 = Board.bit(Board.square('c', 3));
+        int d4 = Board.bit(Board.square('d', 4));
+        Assert.assertEquals(0, Diagonals.queenCapture(a1,
+                Diagonals.UP_RIGHT, c3 | d4, c3 | d4));
+    }
+
+    @Test
+    public void queenCannotJumpEatenPiece() {
+        int h8 = Board.square('h', 8);
+        int f6 = Board.bit(Board.square('f', 6));
+        int d4 = Board.bit(Board.square('d', 4));
+        // f6 уже съедена: она мешает, но бить её нельзя
+        Assert.assertFalse(Diagonals.queenCanCapture(h8, f6 | d4, d4));
+        Assert.assertTrue(Diagonals.queenCanCapture(h8, f6 | d4, f6 | d4));
+    }
+
+    @Test
+    public void firstBlockerInBothDirections() {
+        int d4 = Board.square('d', 4);
+        int occupied = Board.bit(Board.square('b', 2))
+                | Board.bit(Board.square('a', 1))
+                | Board.bit(Board.square('f', 6))
+                | Board.bit(Board.square('g', 7));
+        Assert.assertEquals(Board.square('b', 2),
+                Diagonals.firstBlocker(d4, Diagonals.DOWN_LEFT, occupied));
+        Assert.assertEquals(Board.square('f', 6),
+                Diagonals.firstBlocker(d4, Diagonals.UP_RIGHT, occupied));
+        Assert.assertEquals(-1,
+                Diagonals.firstBlocker(d4, Diagonals.UP_LEFT, occupied));
+    }
+}
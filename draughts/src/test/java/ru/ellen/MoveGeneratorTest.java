@@ -0,0 +1,98 @@
+package ru.ellen;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ellen.exceptions.BusyCellException;
+import ru.ellen.exceptions.InvalidMoveException;
+import ru.ellen.exceptions.LogicException;
+import ru.ellen.exceptions.WhiteCellException;
+
+import java.util.Arrays;
+
+public class MoveGeneratorTest {
+    private final MoveGenerator generator = new MoveGenerator();
+    private final MoveList list = new MoveList();
+
+    @Test
+    public void initialPosition() {
+        Assert.assertEquals("[a3-b4, c3-b4, c3-d4, e3-d4, e3-f4, g3-f4, g3-h4]",
+                moves(Board.initial(), true));
+        Assert.assertEquals("[b6-a5, b6-c5, d6-c5, d6-e5, f6-e5, f6-g5, h6-g5]",
+                moves(Board.initial(), false));
+    }
+
+    @Test
+    public void captureIsMandatory() {
+        Board board = Board.fromText("a1 c3", "d4");
+        Assert.assertEquals("[c3:e5]", moves(board, true));
+    }
+
+    @Test
+    public void manCapturesBackwards() {
+        Board board = Board.fromText("a1 b4", "b2 c5 c7 e5");
+        Assert.assertEquals("[a1:c3, b4:d6:b8, b4:d6:f4]",
+                moves(board, true));
+    }
+
+    @Test
+    public void manContinuesAsQueenAfterPromotion() {
+        Board board = Board.fromText("b6", "c7 f6");
+        Assert.assertEquals("[b6:d8:g5, b6:d8:h4]", moves(board, true));
+        generator.generate(board, true, list);
+        Assert.assertTrue(Move.isPromotion(list.get(0)));
+    }
+
+    @Test
+    public void queenMustLandWhereCaptureContinues() {
+        Board board = Board.fromText("A1", "c3 f4");
+        Assert.assertEquals("[a1:e5:g3, a1:e5:h2]", moves(board, true));
+    }
+
+    @Test
+    public void capturedPieceBlocksTheQueen() {
+        Board board = Board.fromText("E5", "b2 f6");
+        Assert.assertEquals("[e5:a1, e5:g7, e5:h8]", moves(board, true));
+    }
+
+    @Test
+    public void blackMenMoveDown() {
+        Board board = Board.fromText("h2", "a3 F8 g7");
+        Assert.assertEquals("[a3-b2, f8-b4, f8-c5, f8-d6, f8-e7, g7-f6, g7-h6]",
+                moves(board, false));
+    }
+
+    @Test
+    public void generatedMovesAreAcceptedByPlay() throws WhiteCellException,
+            BusyCellException, InvalidMoveException, LogicException {
+        String[][] positions = {
+                {"a1 b4", "b2 c5 c7 e5"},
+                {"A1 a7", "c3 E3 g3 H8"},
+                {"b6", "c7 f6"},
+                {"E5", "b2 f6"},
+        };
+        for (String[] position : positions) {
+            Board board = Board.fromText(position[0], position[1]);
+            generator.generate(board, true, list);
+            for (int i = 0; i < list.size(); i++) {
+                Board copy = Board.fromText(position[0], position[1]);
+                Play.processLineOfMoves(copy, true, list.notation(i));
+                int captures = Move.captures(list.get(i));
+                Assert.assertEquals(board.pieces(false) & ~captures,
+                        copy.pieces(false));
+                Assert.assertTrue((copy.pieces(true)
+                        & Board.bit(Move.to(list.get(i)))) != 0);
+            }
+        }
+    }
+
+    private String moves(Board board, boolean white) {
+        generator.generate(board, white, list);
+        String[] res = new String[list.size()];
+        for (int i = 0; i < list.size(); i++) {
+            res[i] = list.notation(i);
+        }
+        Arrays.sort(res);
+        return Arrays.toString(res);
+    }
+}
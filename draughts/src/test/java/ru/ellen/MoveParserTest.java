@@ -0,0 +1,72 @@
+package ru.ellen;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class MoveParserTest {
+    private final int[] parsed = new int[MoveParser.BUFFER_SIZE];
+
+    @Test
+    public void quietMove() {
+        Assert.assertEquals(2, MoveParser.parse("c3-d4", parsed));
+        Assert.assertEquals(0, parsed[MoveParser.CAPTURE]);
+        Assert.assertEquals(Board.square('c', 3), parsed[MoveParser.FIRST]);
+        Assert.assertEquals(Board.square('d', 4),
+                parsed[MoveParser.FIRST + 1]);
+    }
+
+    @Test
+    public void queenChainInUpperCase() {
+        Assert.assertEquals(4, MoveParser.parse("A1:D4:F2:H4", parsed));
+        Assert.assertEquals(1, parsed[MoveParser.CAPTURE]);
+        Assert.assertEquals(Board.square('h', 4),
+                parsed[MoveParser.FIRST + 3]);
+    }
+
+    @Test
+    public void partOfLine() {
+        String line = "g3-f4 a1:c3:e5";
+        Assert.assertEquals(3, MoveParser.parse(line, 6, line.length(),
+                parsed));
+        Assert.assertEquals(Board.square('e', 5),
+                parsed[MoveParser.FIRST + 2]);
+    }
+
+    @Test
+    public void bytes() {
+        byte[] bytes = "b6:d8:g5".getBytes(StandardCharsets.US_ASCII);
+        Assert.assertEquals(3, MoveParser.parse(bytes, 0, bytes.length,
+                parsed));
+        Assert.assertEquals(1, parsed[MoveParser.CAPTURE]);
+        Assert.assertEquals(Board.square('d', 8),
+                parsed[MoveParser.FIRST + 1]);
+    }
+
+    @Test
+    public void whiteAndOffBoardCells() {
+        MoveParser.parse("c3-c4", parsed);
+        Assert.assertEquals(MoveParser.WHITE_CELL,
+                parsed[MoveParser.FIRST + 1]);
+        MoveParser.parse("h8-i9", parsed);
+        Assert.assertEquals(MoveParser.OFF_BOARD,
+                parsed[MoveParser.FIRST + 1]);
+    }
+
+    @Test
+    public void quietMoveHasTwoCells() {
+        Assert.assertEquals(MoveParser.ERROR,
+                MoveParser.parse("c3-d4-e5", parsed));
+        byte[] bytes = "c3-d4-e5".getBytes(StandardCharsets.US_ASCII);
+        Assert.assertEquals(MoveParser.ERROR, MoveParser.parse(bytes, 0,
+                bytes.length, parsed));
+    }
+
+    @Test
+    public void malformedMove() {
+        Assert.assertEquals(MoveParser.ERROR, MoveParser.parse("c3-d", parsed));
+        Assert.assertEquals(MoveParser.ERROR, MoveParser.parse("c3", parsed));
+    }
+}
@@ -0,0 +1,72 @@
+package ru.ellen;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ellen.exceptions.LogicException;
+
+public class MoveStatusTest {
+    private final Board board = Board.fromText("a1 c3 d4", "c5 c7 e3");
+
+    private int validate(String move) {
+        int[] parsed = new int[MoveParser.BUFFER_SIZE];
+        MoveParser.parse(move, parsed);
+        return MoveValidation.validate(board, true,
+                parsed[MoveParser.FIRST], parsed[MoveParser.FIRST + 1],
+                parsed[MoveParser.CAPTURE] != 0);
+    }
+
+    @Test
+    public void packsStatusAndSquare() {
+        int result = MoveStatus.of(MoveStatus.INVALID_MOVE, 31);
+        Assert.assertEquals(MoveStatus.INVALID_MOVE, MoveStatus.status(result));
+        Assert.assertEquals(31, MoveStatus.square(result));
+        Assert.assertEquals(-1,
+                MoveStatus.square(MoveStatus.of(MoveStatus.LOGIC, -1)));
+        Assert.assertTrue(MoveStatus.isOk(MoveStatus.OK));
+    }
+
+    @Test
+    public void reportsOffendingSquare() {
+        int busy = validate("c3-d4");
+        Assert.assertEquals(MoveStatus.BUSY_CELL, MoveStatus.status(busy));
+        Assert.assertEquals(Board.square('d', 4), MoveStatus.square(busy));
+
+        // d4 может бить c5 и e3
+        int invalid = validate("a1-b2");
+        Assert.assertEquals(MoveStatus.INVALID_MOVE, MoveStatus.status(invalid));
+        Assert.assertEquals(Board.square('d', 4), MoveStatus.square(invalid));
+
+        Assert.assertEquals(MoveStatus.OK, validate("d4:f2"));
+        Assert.assertEquals(MoveStatus.WHITE_CELL,
+                MoveStatus.status(validate("d4:e4")));
+        Assert.assertEquals(MoveStatus.LOGIC,
+                MoveStatus.status(validate("c5:e7")));
+    }
+
+    @Test
+    public void applyDoesNotThrow() {
+        int[] parsed = new int[MoveParser.BUFFER_SIZE];
+        MoveParser.parse("d4:f2", parsed);
+        Assert.assertEquals(MoveStatus.OK,
+                Play.applyLineOfMoves(board, true, parsed));
+        Assert.assertEquals("a1 c3 f2", board.toText(true));
+
+        MoveParser.parse("x", parsed);
+        Assert.assertEquals(MoveStatus.LOGIC, MoveStatus.status(
+                Play.applyLineOfMoves(board, true, parsed)));
+    }
+
+    @Test
+    public void wrapperThrowsStacklessException() {
+        try {
+            Play.processLineOfMoves(board, true, new int[]{0, 0});
+            Assert.fail();
+        } catch (LogicException e) {
+            Assert.assertEquals("error", e.getMessage());
+            Assert.assertEquals(0, e.getStackTrace().length);
+        } catch (Exception e) {
+            Assert.fail(e.toString());
+        }
+    }
+}
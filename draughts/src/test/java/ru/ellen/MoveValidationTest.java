@@ -90,4 +90,30 @@ public class MoveValidationTest {
         MoveValidation validation = new MoveValidation(blacksTwo, whites, "h8-i9");
         validation.checkMove();
     }
+
+    @Test
+    public void blackChainDoesNotTakeEatenPieceAgain()
+            throws InvalidMoveException {
+        // чёрная шашка побила e5:c3; d4 съедена, но ещё на доске
+        ArrayList<Configuration> black = new ArrayList<>();
+        black.add(new Configuration("c3", false));
+        ArrayList<Configuration> white = new ArrayList<>();
+        Configuration eaten = new Configuration("d4", true);
+        eaten.setEaten(true);
+        white.add(eaten);
+        white.add(new Configuration("g1", true));
+        new MoveValidation(black, white, "e5:c3").checkLastChainMove();
+    }
+
+    @Test(expected = InvalidMoveException.class)
+    public void blackChainMustGoOn() throws InvalidMoveException {
+        ArrayList<Configuration> black = new ArrayList<>();
+        black.add(new Configuration("c3", false));
+        ArrayList<Configuration> white = new ArrayList<>();
+        Configuration eaten = new Configuration("d4", true);
+        eaten.setEaten(true);
+        white.add(eaten);
+        white.add(new Configuration("b2", true));
+        new MoveValidation(black, white, "e5:c3").checkLastChainMove();
+    }
 }
@@ -0,0 +1,63 @@
+package ru.ellen;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+public class PerftTest {
+
+    @Test
+    public void referenceCounts() throws IOException {
+        Perft perft = new Perft();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                getClass().getResourceAsStream("/perft.txt"),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(";");
+                Board board = fields[0].equals("start") ? Board.initial()
+                        : Board.fromText(fields[0], fields[1]);
+                boolean white = fields[2].equals("white");
+                String[] counts = fields[3].split(" ");
+                for (int depth = 1; depth <= counts.length; depth++) {
+                    Assert.assertEquals(line + " depth " + depth,
+                            Long.parseLong(counts[depth - 1]),
+                            perft.perft(board, white, depth));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void divideSumsToPerft() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long total = new Perft().divide(Board.initial(), true, 5,
+                new PrintStream(out));
+        Assert.assertEquals(7482, total);
+        Assert.assertTrue(out.toString().contains("c3-d4 "));
+    }
+
+    @Test
+    public void parallelMatchesSequential() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Assert.assertEquals(37986,
+                    Perft.parallel(Board.initial(), true, 6, pool));
+            Assert.assertEquals(7,
+                    Perft.parallel(Board.initial(), true, 1, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
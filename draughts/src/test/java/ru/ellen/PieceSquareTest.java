@@ -0,0 +1,54 @@
+package ru.ellen;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ellen.exceptions.BusyCellException;
+import ru.ellen.exceptions.InvalidMoveException;
+import ru.ellen.exceptions.LogicException;
+import ru.ellen.exceptions.WhiteCellException;
+
+public class PieceSquareTest {
+
+    @Test
+    public void incrementalScoreMatchesFullRecompute() throws WhiteCellException,
+            BusyCellException, InvalidMoveException, LogicException {
+        for (Board board : BoardWalk.positions()) {
+            BoardWalk.walk(board, true, 5, PieceSquareTest::checkScore);
+            BoardWalk.walk(board, false, 4, PieceSquareTest::checkScore);
+        }
+        Board board = BoardWalk.playPath(PieceSquareTest::checkScore);
+        Board copy = new Board();
+        copy.copyFrom(board);
+        Assert.assertEquals(board.score(), copy.score());
+    }
+
+    private static void checkScore(Board board, boolean white, long[] line,
+                                   int length) {
+        Assert.assertEquals(PieceSquare.compute(board), board.score());
+    }
+
+    @Test
+    public void colorsAreSymmetric() {
+        Assert.assertEquals(0, Board.initial().score());
+        // та же расстановка на повёрнутой доске с другими цветами
+        Board white = Board.fromText("c3 D4 a1", "h8");
+        Board black = Board.fromText("a1", "f6 E5 h8");
+        Assert.assertEquals(white.score(), -black.score());
+    }
+
+    @Test
+    public void termsAddUp() {
+        // шашка на e1: своя последняя горизонталь
+        Assert.assertEquals(PieceSquare.MAN + PieceSquare.GUARD,
+                PieceSquare.compute(Board.fromText("e1", "")));
+        // шашка на d4: три горизонтали и центр
+        Assert.assertEquals(PieceSquare.MAN + 3 * PieceSquare.ADVANCE
+                        + PieceSquare.CENTRE,
+                PieceSquare.compute(Board.fromText("d4", "")));
+        Assert.assertEquals(-PieceSquare.QUEEN - PieceSquare.CENTRE,
+                PieceSquare.compute(Board.fromText("", "E5")));
+        Assert.assertEquals(-PieceSquare.MAN - 6 * PieceSquare.ADVANCE,
+                PieceSquare.compute(Board.fromText("", "b2")));
+    }
+}
@@ -170,6 +170,17 @@ public class PlayTest {
         Play.processLineOfMoves(whites, blacks, move);
     }
 
+    @Test
+    public void quietMoveThroughThreeCells() {
+        // третье поле тихого хода не отбрасывается молча
+        Board board = Board.fromText("a1 c3", "c7 e7");
+        int[] parsed = new int[MoveParser.BUFFER_SIZE];
+        MoveParser.parse("c3-d4-e5", parsed);
+        Assert.assertEquals(MoveStatus.LOGIC, MoveStatus.status(
+                Play.applyLineOfMoves(board, true, parsed)));
+        Assert.assertEquals("a1 c3", board.toText(true));
+    }
+
     @Test(expected = BusyCellException.class)
     public void invalidMoveToBusyCell() throws WhiteCellException,
             BusyCellException, InvalidMoveException, LogicException {
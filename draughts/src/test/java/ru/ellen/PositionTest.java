@@ -0,0 +1,64 @@
+package ru.ellen;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+public class PositionTest {
+
+    @Test
+    public void withMoveMatchesBoard() {
+        for (Board board : BoardWalk.positions()) {
+            checkWithMove(board, true);
+            checkWithMove(board, false);
+        }
+    }
+
+    private static void checkWithMove(Board board, boolean white) {
+        Position root = Position.of(board, white);
+        BoardWalk.walk(board, white, 4, (b, side, line, length) -> {
+            Position position = root;
+            for (int i = 0; i < length; i++) {
+                position = position.withMove(line[i]);
+            }
+            Assert.assertEquals(Position.of(b, side), position);
+            Assert.assertEquals(b.key(side), position.key());
+        });
+    }
+
+    @Test
+    public void valueSemantics() {
+        Position a = Position.fromText("a1 C3", "h8", true);
+        Position b = Position.fromText("C3 a1", "h8", true);
+        Assert.assertEquals(a, b);
+        Assert.assertEquals(a.hashCode(), b.hashCode());
+        Assert.assertNotEquals(a, Position.fromText("a1 C3", "h8", false));
+        Assert.assertNotEquals(a, Position.fromText("a1 c3", "h8", true));
+
+        Set<Position> set = new HashSet<>();
+        set.add(a);
+        Assert.assertTrue(set.contains(b));
+    }
+
+    @Test
+    public void convertsToTextAndConfigurations() {
+        Position position = Position.fromText("a1 C3", "h8", false);
+        Assert.assertEquals("C3 a1", position.toText(true));
+        Assert.assertEquals("h8", position.toText(false));
+        Assert.assertFalse(position.whiteToMove());
+
+        ArrayList<Configuration> whites = new ArrayList<>();
+        ArrayList<Configuration> blacks = new ArrayList<>();
+        position.toConfigurations(true, whites);
+        position.toConfigurations(false, blacks);
+        Assert.assertEquals(2, whites.size());
+        Assert.assertEquals(position,
+                Position.fromConfigurations(blacks, whites, false));
+        Assert.assertEquals(position,
+                Position.of(position.toBoard(new Board()), false));
+    }
+}
@@ -0,0 +1,40 @@
+package ru.ellen;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ellen.exceptions.BusyCellException;
+import ru.ellen.exceptions.InvalidMoveException;
+import ru.ellen.exceptions.LogicException;
+import ru.ellen.exceptions.WhiteCellException;
+
+public class ZobristTest {
+
+    @Test
+    public void incrementalKeyMatchesFullRecompute() {
+        for (Board board : BoardWalk.positions()) {
+            BoardWalk.walk(board, true, 5, ZobristTest::checkKey);
+            BoardWalk.walk(board, false, 4, ZobristTest::checkKey);
+        }
+    }
+
+    @Test
+    public void playPathKeepsKey() throws WhiteCellException,
+            BusyCellException, InvalidMoveException, LogicException {
+        Board board = BoardWalk.playPath(ZobristTest::checkKey);
+        Assert.assertEquals("H8 a1 f4", board.toText(true));
+    }
+
+    private static void checkKey(Board board, boolean white, long[] line,
+                                 int length) {
+        Assert.assertEquals(Zobrist.compute(board, white), board.key(white));
+    }
+
+    @Test
+    public void sideToMoveChangesKey() {
+        Board board = Board.initial();
+        Assert.assertNotEquals(board.key(true), board.key(false));
+        Assert.assertEquals(Zobrist.compute(Board.initial(), true),
+                board.key(true));
+    }
+}
@@ -0,0 +1,181 @@
+package ru.ellen.book;
+
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.ellen.Board;
+import ru.ellen.Move;
+import ru.ellen.MoveGenerator;
+import ru.ellen.MoveList;
+import ru.ellen.Play;
+import ru.ellen.engine.Engine;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class OpeningBookTest {
+    private static final String WHITE = "a1 c1 e1 g1 b2 d2 f2 h2 a3 c3 e3 g3";
+    private static final String BLACK = "b6 d6 f6 h6 a7 c7 e7 g7 b8 d8 f8 h8";
+    private static final String GAMES = WHITE + "\n" + BLACK + "\n"
+            + "c3-d4 f6-g5\n"
+            + "g3-h4 g7-f6\n"
+            + "\n"
+            + WHITE + "\n" + BLACK + "\n"
+            + "c3-d4 f6-g5\n"
+            + "\n\n"
+            + WHITE + "\n" + BLACK + "\n"
+            + "c3-d4 b6-a5\n"
+            + "\n"
+            // c5:e3 на занятое поле: партия обрывается на этом ходе
+            + WHITE + "\n" + BLACK + "\n"
+            + "e3-d4 d6-c5\n"
+            + "d2-e3 c5:e3\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsGamesSeparatedByBlankLines() throws IOException {
+        List<String[]> games = BookBuilder.read(
+                new BufferedReader(new StringReader(GAMES)));
+        Assert.assertEquals(4, games.size());
+        Assert.assertEquals(4, games.get(0).length);
+        Assert.assertEquals("c3-d4 b6-a5", games.get(2)[2]);
+    }
+
+    @Test
+    public void mergesDuplicateMovesAndWeighsThem() throws Exception {
+        OpeningBook book = build(GAMES, ForkJoinPool.commonPool());
+        Board board = Board.initial();
+        int first = book.find(board.key(true));
+        Assert.assertTrue(first >= 0);
+        // c3-d4 в трёх партиях, e3-d4 в одной
+        int c3d4 = record(book, board, true, "c3-d4");
+        Assert.assertEquals(3, book.games(c3d4));
+        Assert.assertEquals(750, book.weight(c3d4));
+        Assert.assertEquals(1, book.games(record(book, board, true, "e3-d4")));
+        Assert.assertEquals(move(board, true, "c3-d4"), book.best(board, true));
+
+        Play.processLineOfMoves(board, true, "c3-d4");
+        Assert.assertEquals(2, book.games(record(book, board, false, "f6-g5")));
+        Assert.assertEquals(333, book.weight(record(book, board, false,
+                "b6-a5")));
+        Assert.assertEquals(move(board, false, "f6-g5"),
+                book.best(board, false));
+        Assert.assertEquals(Move.NONE, book.best(board, true));
+
+        for (int i = 1; i < book.size(); i++) {
+            Assert.assertTrue(book.key(i - 1) < book.key(i)
+                    || book.key(i - 1) == book.key(i)
+                    && book.move(i - 1) < book.move(i));
+        }
+    }
+
+    @Test
+    public void rejectedGameKeepsMovesBeforeTheError() throws Exception {
+        OpeningBook book = build(GAMES, ForkJoinPool.commonPool());
+        Board board = Board.initial();
+        Play.processLineOfMoves(board, true, "e3-d4");
+        Play.processLineOfMoves(board, false, "d6-c5");
+        Assert.assertTrue(book.find(board.key(true)) >= 0);
+        Play.processLineOfMoves(board, true, "d2-e3");
+        Assert.assertEquals(-1, book.find(board.key(false)));
+    }
+
+    @Test
+    public void parallelBuildMatchesSequential() throws IOException {
+        StringBuilder many = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            many.append(GAMES).append("\n\n");
+        }
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool several = new ForkJoinPool(4);
+        try {
+            Path a = folder.newFile().toPath();
+            Path b = folder.newFile().toPath();
+            List<String[]> games = BookBuilder.read(
+                    new BufferedReader(new StringReader(many.toString())));
+            BookBuilder.build(games, single, a);
+            BookBuilder.build(games, several, b);
+            Assert.assertArrayEquals(Files.readAllBytes(a),
+                    Files.readAllBytes(b));
+            OpeningBook book = OpeningBook.open(a);
+            Board board = Board.initial();
+            Assert.assertEquals(300,
+                    book.games(record(book, board, true, "c3-d4")));
+        } finally {
+            single.shutdown();
+            several.shutdown();
+        }
+    }
+
+    @Test
+    public void gameAnswersFromOpeningBook() throws Exception {
+        List<String[]> games = new ArrayList<>();
+        games.add(new String[]{WHITE, BLACK, "c3-d4 h6-g5"});
+        Path file = folder.newFile().toPath();
+        BookBuilder.build(games, ForkJoinPool.commonPool(), file);
+        String input = WHITE + "\n" + BLACK + "\n" + "c3-d4\n";
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Engine.game(new BufferedReader(new StringReader(input)),
+                new PrintStream(bytes, true, "UTF-8"), 20,
+                OpeningBook.open(file));
+        String[] lines = bytes.toString("UTF-8").split("\\R");
+        // ответ из книги: поиск не запускался, обдумывания не было
+        Assert.assertEquals(2, lines.length);
+        Assert.assertEquals("h6-g5", lines[0]);
+        Assert.assertTrue(lines[1].startsWith("ponder hits 0, misses 0"));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        OpeningBook.open(file);
+    }
+
+    private OpeningBook build(String text, ForkJoinPool pool)
+            throws IOException {
+        Path file = folder.newFile().toPath();
+        List<String[]> games = BookBuilder.read(
+                new BufferedReader(new StringReader(text)));
+        BookBuilder.build(games, pool, file);
+        return OpeningBook.open(file);
+    }
+
+    private static long move(Board board, boolean white, String notation) {
+        MoveList list = new MoveList();
+        int count = new MoveGenerator().generate(board, white, list);
+        for (int i = 0; i < count; i++) {
+            if (list.notation(i).equals(notation)) {
+                return list.get(i);
+            }
+        }
+        throw new AssertionError(notation);
+    }
+
+    private static int record(OpeningBook book, Board board, boolean white,
+                              String notation) {
+        long key = board.key(white);
+        long move = move(board, white, notation);
+        List<Long> seen = new ArrayList<>();
+        for (int i = book.find(key); i >= 0 && i < book.size()
+                && book.key(i) == key; i++) {
+            if (book.move(i) == move) {
+                return i;
+            }
+            seen.add(book.move(i));
+        }
+        throw new AssertionError(notation + " not in " + seen);
+    }
+}
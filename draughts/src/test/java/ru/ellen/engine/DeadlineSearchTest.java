@@ -0,0 +1,171 @@
+package ru.ellen.engine;
+
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import ru.ellen.Board;
+import ru.ellen.MoveGenerator;
+import ru.ellen.MoveList;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+public class DeadlineSearchTest {
+    private static final long BUDGET = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long ALLOWED_OVERRUN = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int WARMUP = 100;
+    private static final int SEARCHES = 200;
+
+    private static final String[][] POSITIONS = {
+            {"a1 c1 e1 g1 b2 d2 f2 h2 a3 c3 e3 g3",
+                    "b6 d6 f6 h6 a7 c7 e7 g7 b8 d8 f8 h8"},
+            {"a1 a3 c3 d2 e1 f2 f4 g1 g3 h2",
+                    "a7 b6 b8 c7 e5 e7 f6 f8 h6 h8"},
+            {"a3 b2 c3 d4 f2 g1 g3 h2", "a5 b6 b8 c7 f6 g5 g7 h8"},
+            {"a3 b2 c3 d2 e3 f2 f4 g1", "c5 c7 d6 d8 f8 h4 h6 h8"},
+            {"A1 c3 e3", "D8 b6 f6 h6"},
+    };
+
+    @Test
+    public void workAfterDeadlineStaysWithinOneMillisecond() {
+        Search search = new Search(new TranspositionTable(16));
+        assertOverrun("search", (board, deadline) -> search.search(board,
+                true, Search.MAX_PLY, deadline));
+    }
+
+    @Test
+    public void smpWorkAfterDeadlineStaysWithinOneMillisecond() {
+        try (SmpSearch search = new SmpSearch(2, new TranspositionTable(16))) {
+            assertOverrun("smp search, 2 threads", (board, deadline) ->
+                    search.search(board, true, Search.MAX_PLY, deadline));
+        }
+    }
+
+    /**
+     * Меряет превышение срока на {@link #SEARCHES} поисках после
+     * прогрева. Проверяется то, что обещает
+     * {@link Search#search(Board, boolean, int, long)}: превышение за
+     * вычетом времени, когда поток не работал (настенное время минус
+     * процессорное), не больше 1 мс. Паузы самой виртуальной машины
+     * гостевая система считает работой потока, и вычет их не убирает
+     * (под нагрузкой всего набора тестов бывает и 20 мс), поэтому
+     * граница проверяется на 99% поисков. Само превышение по настенным
+     * часам зависит от машины, и для него 1 мс проверяется только по
+     * медиане опоздавших поисков: если поиск продолжается после срока,
+     * пока вызывающий поток ждёт, вычет это скрывает, но тогда
+     * опаздывают почти все поиски.
+     */
+    private static void assertOverrun(String name, Searcher search) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isCurrentThreadCpuTimeSupported());
+        Board[] boards = new Board[POSITIONS.length];
+        for (int i = 0; i < boards.length; i++) {
+            boards[i] = Board.fromText(POSITIONS[i][0], POSITIONS[i][1]);
+        }
+        for (int i = 0; i < WARMUP; i++) {
+            search.search(boards[i % boards.length],
+                    System.nanoTime() + BUDGET);
+        }
+
+        long[] overruns = new long[SEARCHES];
+        long[] working = new long[SEARCHES];
+        for (int i = 0; i < SEARCHES; i++) {
+            Board board = boards[i % boards.length];
+            long cpu = threads.getCurrentThreadCpuTime();
+            long start = System.nanoTime();
+            long deadline = start + BUDGET;
+            SearchResult result = search.search(board, deadline);
+            long end = System.nanoTime();
+            overruns[i] = end - deadline;
+            long idle = Math.max(0, end - start
+                    - (threads.getCurrentThreadCpuTime() - cpu));
+            working[i] = overruns[i] - idle;
+            Assert.assertTrue(isLegal(board, result.getMove()));
+        }
+        Arrays.sort(overruns);
+        Arrays.sort(working);
+        System.out.println(name + ", deadline overrun, budget 20 ms:");
+        System.out.print(histogram(overruns));
+        long p99 = working[SEARCHES * 99 / 100 - 1];
+        Assert.assertTrue(name + ": p99 overrun on cpu " + p99 + " ns, max "
+                        + working[SEARCHES - 1] + " ns",
+                p99 <= ALLOWED_OVERRUN);
+        int first = 0;
+        while (first < SEARCHES && overruns[first] < 0) {
+            first++;
+        }
+        if (first < SEARCHES) {
+            long median = overruns[(first + SEARCHES) / 2];
+            Assert.assertTrue(name + ": median late overrun " + median
+                    + " ns", median <= ALLOWED_OVERRUN);
+        }
+    }
+
+    @Test
+    public void tinyBudgetStillReturnsMove() {
+        Search search = new Search(new TranspositionTable(1));
+        Board board = Board.initial();
+        SearchResult result = search.search(board, true, Search.MAX_PLY,
+                System.nanoTime());
+        Assert.assertTrue(isLegal(board, result.getMove()));
+    }
+
+    @Test
+    public void deadlineCanBeMovedWhileSearching() throws Exception {
+        Search search = new Search(new TranspositionTable(4));
+        SearchResult[] result = new SearchResult[1];
+        Thread thread = new Thread(() -> result[0] = search.search(
+                Board.initial(), true, Search.MAX_PLY, Search.NO_DEADLINE));
+        long start = System.nanoTime();
+        thread.start();
+        Thread.sleep(50);
+        search.setDeadline(System.nanoTime() + BUDGET);
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+        Assert.assertFalse(thread.isAlive());
+        Assert.assertTrue(System.nanoTime() - start
+                < TimeUnit.SECONDS.toNanos(1));
+        Assert.assertTrue(result[0].getDepth() > 0);
+    }
+
+    /**
+     * Гистограмма превышения срока по корзинам в 0.1 мс.
+     */
+    private static String histogram(long[] sorted) {
+        long bucket = TimeUnit.MICROSECONDS.toNanos(100);
+        StringBuilder builder = new StringBuilder();
+        int i = 0;
+        while (i < sorted.length && sorted[i] < 0) {
+            i++;
+        }
+        // итерацию, которую не успеть закончить, поиск не начинает
+        builder.append(String.format("  before deadline: %d%n", i));
+        while (i < sorted.length) {
+            long upper = (sorted[i] / bucket + 1) * bucket;
+            int count = 0;
+            while (i < sorted.length && sorted[i] < upper) {
+                count++;
+                i++;
+            }
+            builder.append(String.format("  < %.1f ms: %d%n",
+                    upper / 1e6, count));
+        }
+        builder.append(String.format("  p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                sorted[sorted.length / 2] / 1e6,
+                sorted[sorted.length * 99 / 100] / 1e6,
+                sorted[sorted.length - 1] / 1e6));
+        return builder.toString();
+    }
+
+    private static boolean isLegal(Board board, long move) {
+        MoveList list = new MoveList();
+        new MoveGenerator().generate(board, true, list);
+        return list.indexOf(move) >= 0;
+    }
+
+    private interface Searcher {
+        SearchResult search(Board board, long deadline);
+    }
+}
@@ -0,0 +1,164 @@
+package ru.ellen.engine;
+
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import ru.ellen.Board;
+import ru.ellen.Move;
+import ru.ellen.MoveGenerator;
+import ru.ellen.MoveList;
+import ru.ellen.MoveParser;
+import ru.ellen.MoveStatus;
+import ru.ellen.Play;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+public class MonteCarloSearchTest {
+
+    @Test
+    public void randomMovesPassValidation() {
+        RandomPlayout playout = new RandomPlayout(7);
+        MoveGenerator generator = new MoveGenerator();
+        MoveList list = new MoveList();
+        int[] parsed = new int[MoveParser.BUFFER_SIZE];
+        Board board = new Board();
+        Board check = new Board();
+        for (int game = 0; game < 50; game++) {
+            board.copyFrom(Board.initial());
+            boolean white = true;
+            for (int ply = 0; ply < RandomPlayout.MAX_PLIES; ply++) {
+                long move = playout.pick(board, white);
+                if (move == Move.NONE) {
+                    break;
+                }
+                // ход проверяется правилами Play (в том числе
+                // обязательным взятием), а не генератором
+                generator.generate(board, white, list);
+                MoveParser.parse(list.notation(list.indexOf(move)), parsed);
+                check.copyFrom(board);
+                Assert.assertEquals(MoveStatus.OK,
+                        Play.applyLineOfMoves(check, white, parsed));
+                board.apply(move);
+                Assert.assertEquals(board.toText(true), check.toText(true));
+                Assert.assertEquals(board.toText(false), check.toText(false));
+                white = !white;
+            }
+        }
+    }
+
+    @Test
+    public void captureIsAlwaysPicked() {
+        RandomPlayout playout = new RandomPlayout(11);
+        Board board = Board.fromText("c3 g3", "d4");
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(Move.isCapture(playout.pick(board, true)));
+        }
+    }
+
+    @Test
+    public void playoutDoesNotAllocate() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemoryEnabled());
+        RandomPlayout playout = new RandomPlayout(3);
+        Board start = Board.initial();
+        Board board = new Board();
+        for (int i = 0; i < 2000; i++) {
+            board.copyFrom(start);
+            playout.play(board, true);
+        }
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < 1000; i++) {
+            board.copyFrom(start);
+            playout.play(board, true);
+        }
+        long allocated = threads.getThreadAllocatedBytes(id) - before;
+        // допуск на служебные выделения самого измерения
+        Assert.assertTrue(allocated + " bytes", allocated < 4096);
+    }
+
+    @Test
+    public void findsBlockingWin() {
+        // d2-c3: у чёрной a5 не остаётся ходов - самый быстрый выигрыш;
+        // один поток с заданным зерном - поиск воспроизводим
+        Board board = Board.fromText("b4 d2", "a5");
+        for (long seed = 1; seed <= 5; seed++) {
+            try (MonteCarloSearch search = new MonteCarloSearch(1,
+                    MonteCarloSearch.DEFAULT_MAX_NODES, seed)) {
+                SearchResult result = search.search(board, true, 20000,
+                        Search.NO_DEADLINE);
+                Assert.assertEquals("seed " + seed, "d2-c3",
+                        result.getNotation());
+                Assert.assertEquals(20000, result.getNodes());
+                Assert.assertTrue(result.getScore() > 900);
+            }
+        }
+    }
+
+    @Test
+    public void sameSeedGivesSameSearch() {
+        Board board = Board.initial();
+        SearchResult[] results = new SearchResult[2];
+        for (int i = 0; i < results.length; i++) {
+            try (MonteCarloSearch search = new MonteCarloSearch(1,
+                    MonteCarloSearch.DEFAULT_MAX_NODES, 42)) {
+                results[i] = search.search(board, true, 2000,
+                        Search.NO_DEADLINE);
+            }
+        }
+        Assert.assertEquals(results[0].getNotation(),
+                results[1].getNotation());
+        Assert.assertEquals(results[0].getScore(), results[1].getScore());
+    }
+
+    @Test
+    public void severalThreadsFindWin() {
+        // с несколькими потоками порядок партий зависит от планировщика;
+        // b4-c5 тоже выигрывает (позже), к ничьей ведёт только d2-e3
+        Board board = Board.fromText("b4 d2", "a5");
+        try (MonteCarloSearch search = new MonteCarloSearch(2)) {
+            SearchResult result = search.search(board, true, 20000,
+                    Search.NO_DEADLINE);
+            Assert.assertNotEquals("d2-e3", result.getNotation());
+            Assert.assertNotEquals(Move.NONE, result.getMove());
+            Assert.assertEquals(20000, result.getNodes());
+            Assert.assertTrue(result.getScore() > 900);
+        }
+    }
+
+    @Test
+    public void deadlineStopsSearch() {
+        try (MonteCarloSearch search = new MonteCarloSearch(2)) {
+            long start = System.nanoTime();
+            SearchResult result = search.search(Board.initial(), true,
+                    Long.MAX_VALUE, start + 50_000_000L);
+            Assert.assertTrue(System.nanoTime() - start < 1_000_000_000L);
+            Assert.assertNotEquals(Move.NONE, result.getMove());
+            Assert.assertTrue(result.getNodes() > 0);
+            // вариант разбирается Play
+            Board board = Board.initial();
+            boolean white = true;
+            for (String move : result.getPrincipalVariation()) {
+                int[] parsed = new int[MoveParser.BUFFER_SIZE];
+                MoveParser.parse(move, parsed);
+                Assert.assertEquals(MoveStatus.OK,
+                        Play.applyLineOfMoves(board, white, parsed));
+                white = !white;
+            }
+        }
+    }
+
+    @Test
+    public void noMovesGivesEmptyResult() {
+        try (MonteCarloSearch search = new MonteCarloSearch(1)) {
+            SearchResult result = search.search(Board.fromText("a1", "b2 c3"),
+                    true, 100, Search.NO_DEADLINE);
+            Assert.assertEquals(Move.NONE, result.getMove());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ru.ellen.engine;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ellen.Board;
+import ru.ellen.Move;
+import ru.ellen.MoveGenerator;
+import ru.ellen.MoveList;
+
+public class MoveOrderingTest {
+
+    @Test
+    public void killersComeFirstThenHistory() {
+        MoveList list = new MoveList();
+        int count = new MoveGenerator().generate(Board.initial(), true, list);
+        Assert.assertEquals(7, count);
+        long killer = list.get(5);
+        long good = list.get(3);
+        MoveOrdering ordering = new MoveOrdering();
+        ordering.cutoff(good, 2, true, 4);
+        ordering.cutoff(killer, 3, true, 1);
+
+        ordering.order(list, 0, 3, true);
+        Assert.assertEquals(killer, list.get(0));
+        Assert.assertEquals(good, list.get(1));
+        Assert.assertEquals(7, list.size());
+        // ход из главного варианта на месте 0 не трогается
+        ordering.order(list, 1, 2, true);
+        Assert.assertEquals(killer, list.get(0));
+        Assert.assertEquals(good, list.get(1));
+    }
+
+    @Test
+    public void historyIsAgedBetweenSearches() {
+        MoveList list = new MoveList();
+        new MoveGenerator().generate(Board.initial(), true, list);
+        long move = list.get(0);
+        MoveOrdering ordering = new MoveOrdering();
+        ordering.cutoff(move, 0, true, 4);
+        ordering.cutoff(move, 1, true, 4);
+        Assert.assertEquals(32, ordering.history(true, move));
+        Assert.assertEquals(0, ordering.history(false, move));
+        Assert.assertEquals(move, ordering.killer(1, 0));
+
+        ordering.newSearch();
+        Assert.assertEquals(16, ordering.history(true, move));
+        Assert.assertEquals(Move.NONE, ordering.killer(1, 0));
+    }
+
+    @Test
+    public void capturesAreNotRecorded() {
+        Board board = Board.fromText("c3", "d4");
+        MoveList list = new MoveList();
+        new MoveGenerator().generate(board, true, list);
+        MoveOrdering ordering = new MoveOrdering();
+        ordering.cutoff(list.get(0), 0, true, 8);
+        Assert.assertEquals(0, ordering.history(true, list.get(0)));
+        Assert.assertEquals(Move.NONE, ordering.killer(0, 0));
+    }
+
+    @Test
+    public void orderingReducesSearchTree() {
+        Board board = Board.initial();
+        Search plain = new Search(new TranspositionTable(4));
+        plain.setKillers(false);
+        plain.setHistory(false);
+        SearchResult unordered = plain.search(board, true, 10);
+        Search ordered = new Search(new TranspositionTable(4));
+        SearchResult result = ordered.search(board, true, 10);
+        Assert.assertEquals(unordered.getScore(), result.getScore());
+        Assert.assertTrue(result.getNodes() < unordered.getNodes());
+    }
+}
@@ -0,0 +1,114 @@
+package ru.ellen.engine;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ellen.Board;
+import ru.ellen.MoveGenerator;
+import ru.ellen.MoveList;
+import ru.ellen.Play;
+import ru.ellen.Position;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+public class PondererTest {
+    private static final long BUDGET = TimeUnit.MILLISECONDS.toNanos(30);
+
+    @Test
+    public void ponderHitContinuesSearch() throws Exception {
+        try (Ponderer ponderer = new Ponderer(new TranspositionTable(8))) {
+            Board board = Board.initial();
+            SearchResult first = ponderer.reply(board, true,
+                    System.nanoTime() + BUDGET);
+            board = Position.of(board, true).withMove(first.getMove())
+                    .toBoard();
+            Assert.assertTrue(ponderer.ponder(board, false, first));
+            Thread.sleep(200);
+
+            // противник ответил так, как ожидалось
+            Play.processLineOfMoves(board, false,
+                    first.getPrincipalVariation()[1]);
+            long start = System.nanoTime();
+            SearchResult result = ponderer.reply(board, true,
+                    start + BUDGET);
+            long elapsed = System.nanoTime() - start;
+
+            Assert.assertEquals(1, ponderer.hits());
+            Assert.assertEquals(0, ponderer.misses());
+            Assert.assertTrue(isLegal(board, true, result.getMove()));
+            // поиск шёл и во время обдумывания
+            Assert.assertTrue(result.getDepth() > first.getDepth());
+            Assert.assertTrue(elapsed < BUDGET + TimeUnit.MILLISECONDS
+                    .toNanos(20));
+        }
+    }
+
+    @Test
+    public void ponderMissCancelsAndSearchesRealPosition() throws Exception {
+        try (Ponderer ponderer = new Ponderer(new TranspositionTable(8))) {
+            Board board = Board.initial();
+            SearchResult first = ponderer.reply(board, true,
+                    System.nanoTime() + BUDGET);
+            board = Position.of(board, true).withMove(first.getMove())
+                    .toBoard();
+            Assert.assertTrue(ponderer.ponder(board, false, first));
+            Thread.sleep(50);
+
+            String expected = first.getPrincipalVariation()[1];
+            MoveList list = new MoveList();
+            int count = new MoveGenerator().generate(board, false, list);
+            int other = list.notation(0).equals(expected) ? 1 : 0;
+            Assert.assertTrue(other < count);
+            board = Position.of(board, false).withMove(list.get(other))
+                    .toBoard();
+
+            SearchResult result = ponderer.reply(board, true,
+                    System.nanoTime() + BUDGET);
+            Assert.assertEquals(0, ponderer.hits());
+            Assert.assertEquals(1, ponderer.misses());
+            Assert.assertTrue(isLegal(board, true, result.getMove()));
+        }
+    }
+
+    @Test
+    public void cancelStopsPondering() {
+        try (Ponderer ponderer = new Ponderer(new TranspositionTable(4))) {
+            Board board = Board.initial();
+            SearchResult first = ponderer.reply(board, true,
+                    System.nanoTime() + BUDGET);
+            board = Position.of(board, true).withMove(first.getMove())
+                    .toBoard();
+            Assert.assertTrue(ponderer.ponder(board, false, first));
+            long start = System.nanoTime();
+            ponderer.cancel();
+            Assert.assertTrue(System.nanoTime() - start
+                    < TimeUnit.MILLISECONDS.toNanos(100));
+        }
+    }
+
+    @Test
+    public void gameAnswersEveryMove() throws Exception {
+        String input = "a1 c1 e1 g1 b2 d2 f2 h2 a3 c3 e3 g3\n"
+                + "b6 d6 f6 h6 a7 c7 e7 g7 b8 d8 f8 h8\n"
+                + "c3-d4\n";
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Engine.game(new BufferedReader(new StringReader(input)),
+                new PrintStream(bytes, true, "UTF-8"), 20);
+        String[] lines = bytes.toString("UTF-8").split("\\R");
+        Assert.assertEquals(2, lines.length);
+        Board board = Board.initial();
+        Play.processLineOfMoves(board, true, "c3-d4");
+        Play.processLineOfMoves(board, false, lines[0]);
+        Assert.assertTrue(lines[1].startsWith("ponder hits 0"));
+    }
+
+    private static boolean isLegal(Board board, boolean white, long move) {
+        MoveList list = new MoveList();
+        new MoveGenerator().generate(board, white, list);
+        return list.indexOf(move) >= 0;
+    }
+}
@@ -0,0 +1,132 @@
+package ru.ellen.engine;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ellen.Board;
+import ru.ellen.MoveGenerator;
+import ru.ellen.MoveList;
+import ru.ellen.Play;
+import ru.ellen.exceptions.BusyCellException;
+import ru.ellen.exceptions.InvalidMoveException;
+import ru.ellen.exceptions.LogicException;
+import ru.ellen.exceptions.WhiteCellException;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.List;
+
+public class ProofNumberSearchTest {
+
+    @Test
+    public void provesWinsAndReturnsPlayableLine() throws WhiteCellException,
+            BusyCellException, InvalidMoveException, LogicException {
+        String[][] puzzles = {
+                {"b4 d2", "a5", "d2-c3"},
+                {"c3 e3", "d6", "e3-d4"},
+                {"A1 c3", "f6", "c3-d4"},
+                {"e3 g3 c1", "b6 f6", "g3-f4"},
+        };
+        ProofNumberSearch solver = new ProofNumberSearch(1 << 12);
+        for (String[] puzzle : puzzles) {
+            ProofNumberSearch.Proof proof = solver.solve(
+                    Board.fromText(puzzle[0], puzzle[1]), true);
+            Assert.assertEquals(ProofNumberSearch.WIN, proof.getStatus());
+            String[] line = proof.getLine();
+            Assert.assertEquals(puzzle[2], line[0]);
+            // нападающий делает последний ход, после него у защиты
+            // ходов нет
+            Assert.assertEquals(1, line.length % 2);
+            Board board = Board.fromText(puzzle[0], puzzle[1]);
+            boolean white = true;
+            for (String move : line) {
+                Play.processLineOfMoves(board, white, move);
+                white = !white;
+            }
+            Assert.assertEquals(0,
+                    new MoveGenerator().generate(board, false, new MoveList()));
+        }
+    }
+
+    @Test
+    public void repetitionDoesNotPoisonTable() throws WhiteCellException,
+            BusyCellException, InvalidMoveException, LogicException {
+        // дамки ходят по кругу, и позиции варианта сначала встречаются
+        // там, где их продолжение - повтор. Если такое опровержение
+        // попадает в таблицу, выигрыш не находится и за 2 млн узлов
+        Board board = Board.fromText("a7 B4 c7", "f2");
+        for (int entries : new int[]{1 << 16, 1 << 20}) {
+            ProofNumberSearch.Proof proof = new ProofNumberSearch(entries)
+                    .solve(board, true, 200_000);
+            Assert.assertEquals(ProofNumberSearch.WIN, proof.getStatus());
+            Assert.assertEquals("b4-e1", proof.getLine()[0]);
+            Board copy = Board.fromText("a7 B4 c7", "f2");
+            boolean white = true;
+            for (String move : proof.getLine()) {
+                Play.processLineOfMoves(copy, white, move);
+                white = !white;
+            }
+            Assert.assertEquals(0,
+                    new MoveGenerator().generate(copy, false, new MoveList()));
+        }
+    }
+
+    @Test
+    public void pathDependentDisproofIsNotHiddenByTable() {
+        // опровержение через повтор не записывается; если родитель
+        // читает вместо него старую запись ребёнка, он снова и снова
+        // раскрывает того же ребёнка до предела узлов
+        ProofNumberSearch.Proof proof = new ProofNumberSearch()
+                .solve(Board.fromText("d4 b6", "D6 A1"), true, 200_000);
+        Assert.assertEquals(ProofNumberSearch.NO_WIN, proof.getStatus());
+        Assert.assertTrue(proof.getNodes() < 200_000);
+    }
+
+    @Test
+    public void noMovesIsNoWin() {
+        ProofNumberSearch.Proof proof = new ProofNumberSearch(1 << 10)
+                .solve(Board.fromText("a1", "b2 c3"), true);
+        Assert.assertEquals(ProofNumberSearch.NO_WIN, proof.getStatus());
+        Assert.assertEquals(0, proof.getLine().length);
+    }
+
+    @Test
+    public void nodeLimitGivesUnknown() {
+        ProofNumberSearch.Proof proof = new ProofNumberSearch(1 << 12)
+                .solve(Board.initial(), true, 5000);
+        Assert.assertEquals(ProofNumberSearch.UNKNOWN, proof.getStatus());
+        Assert.assertTrue(proof.getNodes() <= 5000);
+    }
+
+    @Test
+    public void tinyTableStillFindsLine() {
+        // таблица на 64 записи: доказательства вытесняются и
+        // перепроверяется при выписывании варианта
+        ProofNumberSearch.Proof proof = new ProofNumberSearch(64)
+                .solve(Board.fromText("A1 c3", "f6"), true);
+        Assert.assertEquals(ProofNumberSearch.WIN, proof.getStatus());
+        Assert.assertTrue(proof.getLine().length > 0);
+    }
+
+    @Test
+    public void solvesPuzzleFileInOrder() throws IOException {
+        String file = "# две задачи\n"
+                + "b4 d2\na5\n\n"
+                + "a1\nb2 c3\n";
+        List<String[]> puzzles = PuzzleSolver.read(
+                new BufferedReader(new StringReader(file)));
+        Assert.assertEquals(2, puzzles.size());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        List<ProofNumberSearch.Proof> proofs = PuzzleSolver.solve(puzzles, 2,
+                ProofNumberSearch.DEFAULT_MAX_NODES,
+                new PrintStream(bytes, true, "UTF-8"));
+        Assert.assertEquals(ProofNumberSearch.WIN, proofs.get(0).getStatus());
+        Assert.assertEquals(ProofNumberSearch.NO_WIN, proofs.get(1).getStatus());
+        String[] lines = bytes.toString("UTF-8").split("\\R");
+        Assert.assertTrue(lines[0].startsWith("1: win d2-c3, nodes "));
+        Assert.assertTrue(lines[1].startsWith("2: no win, nodes "));
+    }
+}
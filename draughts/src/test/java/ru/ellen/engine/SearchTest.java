@@ -0,0 +1,167 @@
+package ru.ellen.engine;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ellen.Board;
+import ru.ellen.Configuration;
+import ru.ellen.Move;
+import ru.ellen.MoveGenerator;
+import ru.ellen.MoveList;
+import ru.ellen.Play;
+import ru.ellen.exceptions.BusyCellException;
+import ru.ellen.exceptions.InvalidMoveException;
+import ru.ellen.exceptions.LogicException;
+import ru.ellen.exceptions.WhiteCellException;
+
+import java.util.ArrayList;
+
+public class SearchTest {
+
+    @Test
+    public void reachesDepthTwelveFromStart() {
+        SearchResult result = new Search().search(Board.initial(), true, 12);
+        Assert.assertEquals(12, result.getDepth());
+        Assert.assertEquals(12, result.getPrincipalVariation().length);
+        Assert.assertTrue(result.getNodes() > 0);
+    }
+
+    @Test
+    public void seesGainBehindQuietMove() {
+        // взятий нет, но e7-f8 ведёт и к дамке, и к выигрышу шашки
+        Board board = Board.fromText("a1 c7 e7", "a7 b4 g7");
+        SearchResult result = new Search().search(board, true, 5);
+        Assert.assertFalse(Move.isCapture(result.getMove()));
+        Assert.assertTrue(result.getScore()
+                > Evaluator.QUEEN);
+    }
+
+    @Test
+    public void quiescenceSeesRecapture() {
+        // после d4:b6 чёрные обязаны бить a7:c5
+        Board board = Board.fromText("d4", "c5 a7 h8");
+        Search search = new Search(new TranspositionTable(1));
+        search.setQuiescence(false);
+        int horizon = search.search(board, true, 1).getScore();
+        search.setQuiescence(true);
+        int quiet = search.search(board, true, 1).getScore();
+        Assert.assertTrue(quiet < horizon - Evaluator.MAN);
+        Assert.assertEquals(quiet, search.search(board, true, 2).getScore());
+    }
+
+    @Test
+    public void detectsWinWhenOpponentHasNoMoves() {
+        Board board = Board.fromText("c3", "b4");
+        SearchResult result = new Search().search(board, true, 4);
+        Assert.assertEquals("c3:a5", result.getNotation());
+        Assert.assertEquals(Search.WIN - 1, result.getScore());
+        Assert.assertEquals(2, result.getDepth());
+    }
+
+    @Test
+    public void noMovesMeansLoss() {
+        Board board = Board.fromText("a1", "b2 c3");
+        SearchResult result = new Search().search(board, true, 4);
+        Assert.assertEquals(Move.NONE, result.getMove());
+        Assert.assertEquals("", result.getNotation());
+        Assert.assertEquals(-Search.WIN, result.getScore());
+    }
+
+    @Test
+    public void bestMoveIsAcceptedByPlay() throws WhiteCellException,
+            BusyCellException, InvalidMoveException, LogicException {
+        ArrayList<Configuration> blacks = new ArrayList<>();
+        ArrayList<Configuration> whites = new ArrayList<>();
+        for (String position : "b6 d6 f6 a7 c7".split(" ")) {
+            blacks.add(new Configuration(position, false));
+        }
+        for (String position : "a1 c3 e3 g3 d4".split(" ")) {
+            whites.add(new Configuration(position, true));
+        }
+        SearchResult result = Engine.bestMove(blacks, whites, 8);
+        String[] pv = result.getPrincipalVariation();
+        Assert.assertEquals(result.getNotation(), pv[0]);
+        Play.processLineOfMoves(blacks, whites, pv[0]);
+        if (pv.length > 1) {
+            Play.processLineOfMoves(whites, blacks, pv[1]);
+        }
+    }
+
+    @Test
+    public void nextIterationSearchesPrincipalVariationFirst() {
+        // поиск детерминирован: вариант глубины d - 1 тот же, что у
+        // предпоследней итерации поиска на глубину d
+        String[] positions = {"", "c3 e3 g3 b2 d2 a1 e1 g1",
+                "a5 c5 e5 b4 d4 c3 e3 d2"};
+        for (String whites : positions) {
+            Board board = whites.isEmpty() ? Board.initial()
+                    : Board.fromText(whites, "b8 d8 f8 h8 c7 e7 g7 f6");
+            for (int depth = 3; depth <= 8; depth++) {
+                String[] previous = new Search()
+                        .search(board, true, depth - 1).getPrincipalVariation();
+                Search search = new Search();
+                search.search(board, true, depth);
+                String[] first = notation(board, search.firstMoves());
+                // первыми ходы поставил именно вариант, а не таблица
+                Assert.assertEquals(previous.length, search.pvPlies());
+                Assert.assertTrue(first.length >= previous.length);
+                for (int ply = 0; ply < previous.length; ply++) {
+                    Assert.assertEquals("depth " + depth + ", ply " + ply,
+                            previous[ply], first[ply]);
+                }
+            }
+        }
+    }
+
+    private static String[] notation(Board position, long[] moves) {
+        Board board = new Board();
+        board.copyFrom(position);
+        MoveGenerator generator = new MoveGenerator();
+        MoveList list = new MoveList();
+        String[] result = new String[moves.length];
+        boolean white = true;
+        for (int ply = 0; ply < moves.length; ply++) {
+            generator.generate(board, white, list);
+            result[ply] = list.notation(list.indexOf(moves[ply]));
+            board.makeMove(moves[ply]);
+            white = !white;
+        }
+        return result;
+    }
+
+    @Test
+    public void multiPvRanksDistinctRootMoves() throws WhiteCellException,
+            BusyCellException, InvalidMoveException, LogicException {
+        Board board = Board.initial();
+        SearchResult[] lines = new Search().analyze(board, true, 8, 3);
+        Assert.assertEquals(3, lines.length);
+        SearchResult best = new Search().search(board, true, 8);
+        Assert.assertEquals(best.getScore(), lines[0].getScore());
+        for (int i = 0; i < lines.length; i++) {
+            Assert.assertEquals(8, lines[i].getDepth());
+            if (i > 0) {
+                Assert.assertTrue(lines[i].getScore()
+                        <= lines[i - 1].getScore());
+                Assert.assertNotEquals(lines[i].getMove(),
+                        lines[i - 1].getMove());
+            }
+            // вариант целиком разбирается Play
+            Board copy = Board.initial();
+            boolean white = true;
+            for (String move : lines[i].getPrincipalVariation()) {
+                Play.processLineOfMoves(copy, white, move);
+                white = !white;
+            }
+        }
+    }
+
+    @Test
+    public void multiPvReturnsAtMostAllMoves() {
+        Board board = Board.fromText("c3", "b4");
+        SearchResult[] lines = new Search().analyze(board, true, 6, 5);
+        Assert.assertEquals(1, lines.length);
+        Assert.assertEquals("c3:a5", lines[0].getNotation());
+        Assert.assertEquals(0, new Search()
+                .analyze(Board.fromText("a1", "b2 c3"), true, 6, 3).length);
+    }
+}
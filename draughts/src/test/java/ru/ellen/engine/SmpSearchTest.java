@@ -0,0 +1,70 @@
+package ru.ellen.engine;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ellen.Board;
+import ru.ellen.MoveGenerator;
+import ru.ellen.MoveList;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class SmpSearchTest {
+
+    @Test
+    public void helpersShareTableAndReturnMainResult() {
+        Board board = Board.fromText("a1 c1 e1 b2 d2 c3 e3 g3",
+                "b6 d6 f6 h6 a7 c7 e7 g7");
+        try (SmpSearch search = new SmpSearch(4, new TranspositionTable(8))) {
+            Assert.assertEquals(4, search.threads());
+            SearchResult result = search.search(board, true, 10);
+            Assert.assertEquals(10, result.getDepth());
+            Assert.assertTrue(isLegal(board, true, result.getMove()));
+            // повторный поиск на тех же потоках
+            SearchResult again = search.search(board, true, 8);
+            Assert.assertEquals(8, again.getDepth());
+            Assert.assertTrue(search.table().fillRate() > 0);
+        }
+    }
+
+    @Test
+    public void singleThreadMatchesSearch() {
+        Board board = Board.initial();
+        try (SmpSearch search = new SmpSearch(1, new TranspositionTable(4))) {
+            SearchResult smp = search.search(board, true, 9);
+            SearchResult plain = new Search(new TranspositionTable(4))
+                    .search(board, true, 9);
+            Assert.assertEquals(plain.getScore(), smp.getScore());
+            Assert.assertEquals(plain.getNodes(), smp.getNodes());
+        }
+    }
+
+    @Test
+    public void stopReturnsLastCompletedIteration() throws Exception {
+        Search search = new Search(new TranspositionTable(4));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<SearchResult> future = executor.submit(() ->
+                    search.search(Board.initial(), true, Search.MAX_PLY));
+            Thread.sleep(200);
+            search.stop();
+            SearchResult result = future.get();
+            Assert.assertTrue(result.getDepth() > 0);
+            Assert.assertTrue(result.getDepth() < Search.MAX_PLY);
+            Assert.assertEquals(result.getDepth(),
+                    result.getPrincipalVariation().length);
+            Assert.assertTrue(isLegal(Board.initial(), true,
+                    result.getMove()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static boolean isLegal(Board board, boolean white, long move) {
+        MoveList list = new MoveList();
+        new MoveGenerator().generate(board, white, list);
+        return list.indexOf(move) >= 0;
+    }
+}
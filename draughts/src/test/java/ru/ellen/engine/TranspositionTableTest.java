@@ -0,0 +1,64 @@
+package ru.ellen.engine;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ellen.Board;
+import ru.ellen.Move;
+
+public class TranspositionTableTest {
+
+    @Test
+    public void storesAndProbesPackedEntry() {
+        TranspositionTable table = new TranspositionTable(1);
+        Assert.assertEquals(1 << 16, table.capacity());
+        long move = Move.of(Board.square('a', 1), Board.square('h', 8),
+                Board.bit(Board.square('b', 2)) | Board.bit(Board.square('g', 7)),
+                true, false);
+        long key = 0x123456789ABCDEFL;
+        table.store(key, move, 12, TranspositionTable.LOWER, -Search.WIN + 5);
+
+        long entry = table.probe(key);
+        Assert.assertNotEquals(0, entry);
+        Assert.assertEquals(move, TranspositionTable.move(entry));
+        Assert.assertEquals(12, TranspositionTable.depth(entry));
+        Assert.assertEquals(TranspositionTable.LOWER,
+                TranspositionTable.bound(entry));
+        Assert.assertEquals(-Search.WIN + 5, TranspositionTable.score(entry));
+
+        // тот же индекс, другой ключ - промах
+        Assert.assertEquals(0, table.probe(key ^ (1L << 40)));
+        Assert.assertEquals(0.5, table.hitRate(), 1e-9);
+        Assert.assertEquals(1.0 / table.capacity(), table.fillRate(), 1e-12);
+    }
+
+    @Test
+    public void deeperEntryOfCurrentSearchIsKept() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 42;
+        long other = key + ((long) table.capacity() << 8);
+        table.store(key, Move.NONE, 10, TranspositionTable.EXACT, 7);
+        table.store(other, Move.NONE, 3, TranspositionTable.EXACT, 9);
+        Assert.assertNotEquals(0, table.probe(key));
+        Assert.assertEquals(0, table.probe(other));
+
+        // в новом поиске старая запись вытесняется
+        table.newSearch();
+        table.store(other, Move.NONE, 3, TranspositionTable.EXACT, 9);
+        Assert.assertEquals(0, table.probe(key));
+        Assert.assertEquals(9, TranspositionTable.score(table.probe(other)));
+
+        table.clear();
+        Assert.assertEquals(0, table.probe(other));
+        Assert.assertEquals(0.0, table.fillRate(), 0);
+    }
+
+    @Test
+    public void tableReducesSearchTree() {
+        Search search = new Search(new TranspositionTable(4));
+        SearchResult result = search.search(Board.initial(), true, 10);
+        Assert.assertTrue(search.table().hitRate() > 0);
+        Assert.assertTrue(search.table().fillRate() > 0);
+        Assert.assertEquals(10, result.getPrincipalVariation().length);
+    }
+}
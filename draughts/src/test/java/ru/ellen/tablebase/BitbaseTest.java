@@ -0,0 +1,90 @@
+package ru.ellen.tablebase;
+
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.ellen.Board;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class BitbaseTest {
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<Slice> slices;
+    private static Path directory;
+
+    @BeforeClass
+    public static void write() throws IOException {
+        slices = new TablebaseGenerator(3, ForkJoinPool.commonPool())
+                .generate();
+        directory = folder.getRoot().toPath();
+        for (Slice slice : slices) {
+            Bitbase.write(slice, Bitbase.path(directory, slice.material()));
+        }
+    }
+
+    @Test
+    public void probesMatchTablebase() throws IOException {
+        for (Slice slice : slices) {
+            Material material = slice.material();
+            Bitbase bitbase = Bitbase.open(
+                    Bitbase.path(directory, material));
+            Assert.assertEquals(material, bitbase.material());
+            for (int index = 0; index < material.size(); index++) {
+                for (int side = 0; side < 2; side++) {
+                    boolean white = side == 0;
+                    byte result = slice.result(index, white);
+                    if (result != Slice.INVALID) {
+                        Assert.assertEquals(material + " #" + index,
+                                result, bitbase.probe(index, white));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void filesAreSmallerThanTwoBitsPerPosition() throws IOException {
+        long packed = 0;
+        long written = 0;
+        for (Slice slice : slices) {
+            packed += slice.results.length / 4;
+            written += Files.size(Bitbase.path(directory, slice.material()));
+        }
+        Assert.assertTrue(written + " of " + packed, written < packed);
+    }
+
+    @Test
+    public void directoryProbesAnyPosition() throws IOException {
+        Bitbases bitbases = Bitbases.open(directory);
+        Assert.assertEquals(slices.size(), bitbases.size());
+        Board board = Board.fromText("b4 d2", "a5");
+        Assert.assertEquals(Slice.WIN, bitbases.probe(board, true));
+        Assert.assertEquals(Slice.DRAW,
+                bitbases.probe(Board.fromText("A1", "H2"), true));
+        // у чёрных ни одного хода
+        Assert.assertEquals(Slice.LOSS,
+                bitbases.probe(Board.fromText("b4 c3", "a5"), false));
+        Assert.assertEquals(Bitbases.UNKNOWN,
+                bitbases.probe(Board.initial(), true));
+        // десять чёрных дамок: подпись "1020" была бы таблицей 1020
+        Assert.assertEquals(Bitbases.UNKNOWN, bitbases.probe(Board.fromText(
+                "c3", "a7 A1 C1 E1 G1 B2 D2 F2 H2 B8 D8"), true));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        // отдельный каталог, чтобы не мешать directoryProbesAnyPosition
+        Path file = folder.newFolder().toPath().resolve("0101.wdl");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        Bitbase.open(file);
+    }
+}
@@ -0,0 +1,72 @@
+package ru.ellen.tablebase;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.ellen.Board;
+
+import java.util.List;
+
+public class MaterialTest {
+
+    @Test
+    public void indexInvertsUnrank() {
+        Material[] materials = {new Material(1, 1, 0, 1),
+                new Material(2, 0, 1, 0), new Material(0, 2, 0, 2),
+                new Material(1, 0, 2, 1)};
+        Board board = new Board();
+        for (Material material : materials) {
+            int valid = 0;
+            for (int index = 0; index < material.size(); index++) {
+                if (!material.unrank(index, board)) {
+                    continue;
+                }
+                valid++;
+                Assert.assertEquals(material, Material.of(board));
+                Assert.assertEquals(index, material.index(board));
+                Assert.assertEquals(material.code(), Material.code(board));
+            }
+            Assert.assertTrue(valid > 0);
+        }
+    }
+
+    @Test
+    public void tenInGroupHasNoCode() {
+        Assert.assertEquals(1102, new Material(1, 1, 0, 2).code());
+        Assert.assertEquals(Material.NO_CODE, Material.code(Board.fromText(
+                "c3", "a7 A1 C1 E1 G1 B2 D2 F2 H2 B8 D8")));
+    }
+
+    @Test
+    public void menOnPromotionRowAreInvalid() {
+        Material material = new Material(1, 0, 0, 1);
+        // белая шашка на h8, чёрная дамка на a1
+        Board board = Board.fromText("h8", "A1");
+        Assert.assertFalse(material.isValid(material.index(board)));
+        board = Board.fromText("g7", "A1");
+        Assert.assertTrue(material.isValid(material.index(board)));
+    }
+
+    @Test
+    public void sizeCountsAllPlacements() {
+        // 32 * 31 расстановки двух разных фигур
+        Assert.assertEquals(32 * 31, new Material(1, 0, 1, 0).size());
+        // две одинаковые дамки и ещё одна фигура
+        Assert.assertEquals(32 * 31 / 2 * 30, new Material(0, 2, 0, 1).size());
+    }
+
+    @Test
+    public void upToOrdersByPiecesThenMen() {
+        List<Material> materials = Material.upTo(3);
+        // 4 материала из двух фигур и 12 из трёх
+        Assert.assertEquals(16, materials.size());
+        for (int i = 1; i < materials.size(); i++) {
+            Material previous = materials.get(i - 1);
+            Material current = materials.get(i);
+            Assert.assertTrue(previous.pieces() < current.pieces()
+                    || previous.pieces() == current.pieces()
+                    && previous.men() <= current.men());
+        }
+        Assert.assertEquals("1102", new Material(1, 1, 0, 2).signature());
+    }
+}
@@ -0,0 +1,175 @@
+package ru.ellen.tablebase;
+
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.ellen.Board;
+import ru.ellen.MoveGenerator;
+import ru.ellen.MoveList;
+import ru.ellen.engine.ProofNumberSearch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class TablebaseGeneratorTest {
+    private static TablebaseGenerator generator;
+    private static List<Slice> slices;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void generate() {
+        generator = new TablebaseGenerator(3, ForkJoinPool.commonPool());
+        slices = generator.generate();
+    }
+
+    @Test
+    public void everyResultAgreesWithItsMoves() {
+        Board board = new Board();
+        MoveGenerator moves = new MoveGenerator();
+        MoveList list = new MoveList();
+        for (Slice slice : slices) {
+            Material material = slice.material();
+            for (int index = 0; index < material.size(); index++) {
+                boolean valid = material.unrank(index, board);
+                for (int side = 0; side < 2; side++) {
+                    boolean white = side == 0;
+                    byte result = slice.result(index, white);
+                    if (!valid) {
+                        Assert.assertEquals(Slice.INVALID, result);
+                        continue;
+                    }
+                    check(slice, index, white, board, moves, list);
+                }
+            }
+        }
+    }
+
+    /**
+     * Выигрыш за d - есть ход в проигрыш за d-1 и нет более быстрого;
+     * проигрыш за d - все ходы в выигрыш, самый долгий за d-1;
+     * ничья - нет хода в проигрыш, и не все ходы в выигрыш.
+     */
+    private void check(Slice slice, int index, boolean white, Board board,
+                       MoveGenerator moves, MoveList list) {
+        byte result = slice.result(index, white);
+        int distance = slice.distance(index, white);
+        int count = moves.generate(board, white, list);
+        int fastestLoss = Integer.MAX_VALUE;
+        int longestWin = -1;
+        boolean allWins = true;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(list.get(i));
+            byte child = probe(board, !white);
+            int childDistance = child == Slice.LOSS && board.pieces(!white) == 0
+                    ? 0 : distance(board, !white);
+            board.unmakeMove();
+            if (child == Slice.LOSS) {
+                fastestLoss = Math.min(fastestLoss, childDistance);
+            }
+            if (child == Slice.WIN) {
+                longestWin = Math.max(longestWin, childDistance);
+            } else {
+                allWins = false;
+            }
+        }
+        String where = slice.material() + " #" + index + " " + white;
+        if (result == Slice.WIN) {
+            Assert.assertEquals(where, distance - 1, fastestLoss);
+        } else if (result == Slice.LOSS) {
+            Assert.assertTrue(where, allWins);
+            Assert.assertEquals(where, distance - 1, longestWin);
+        } else {
+            Assert.assertEquals(where, Slice.DRAW, result);
+            Assert.assertEquals(where, Integer.MAX_VALUE, fastestLoss);
+            Assert.assertFalse(where, allWins);
+        }
+    }
+
+    private static byte probe(Board board, boolean white) {
+        if (board.pieces(white) == 0) {
+            return Slice.LOSS;
+        }
+        return generator.slice(Material.of(board)).result(board, white);
+    }
+
+    private static int distance(Board board, boolean white) {
+        return generator.slice(Material.of(board)).distance(board, white);
+    }
+
+    @Test
+    public void winsAreConfirmedByProofSearch() {
+        String[][] wins = {{"b4 d2", "a5"}, {"A1 c3", "f6"}, {"c3 e3", "d6"}};
+        ProofNumberSearch solver = new ProofNumberSearch(1 << 14);
+        for (String[] position : wins) {
+            Board board = Board.fromText(position[0], position[1]);
+            Assert.assertEquals(Slice.WIN, probe(board, true));
+            Assert.assertEquals(ProofNumberSearch.WIN,
+                    solver.solve(board, true).getStatus());
+        }
+        // дамка против дамки - ничья, если нечего сразу взять
+        Board board = Board.fromText("A1", "H2");
+        Assert.assertEquals(Slice.DRAW, probe(board, true));
+    }
+
+    @Test
+    public void resultDoesNotDependOnThreads() {
+        // материалы из одних дамок ссылаются только друг на друга
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool several = new ForkJoinPool(3);
+        try {
+            TablebaseGenerator first = new TablebaseGenerator(3, single);
+            TablebaseGenerator second = new TablebaseGenerator(3, several);
+            for (Material material : Material.upTo(3)) {
+                if (material.men() > 0) {
+                    continue;
+                }
+                Slice a = first.generate(material);
+                Slice b = second.generate(material);
+                Assert.assertArrayEquals(a.results, b.results);
+                Assert.assertArrayEquals(a.distances, b.distances);
+                Assert.assertArrayEquals(a.results,
+                        generator.slice(material).results);
+            }
+        } finally {
+            single.shutdown();
+            several.shutdown();
+        }
+    }
+
+    @Test
+    public void filesRoundTrip() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        Slice slice = slices.get(slices.size() - 1);
+        Path file = slice.path(directory);
+        slice.write(file);
+        Assert.assertEquals(slice.material().signature() + ".tb",
+                file.getFileName().toString());
+        Slice read = Slice.read(file);
+        Assert.assertEquals(slice.material(), read.material());
+        Assert.assertArrayEquals(slice.results, read.results);
+        Assert.assertArrayEquals(slice.distances, read.distances);
+    }
+
+    @Test
+    public void generatorWritesFilePerMaterial() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        List<Slice> written = new TablebaseGenerator(2,
+                ForkJoinPool.commonPool()).generate(folder.getRoot().toPath(),
+                new PrintStream(bytes, true, "UTF-8"));
+        Assert.assertEquals(4, written.size());
+        for (Slice slice : written) {
+            Assert.assertTrue(slice.path(folder.getRoot().toPath())
+                    .toFile().isFile());
+        }
+        Assert.assertEquals(4, bytes.toString("UTF-8").split("\\R").length);
+    }
+}
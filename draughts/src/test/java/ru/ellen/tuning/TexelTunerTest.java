@@ -0,0 +1,167 @@
+package ru.ellen.tuning;
+
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.ellen.Board;
+import ru.ellen.MoveGenerator;
+import ru.ellen.MoveList;
+import ru.ellen.PieceSquare;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class TexelTunerTest {
+    // веса, по которым разыграны исходы: продвижение ценится больше
+    private static final int[] TRUE_WEIGHTS = {100, 250, 12, 5, 6};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void featuresReproduceEvaluation() {
+        Random random = new Random(1);
+        int[] weights = PieceSquare.weights();
+        int[] terms = new int[PieceSquare.TERMS];
+        for (int i = 0; i < 200; i++) {
+            Board board = randomPosition(random);
+            PieceSquare.features(board.men(true), board.queens(true),
+                    board.men(false), board.queens(false), terms);
+            int score = 0;
+            for (int term = 0; term < terms.length; term++) {
+                score += weights[term] * terms[term];
+            }
+            Assert.assertEquals(board.score(), score);
+        }
+    }
+
+    @Test
+    public void convertsTextPositions() throws IOException {
+        String text = "# белые, чёрные, исход\n"
+                + "a1 c3\nb6\n1-0\n\n"
+                + "D4\nb6 f6\n1/2-1/2\n"
+                + "c3\n\n1-0\n";
+        Path file = folder.newFile().toPath();
+        Assert.assertEquals(3, TrainingSet.convert(
+                new BufferedReader(new StringReader(text)), file));
+        Assert.assertEquals(8 + 3 * TrainingSet.RECORD, Files.size(file));
+        TrainingSet set = TrainingSet.read(file);
+        Assert.assertEquals(3, set.size());
+        Assert.assertEquals(1.0, set.score(0), 0);
+        Assert.assertEquals(0.5, set.score(1), 0);
+        Assert.assertEquals(1.0, set.score(2), 0);
+        // a1 c3 против b6: одна лишняя шашка, a1 на своей горизонтали
+        Assert.assertEquals(1, set.feature(0, PieceSquare.MAN_TERM));
+        Assert.assertEquals(1, set.feature(0, PieceSquare.GUARD_TERM));
+        Assert.assertEquals(1, set.feature(1, PieceSquare.QUEEN_TERM));
+        Assert.assertEquals(1, set.feature(1, PieceSquare.CENTRE_TERM));
+        // у чёрных нет фигур
+        Assert.assertEquals(1, set.feature(2, PieceSquare.MAN_TERM));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsUnknownResult() throws IOException {
+        TrainingSet.convert(new BufferedReader(new StringReader(
+                "a1\nh8\nwhite wins\n")), folder.newFile().toPath());
+    }
+
+    @Test
+    public void tuningMovesWeightsTowardsTheLabels() throws IOException {
+        TrainingSet set = TrainingSet.read(synthetic(20000));
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool several = new ForkJoinPool(4);
+        try {
+            PrintStream log = new PrintStream(new ByteArrayOutputStream());
+            TexelTuner tuner = new TexelTuner(set, single);
+            int[] start = {100, 300, 3, 5, 6};
+            int[] tuned = tuner.tune(start, 300, log);
+            Assert.assertTrue(tuner.error(tuned) < tuner.error(start));
+            Assert.assertEquals(100, tuned[PieceSquare.MAN_TERM]);
+            Assert.assertTrue(tuned[PieceSquare.ADVANCE_TERM] > 6);
+            // деление на куски не зависит от потоков
+            Assert.assertArrayEquals(tuned,
+                    new TexelTuner(set, several).tune(start, 300, log));
+        } finally {
+            single.shutdown();
+            several.shutdown();
+        }
+    }
+
+    @Test
+    public void writtenWeightsLoadBack() throws IOException {
+        Path file = folder.newFile().toPath();
+        int[] weights = {100, 280, 4, 7, 9};
+        TexelTuner.write(weights, file);
+        try (InputStream in = Files.newInputStream(file)) {
+            Assert.assertArrayEquals(weights, PieceSquare.load(in));
+        }
+        // ресурс оценки читается в том же формате
+        Assert.assertEquals(PieceSquare.MAN,
+                PieceSquare.weights()[PieceSquare.MAN_TERM]);
+        Assert.assertNotNull(PieceSquare.class.getResource(
+                PieceSquare.RESOURCE));
+    }
+
+    /**
+     * Позиции из случайных партий с исходами, разыгранными по оценке
+     * с весами TRUE_WEIGHTS.
+     */
+    private Path synthetic(int count) throws IOException {
+        Random random = new Random(7);
+        StringBuilder text = new StringBuilder();
+        int[] terms = new int[PieceSquare.TERMS];
+        int written = 0;
+        while (written < count) {
+            Board board = randomPosition(random);
+            if (board.pieces(true) == 0 || board.pieces(false) == 0) {
+                // конец партии: такие позиции для настройки не берутся
+                continue;
+            }
+            written++;
+            PieceSquare.features(board.men(true), board.queens(true),
+                    board.men(false), board.queens(false), terms);
+            int score = 0;
+            for (int term = 0; term < terms.length; term++) {
+                score += TRUE_WEIGHTS[term] * terms[term];
+            }
+            double expected = 1 / (1 + Math.pow(10, -score / 400.0));
+            double roll = random.nextDouble();
+            String result = roll < expected * 0.8 ? "1-0"
+                    : roll < expected * 0.8 + 0.2 ? "1/2-1/2" : "0-1";
+            text.append(board.toText(true)).append('\n')
+                    .append(board.toText(false)).append('\n')
+                    .append(result).append('\n');
+        }
+        Path file = folder.newFile().toPath();
+        TrainingSet.convert(new BufferedReader(
+                new StringReader(text.toString())), file);
+        return file;
+    }
+
+    private static Board randomPosition(Random random) {
+        Board board = Board.initial();
+        MoveGenerator generator = new MoveGenerator();
+        MoveList list = new MoveList();
+        boolean white = true;
+        int plies = 10 + random.nextInt(50);
+        for (int ply = 0; ply < plies; ply++) {
+            int count = generator.generate(board, white, list);
+            if (count == 0) {
+                break;
+            }
+            board.apply(list.get(random.nextInt(count)));
+            white = !white;
+        }
+        return board;
+    }
+}
@@ -0,0 +1,200 @@
+package ru.ellen;
+
+/**
+ * Таблицы диагональных лучей для 32 тёмных полей.
+ * Строятся один раз при загрузке класса. Индекс поля равен
+ * (номер - 1) * 4 + (буква - 'a') / 2, то есть a1 - 0, c1 - 1, ..., h8 - 31.
+ * Направления: 0 - вверх вправо, 1 - вверх влево (номер растёт),
+ * 2 - вниз вправо, 3 - вниз влево (номер убывает).
+ */
+public final class Diagonals {
+    public static final int DIRECTIONS = 4;
+    public static final int UP_RIGHT = 0;
+    public static final int UP_LEFT = 1;
+    public static final int DOWN_RIGHT = 2;
+    public static final int DOWN_LEFT = 3;
+
+    public static final int SQUARES = 32;
+    private static final int BOARD_SIZE = 8;
+    private static final int[] LETTER_STEP = {1, -1, 1, -1};
+    private static final int[] NUMBER_STEP = {1, 1, -1, -1};
+
+    /**
+     * Соседнее поле по направлению, -1 за краем доски.
+     */
+    private static final int[][] STEP = new int[DIRECTIONS][SQUARES];
+    /**
+     * Поле через одно по направлению, -1 за краем доски.
+     */
+    private static final int[][] JUMP = new int[DIRECTIONS][SQUARES];
+    /**
+     * Маска всех полей луча (без исходного поля).
+     */
+    private static final int[][] RAY = new int[DIRECTIONS][SQUARES];
+
+    static {
+        for (int dir = 0; dir < DIRECTIONS; dir++) {
+            for (int square = 0; square < SQUARES; square++) {
+                int next = shift(square,
+                        LETTER_STEP[dir], NUMBER_STEP[dir]);
+                STEP[dir][square] = next;
+                JUMP[dir][square] = next < 0 ? -1 : shift(next,
+                        LETTER_STEP[dir], NUMBER_STEP[dir]);
+                int ray = 0;
+                while (next >= 0) {
+                    ray |= 1 << next;
+                    next = shift(next,
+                            LETTER_STEP[dir], NUMBER_STEP[dir]);
+                }
+                RAY[dir][square] = ray;
+            }
+        }
+    }
+
+    private Diagonals() {
+    }
+
+    /**
+     * Индекс поля по его адресу.
+     *
+     * @param letter буква (в малом регистре)
+     * @param number номер горизонтали
+     * @return индекс поля или -1, если поле белое или вне доски
+     */
+    public static int square(char letter, int number) {
+        int column = letter - 'a';
+        if (column < 0 || column >= BOARD_SIZE
+                || number < 1 || number > BOARD_SIZE
+                || ((column + number) & 1) == 0) {
+            return -1;
+        }
+        return (number - 1) * 4 + (column >> 1);
+    }
+
+    private static int shift(int square, int letterOffset, int numberOffset) {
+        int row = square >> 2;
+        char letter = (char) ('a' + ((square & 3) << 1) + (row & 1));
+        return square((char) (letter + letterOffset),
+                row + 1 + numberOffset);
+    }
+
+    public static int step(int dir, int square) {
+        return STEP[dir][square];
+    }
+
+    public static int jump(int dir, int square) {
+        return JUMP[dir][square];
+    }
+
+    public static int ray(int dir, int square) {
+        return RAY[dir][square];
+    }
+
+    /**
+     * Направление от одного поля к другому.
+     *
+     * @param from исходное поле
+     * @param to   поле на той же диагонали
+     * @return номер направления или -1, если поля не на одной диагонали
+     */
+    public static int direction(int from, int to) {
+        for (int dir = 0; dir < DIRECTIONS; dir++) {
+            if ((RAY[dir][from] & (1 << to)) != 0) {
+                return dir;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Первая занятая клетка на луче.
+     *
+     * @param square   исходное поле
+     * @param dir      направление
+     * @param occupied маска занятых полей
+     * @return индекс поля или -1, если луч свободен до края доски
+     */
+    public static int firstBlocker(int square, int dir, int occupied) {
+        int blockers = RAY[dir][square] & occupied;
+        if (blockers == 0) {
+            return -1;
+        }
+        // вверх индексы растут, вниз - убывают
+        return dir < DOWN_RIGHT ? Integer.numberOfTrailingZeros(blockers)
+                : 31 - Integer.numberOfLeadingZeros(blockers);
+    }
+
+    /**
+     * Свободные поля луча до первой занятой клетки.
+     *
+     * @param square   исходное поле
+     * @param dir      направление
+     * @param occupied маска занятых полей
+     * @return маска полей
+     */
+    public static int freeRay(int square, int dir, int occupied) {
+        int blocker = firstBlocker(square, dir, occupied);
+        if (blocker < 0) {
+            return RAY[dir][square];
+        }
+        return RAY[dir][square] & ~RAY[dir][blocker] & ~(1 << blocker);
+    }
+
+    /**
+     * Взятие дамкой по одному направлению: первая фигура на луче должна
+     * быть доступна для взятия, а за ней - хотя бы одно свободное поле.
+     *
+     * @param square     поле дамки
+     * @param dir        направление
+     * @param occupied   все фигуры на доске, включая уже съеденные
+     * @param capturable фигуры противника, которые ещё можно бить
+     * @return маска полей, на которые дамка может встать после взятия
+     */
+    public static int queenCapture(int square, int dir,
+                                   int occupied, int capturable) {
+        int blocker = firstBlocker(square, dir, occupied);
+        if (blocker < 0 || (capturable & (1 << blocker)) == 0) {
+            return 0;
+        }
+        return freeRay(blocker, dir, occupied);
+    }
+
+    /**
+     * Может ли дамка побить хотя бы по одному направлению.
+     *
+     * @param square     поле дамки
+     * @param occupied   все фигуры на доске, включая уже съеденные
+     * @param capturable фигуры противника, которые ещё можно бить
+     * @return есть ли взятие
+     */
+    public static boolean queenCanCapture(int square, int occupied,
+                                          int capturable) {
+        for (int dir = 0; dir < DIRECTIONS; dir++) {
+            if (queenCapture(square, dir, occupied, capturable) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Может ли простая шашка побить хотя бы по одному направлению
+     * (назад бить тоже можно).
+     *
+     * @param square     поле шашки
+     * @param occupied   все фигуры на доске, включая уже съеденные
+     * @param capturable фигуры противника, которые ещё можно бить
+     * @return есть ли взятие
+     */
+    public static boolean manCanCapture(int square, int occupied,
+                                        int capturable) {
+        for (int dir = 0; dir < DIRECTIONS; dir++) {
+            int to = JUMP[dir][square];
+            if (to >= 0 && (capturable & (1 << STEP[dir][square])) != 0
+                    && (occupied & (1 << to)) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -15,6 +15,14 @@ public class MoveValidation {
     private ArrayList<Configuration> myPositions;
     private ArrayList<Configuration> otherPositions;
     private String myMove;
+    /**
+     * Все башни на доске.
+     */
+    private int occupied;
+    /**
+     * Башни противника, которые ещё не били в этой цепочке ходов.
+     */
+    private int capturable;
     private static final int BOARD_SIZE = 8;
     private static final int MAX_BIG_LETTER = 73;
 
@@ -25,6 +33,15 @@ public class MoveValidation {
         this.myPositions = myPositions;
         this.otherPositions = otherPositions;
         this.myMove = myMove;
+        for (Configuration conf : myPositions) {
+            occupied |= mask(conf);
+        }
+        for (Configuration conf : otherPositions) {
+            occupied |= mask(conf);
+            if (!conf.isEaten()) {
+                capturable |= mask(conf);
+            }
+        }
     }
 
 
@@ -50,10 +67,14 @@ public class MoveValidation {
      * @throws InvalidMoveException в случае непройденной проверки.
      */
     public void checkLastChainMove() throws InvalidMoveException {
+        int square = Diagonals.square(getMyLetter(), getMyNumber());
+        if (square < 0) {
+            return;
+        }
         if (!isQueen()) {
-            checkAllDirections(myMove.substring(3, 5));
+            checkAllDirections(square);
         } else {
-            checkAllQueenDirections(myMove.substring(3, 5));
+            checkAllQueenDirections(square);
         }
     }
 
@@ -65,7 +86,7 @@ public class MoveValidation {
      */
     private void checkBusy() throws BusyCellException {
         if (!isEmpty(getMyLetter(), getMyNumber())) {
-            throw new BusyCellException("busy cell");
+            throw new BusyCellException("busy cell", false);
         }
     }
 
@@ -77,12 +98,15 @@ public class MoveValidation {
     private void checkInvalid() throws InvalidMoveException {
         if (!myMove.contains(":")) {
             for (Configuration conf : myPositions) {
+                int square = Diagonals.square(conf.getLetter(),
+                        conf.getNumber());
+                if (square < 0) {
+                    continue;
+                }
                 if (!conf.isQueen()) {
-                    checkAllDirections(String.valueOf(conf.getLetter())
-                            + conf.getNumber());
+                    checkAllDirections(square);
                 } else {
-                    checkAllQueenDirections(String.valueOf(conf.getLetter())
-                            + conf.getNumber());
+                    checkAllQueenDirections(square);
                 }
             }
         }
@@ -97,7 +121,7 @@ public class MoveValidation {
      */
     private void checkWhite() throws WhiteCellException {
         if ((getMyNumber() + (int) getMyLetter()) % 2 != 0) {
-            throw new WhiteCellException("white cell");
+            throw new WhiteCellException("white cell", false);
         }
     }
 
@@ -112,15 +136,15 @@ public class MoveValidation {
     private void checkLogic() throws LogicException {
         if ((getMyNumber() < 1) || (getMyNumber() > MAX_BIG_LETTER)
                 || (getMyLetter() < 'a') || (getMyLetter() > 'h')) {
-            throw new LogicException("error");
+            throw new LogicException("error", false);
         }
         if (myPositions.isEmpty()) {
-            throw new LogicException("error");
+            throw new LogicException("error", false);
         }
         for (Configuration conf : otherPositions) {
             if (conf.getNumber() == getPrevNumber()
                     && conf.getLetter() == getPrevLetter()) {
-                throw new LogicException("error");
+                throw new LogicException("error", false);
             }
         }
     }
@@ -149,155 +173,29 @@ public class MoveValidation {
         return true;
     }
 
-    private boolean containsOther(char letter, int number) {
-        for (Configuration otherConf : otherPositions) {
-            if (otherConf.getLetter() == letter
-                    && otherConf.getNumber() == number
-                    && !otherConf.isEaten()) {
-                return true;
-            }
-        }
-        return false;
+    private static int mask(Configuration conf) {
+        int square = Diagonals.square(conf.getLetter(), conf.getNumber());
+        return square < 0 ? 0 : 1 << square;
     }
 
-    private boolean containsMine(char letter, int number) {
-        for (Configuration myConf : myPositions) {
-            if (myConf.getLetter() == letter && myConf.getNumber() == number) {
-                return true;
-            }
+    private void checkAllDirections(int myPos) throws InvalidMoveException {
+        if (Diagonals.manCanCapture(myPos, occupied, capturable)) {
+            throw new InvalidMoveException("invalid move", false);
         }
-        return false;
     }
 
-    private void checkAllDirections(String myPos) throws InvalidMoveException {
-        char myLetter = myPos.charAt(0);
-        int myNumber = Integer.valueOf(myPos.substring(1, 2));
-        if (myLetter != 'h' && myLetter != 'g') {
-            if (myNumber <= 6) {
-                if (containsOther((char) (myLetter + 1), myNumber + 1)
-                        && isEmpty((char) (myLetter + 2), myNumber + 2)) {
-                    throw new InvalidMoveException("invalid move");
-                }
-            }
-        }
-
-        if (myLetter != 'h' && myLetter != 'g') {
-            if (myNumber >= 3) {
-                if (containsOther((char) (myLetter + 1), myNumber - 1)
-                        && isEmpty((char) (myLetter + 2), myNumber - 2)) {
-                    throw new InvalidMoveException("invalid move");
-                }
-            }
-        }
-
-        if (myLetter != 'a' && myLetter != 'b') {
-            if (myNumber <= 6) {
-                if (containsOther((char) (myLetter - 1), myNumber + 1)
-                        && isEmpty((char) (myLetter - 2), myNumber + 2)) {
-                    throw new InvalidMoveException("invalid move");
-                }
-            }
-        }
-
-        if (myLetter != 'a' && myLetter != 'b') {
-            if (myNumber >= 3) {
-                if (containsOther((char) (myLetter - 1), myNumber - 1)
-                        && isEmpty((char) (myLetter - 2), myNumber - 2)) {
-                    throw new InvalidMoveException("invalid move");
-                }
-            }
-        }
-    }
-
-    private void checkAllQueenDirections(String myPos)
+    /**
+     * Проверка взятия дамкой по таблицам лучей {@link Diagonals}:
+     * через свою башню перепрыгнуть не можем,
+     * как и через уже побитую в этой цепочке чужую.
+     *
+     * @param myPos поле дамки
+     * @throws InvalidMoveException если дамка может побить
+     */
+    private void checkAllQueenDirections(int myPos)
             throws InvalidMoveException {
-        char myLetter = myPos.charAt(0);
-        int myNumber = Integer.valueOf(myPos.substring(1, 2));
-        if (myLetter != 'h' && myLetter != 'g') {
-            if (myNumber <= 6) {
-                int num = -1;
-                for (int i = 1; i < BOARD_SIZE - myNumber; i++) {
-                    if (containsOther((char) (myLetter + i), myNumber + i)) {
-                        num = i;
-                    }
-                    // через свою перепрыгнуть не можем
-                    if (containsMine((char) (myLetter + i), myNumber + i)) {
-                        break;
-                    }
-                }
-
-                // на этом направлении есть чужая шашка
-                if (num > 0) {
-                    for (int i = num; i < BOARD_SIZE - myNumber + num; i++) {
-                        if (isEmpty((char) (myLetter + i), myNumber + i)) {
-                            throw new InvalidMoveException("invalid move");
-                        }
-                    }
-                }
-            }
-        }
-
-        if (myLetter != 'h' && myLetter != 'g') {
-            if (myNumber >= 3) {
-                int num = -1;
-                for (int i = 1; i < myNumber; i++) {
-                    if (containsOther((char) (myLetter + i), myNumber - i)) {
-                        num = i;
-                    }
-                    if (containsMine((char) (myLetter + i), myNumber - i)) {
-                        break;
-                    }
-                }
-                if (num > 0) {
-                    for (int i = num; i < BOARD_SIZE - myNumber + num; i++) {
-                        if (isEmpty((char) (myLetter + i), myNumber - i)) {
-                            throw new InvalidMoveException("invalid move");
-                        }
-                    }
-                }
-            }
-        }
-
-        if (myLetter != 'a' && myLetter != 'b') {
-            if (myNumber <= 6) {
-                int num = -1;
-                for (int i = 1; i < BOARD_SIZE - myNumber; i++) {
-                    if (containsOther((char) (myLetter - i), myNumber + i)) {
-                        num = i;
-                    }
-                    if (containsMine((char) (myLetter - i), myNumber + i)) {
-                        break;
-                    }
-                }
-                if (num > 0) {
-                    for (int i = num; i < BOARD_SIZE - myNumber + num; i++) {
-                        if (isEmpty((char) (myLetter - i), myNumber + i)) {
-                            throw new InvalidMoveException("invalid move");
-                        }
-                    }
-                }
-            }
-        }
-
-        if (myLetter != 'a' && myLetter != 'b') {
-            if (myNumber >= 3) {
-                int num = -1;
-                for (int i = 1; i < myNumber; i++) {
-                    if (containsOther((char) (myLetter - i), myNumber - i)) {
-                        num = i;
-                    }
-                    if (containsMine((char) (myLetter - i), myNumber - i)) {
-                        break;
-                    }
-                }
-                if (num > 0) {
-                    for (int i = num; i < BOARD_SIZE - myNumber + num; i++) {
-                        if (isEmpty((char) (myLetter - i), myNumber - i)) {
-                            throw new InvalidMoveException("invalid move");
-                        }
-                    }
-                }
-            }
+        if (Diagonals.queenCanCapture(myPos, occupied, capturable)) {
+            throw new InvalidMoveException("invalid move", false);
         }
     }
 
@@ -8,6 +8,7 @@ import ru.ellen.exceptions.WhiteCellException;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.StringTokenizer;
@@ -63,8 +64,8 @@ public class Play {
             processLineOfMoves(blackConfigs, whiteConfigs, blackMove);
         }
 
-        printResult(whiteConfigs);
-        printResult(blackConfigs);
+        printResult(whiteConfigs, System.out);
+        printResult(blackConfigs, System.out);
     }
 
     /**
@@ -233,7 +234,14 @@ public class Play {
         return null;
     }
 
-    private static void printResult(ArrayList<Configuration> configurations) {
+    /**
+     * Вывод башен одного цвета в отсортированном виде.
+     *
+     * @param configurations конфигурации игрока
+     * @param out            поток вывода
+     */
+    public static void printResult(ArrayList<Configuration> configurations,
+                                   PrintStream out) {
         String[] res = new String[configurations.size()];
         for (int j = 0; j < configurations.size(); j++) {
             Configuration curConf = configurations.get(j);
@@ -246,9 +254,9 @@ public class Play {
         }
         Arrays.sort(res);
         for (int i = 0; i < res.length - 1; i++) {
-            System.out.print(res[i] + " ");
+            out.print(res[i] + " ");
         }
-        System.out.println(res[res.length - 1]);
+        out.println(res[res.length - 1]);
     }
 
     private static void becomeQueen(Configuration configuration) {
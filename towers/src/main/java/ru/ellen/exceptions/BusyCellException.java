@@ -7,4 +7,13 @@ public class BusyCellException extends Exception {
     public BusyCellException(String message) {
         super(message);
     }
+
+    /**
+     * @param message            сообщение
+     * @param writableStackTrace заполнять ли стек вызовов; без стека
+     *                           исключение создаётся намного дешевле
+     */
+    public BusyCellException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
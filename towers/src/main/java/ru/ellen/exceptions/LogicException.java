@@ -8,4 +8,13 @@ public class LogicException extends Exception {
     public LogicException(String message) {
         super(message);
     }
+
+    /**
+     * @param message            сообщение
+     * @param writableStackTrace заполнять ли стек вызовов; без стека
+     *                           исключение создаётся намного дешевле
+     */
+    public LogicException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }